@@ -5,10 +5,12 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
 import org.springframework.data.domain.AuditorAware;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
+import org.springframework.scheduling.annotation.EnableAsync;
 
 import java.util.Optional;
 import java.util.UUID;
 
+@EnableAsync(proxyTargetClass = true)
 @EnableJpaAuditing
 @SpringBootApplication
 public class DataJpaApplication {
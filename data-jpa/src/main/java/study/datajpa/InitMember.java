@@ -0,0 +1,66 @@
+package study.datajpa;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+/**
+ * 샘플 회원 초기화
+ *
+ * 기동을 막지 않도록 ApplicationReadyEvent 이후 비동기로, 청크마다 하나의 트랜잭션으로 저장한다.
+ * 초기화가 끝나기 전까지 readiness 는 OUT_OF_SERVICE 로, 초기화가 실패하면 DOWN 으로 노출된다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class InitMember implements HealthIndicator {
+
+    private static final int INIT_COUNT = 100;
+    private static final int CHUNK_SIZE = 50;
+
+    private final MemberRepository memberRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    private volatile boolean ready = false;
+    private volatile Exception failure;
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void init() {
+        long start = System.currentTimeMillis();
+        try {
+            for (int from = 0; from < INIT_COUNT; from += CHUNK_SIZE) {
+                int to = Math.min(from + CHUNK_SIZE, INIT_COUNT);
+                int chunkFrom = from;
+                transactionTemplate.executeWithoutResult(status -> {
+                    for (int i = chunkFrom; i < to; i++) {
+                        memberRepository.save(new Member("user" + i, i));
+                    }
+                });
+            }
+        } catch (RuntimeException e) {
+            // @Async 예외는 호출자에게 전달되지 않으므로 기록해 두고 health 로 노출한다
+            failure = e;
+            log.error("member init failed", e);
+            return;
+        }
+        ready = true;
+        log.info("member init completed in {} ms", System.currentTimeMillis() - start);
+    }
+
+    @Override
+    public Health health() {
+        if (failure != null) {
+            return Health.down(failure).build();
+        }
+        return ready ? Health.up().build() : Health.outOfService().build();
+    }
+}
@@ -1,6 +1,5 @@
 package study.datajpa.controller;
 
-import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -33,11 +32,4 @@ public class MemberController {
     public Page<MemberDto> list(@PageableDefault(size = 5) Pageable pageable) {
         return memberRepository.findAll(pageable).map(MemberDto::new);
     }
-
-    @PostConstruct
-    public void init() {
-        for (int i = 0; i < 100; i++) {
-            memberRepository.save(new Member("user" + i, i));
-        }
-    }
 }
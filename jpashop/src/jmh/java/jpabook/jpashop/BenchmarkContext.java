@@ -0,0 +1,26 @@
+package jpabook.jpashop;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * 벤치마크용 스프링 컨텍스트 - 메모리 H2, SQL 로그 끔
+ */
+public final class BenchmarkContext {
+
+    private BenchmarkContext() {
+    }
+
+    public static ConfigurableApplicationContext start(String... properties) {
+        return new SpringApplicationBuilder(JpashopApplication.class)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:bench;DB_CLOSE_DELAY=-1",
+                        "spring.main.web-application-type=none",
+                        "decorator.datasource.enabled=false",
+                        "logging.level.root=warn",
+                        "logging.level.org.hibernate.SQL=off",
+                        "logging.level.org.hibernate.orm.jdbc.bind=off")
+                .properties(properties)
+                .run();
+    }
+}
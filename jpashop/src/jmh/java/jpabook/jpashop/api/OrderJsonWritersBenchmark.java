@@ -0,0 +1,70 @@
+package jpabook.jpashop.api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.repository.order.query.OrderItemQueryDto;
+import jpabook.jpashop.repository.order.query.OrderQueryDto;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * OrderQueryDto 목록 JSON 직렬화: 기본 빈 직렬화 vs OrderJsonWriters
+ * 할당량은 ./gradlew jmh -Pjmh.includes=OrderJsonWritersBenchmark -Pjmh.profilers=gc 의 gc.alloc.rate.norm 으로 본다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class OrderJsonWritersBenchmark {
+
+    @Param({"10", "1000"})
+    private int orders;
+
+    private List<OrderQueryDto> dtos;
+    private ObjectMapper beanSerializer;
+    private ObjectMapper writers;
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream(1 << 20);
+
+    @Setup
+    public void setUp() {
+        dtos = new ArrayList<>(orders);
+        for (long i = 1; i <= orders; i++) {
+            List<OrderItemQueryDto> items = List.of(
+                    new OrderItemQueryDto(i, "JPA" + i + " BOOK", 10000, 1),
+                    new OrderItemQueryDto(i, "SPRING" + i + " BOOK", 20000, 2));
+            dtos.add(new OrderQueryDto(i, "userA" + i, LocalDateTime.of(2023, 12, 1, 10, 15, 30, 123456000),
+                    OrderStatus.ORDER, new Address("서울", "1", "1111"), items));
+        }
+        beanSerializer = mapper().build();
+        writers = mapper().modules(new SimpleModule()
+                .addSerializer(new OrderJsonWriters.OrderQueryDtoWriter())
+                .addSerializer(new OrderJsonWriters.OrderItemQueryDtoWriter())).build();
+    }
+
+    private static Jackson2ObjectMapperBuilder mapper() {
+        return Jackson2ObjectMapperBuilder.json().featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    }
+
+    @Benchmark
+    public int beanSerializer() throws IOException {
+        out.reset();
+        beanSerializer.writeValue(out, dtos);
+        return out.size();
+    }
+
+    @Benchmark
+    public int writers() throws IOException {
+        out.reset();
+        writers.writeValue(out, dtos);
+        return out.size();
+    }
+}
@@ -0,0 +1,89 @@
+package jpabook.jpashop.api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.repository.order.query.OrderItemQueryDto;
+import jpabook.jpashop.repository.order.query.OrderQueryDto;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * /api/v5/orders 응답 직렬화 비용과 크기 (JSON / Smile / CBOR / Protobuf)
+ * 크기는 Setup 에서 한 번 출력한다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class OrderSerializationBenchmark {
+
+    @Param({"10", "1000"})
+    private int orders;
+
+    private List<OrderQueryDto> dtos;
+    private ObjectMapper json;
+    private ObjectMapper smile;
+    private ObjectMapper cbor;
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream(1 << 20);
+
+    @Setup
+    public void setUp() throws IOException {
+        dtos = new ArrayList<>(orders);
+        for (long i = 1; i <= orders; i++) {
+            List<OrderItemQueryDto> items = List.of(
+                    new OrderItemQueryDto(i, "JPA" + i + " BOOK", 10000, 1),
+                    new OrderItemQueryDto(i, "SPRING" + i + " BOOK", 20000, 2));
+            dtos.add(new OrderQueryDto(i, "userA" + i, LocalDateTime.of(2023, 12, 1, 10, 15, 30),
+                    OrderStatus.ORDER, new Address("서울", "1", "1111"), items));
+        }
+        // 스프링 부트와 같이 날짜는 ISO 문자열로
+        json = mapper().build();
+        smile = mapper().factory(new SmileFactory()).build();
+        cbor = mapper().factory(new CBORFactory()).build();
+
+        System.out.printf("%n[orders=%d] json=%d smile=%d cbor=%d protobuf=%d bytes%n", orders,
+                json(), smile(), cbor(), protobuf());
+    }
+
+    private static Jackson2ObjectMapperBuilder mapper() {
+        return Jackson2ObjectMapperBuilder.json().featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    }
+
+    @Benchmark
+    public int json() throws IOException {
+        out.reset();
+        json.writeValue(out, dtos);
+        return out.size();
+    }
+
+    @Benchmark
+    public int smile() throws IOException {
+        out.reset();
+        smile.writeValue(out, dtos);
+        return out.size();
+    }
+
+    @Benchmark
+    public int cbor() throws IOException {
+        out.reset();
+        cbor.writeValue(out, dtos);
+        return out.size();
+    }
+
+    @Benchmark
+    public int protobuf() throws IOException {
+        out.reset();
+        OrderQueryProtobufConverter.write(dtos, out);
+        return out.size();
+    }
+}
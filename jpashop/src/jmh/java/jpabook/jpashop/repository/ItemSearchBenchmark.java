@@ -0,0 +1,72 @@
+package jpabook.jpashop.repository;
+
+import jakarta.persistence.EntityManager;
+import jpabook.jpashop.BenchmarkContext;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.domain.item.Item;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 상품 10000 건에서 "저자 + 제목 앞부분" 검색 한 번
+ * - likeScan: lower(name/author) like '%..%' 쿼리 (Book 만, 정렬/점수 없음)
+ * - index: ItemSearchIndex (점수 정렬 + 첫 페이지 20 건)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ItemSearchBenchmark {
+
+    private static final int ITEMS = 10_000;
+
+    private ConfigurableApplicationContext context;
+    private TransactionTemplate readOnly;
+    private EntityManager em;
+    private ItemSearchIndex itemSearchIndex;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.start();
+        itemSearchIndex = context.getBean(ItemSearchIndex.class);
+        em = context.getBean(EntityManager.class);
+        TransactionTemplate tx = context.getBean(TransactionTemplate.class);
+        readOnly = new TransactionTemplate(tx.getTransactionManager());
+        readOnly.setReadOnly(true);
+
+        tx.executeWithoutResult(status -> {
+            for (int i = 0; i < ITEMS; i++) {
+                Book book = new Book();
+                book.setName("search book " + i + " volume " + (i % 37));
+                book.setAuthor("author" + (i % 500));
+                book.setIsbn("isbn-" + i);
+                book.setPrice(10000 + i);
+                em.persist(book);
+            }
+        });
+        itemSearchIndex.rebuild();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Item> likeScan() {
+        return readOnly.execute(status -> em.createQuery(
+                        "select i from Book i where lower(i.author) like :author and lower(i.name) like :name", Item.class)
+                .setParameter("author", "%author42%")
+                .setParameter("name", "%volume 1%")
+                .setMaxResults(20)
+                .getResultList());
+    }
+
+    @Benchmark
+    public ItemSearchPage index() {
+        return itemSearchIndex.search("author42 volume 1", 0, 20);
+    }
+}
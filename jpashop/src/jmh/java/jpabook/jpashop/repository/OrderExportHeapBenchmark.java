@@ -0,0 +1,90 @@
+package jpabook.jpashop.repository;
+
+import jpabook.jpashop.BenchmarkContext;
+import jpabook.jpashop.repository.order.query.OrderFlatDto;
+import jpabook.jpashop.repository.order.query.OrderReportRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 주문상품 100만 행 export 를 메모리에 모두 들고 있을 때의 힙 (Canonical 켬 / 끔)
+ * 회원 1만 명(도시 20 개), 상품 1000 개, 주문 25만 건 x 주문상품 4 건, 배송지는 회원 주소
+ * retainedMb : 결과 List 를 잡은 상태에서 GC 후 늘어난 힙
+ * ./gradlew jmh -Pjmh.includes=OrderExportHeapBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class OrderExportHeapBenchmark {
+
+    private static final long BASE = 10_000_000L;
+    private static final int MEMBERS = 10_000;
+    private static final int ITEMS = 1000;
+    private static final int ORDERS = 250_000;
+    private static final int ITEMS_PER_ORDER = 4;
+
+    @Param({"true", "false"})
+    public boolean intern;
+
+    private ConfigurableApplicationContext context;
+    private OrderReportRepository orderReportRepository;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Heap {
+        public long retainedMb;
+    }
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.start("jpashop.intern.enabled=" + intern);
+        orderReportRepository = context.getBean(OrderReportRepository.class);
+
+        // JPA persist 로는 오래 걸리므로 SQL 로 넣는다. (id 는 시퀀스와 겹치지 않게 BASE 부터)
+        JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+        jdbc.update("insert into member (member_id, name, city, street, zipcode)"
+                + " select ? + x, 'export' || x, 'city' || mod(x, 20), 'street ' || x, '1' || lpad(mod(x, 20), 4, '0')"
+                + " from system_range(1, ?)", BASE, MEMBERS);
+        jdbc.update("insert into item (item_id, dtype, name, price, stock_quantity)"
+                + " select ? + x, 'B', 'export book ' || x, 10000 + x, 1000 from system_range(1, ?)", BASE, ITEMS);
+        jdbc.update("insert into delivery (delivery_id, city, street, zipcode, status)"
+                + " select ? + x, m.city, m.street, m.zipcode, 'READY' from system_range(1, ?)"
+                + " join member m on m.member_id = ? + mod(x, ?) + 1", BASE, ORDERS, BASE, MEMBERS);
+        jdbc.update("insert into orders (order_id, member_id, delivery_id, order_date, status, version)"
+                + " select ? + x, ? + mod(x, ?) + 1, ? + x, dateadd('SECOND', x, timestamp '2024-01-01 00:00:00'), 0, 0"
+                + " from system_range(1, ?)", BASE, BASE, MEMBERS, BASE, ORDERS);
+        jdbc.update("insert into order_item (order_item_id, order_id, item_id, order_price, count)"
+                + " select ? + x, ? + (x - 1) / ? + 1, ? + mod(x, ?) + 1, 10000, 1 from system_range(1, ?)",
+                BASE, BASE, ITEMS_PER_ORDER, BASE, ITEMS, ORDERS * ITEMS_PER_ORDER);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int export(Heap heap) {
+        long before = usedAfterGc();
+        List<OrderFlatDto> rows = new ArrayList<>();
+        orderReportRepository.forEachFlat(rows::add);
+        heap.retainedMb = (usedAfterGc() - before) / (1024 * 1024);
+        return rows.size();
+    }
+
+    private static long usedAfterGc() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
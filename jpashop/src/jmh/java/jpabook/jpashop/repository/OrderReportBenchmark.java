@@ -0,0 +1,116 @@
+package jpabook.jpashop.repository;
+
+import jakarta.persistence.EntityManager;
+import jpabook.jpashop.BenchmarkContext;
+import jpabook.jpashop.domain.*;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.repository.order.query.OrderFlatDto;
+import jpabook.jpashop.repository.order.query.OrderQueryRepository;
+import jpabook.jpashop.repository.order.query.OrderReportRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 전체 주문 리포트 한 번 읽는 비용 (주문 5000건 x 주문상품 2건)
+ * - entities: findAllWithItem, 읽기 전용 트랜잭션의 EntityManager
+ * - flatDto: findAllByDto_flat, 결과 전체를 List 로
+ * - statelessFlat: OrderReportRepository 커서
+ * 할당량은 -Pjmh.profilers=gc 의 gc.alloc.rate.norm 으로 본다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class OrderReportBenchmark {
+
+    private static final int ORDERS = 5000;
+
+    private ConfigurableApplicationContext context;
+    private TransactionTemplate readOnly;
+    private OrderRepository orderRepository;
+    private OrderQueryRepository orderQueryRepository;
+    private OrderReportRepository orderReportRepository;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.start();
+        orderRepository = context.getBean(OrderRepository.class);
+        orderQueryRepository = context.getBean(OrderQueryRepository.class);
+        orderReportRepository = context.getBean(OrderReportRepository.class);
+        TransactionTemplate tx = context.getBean(TransactionTemplate.class);
+        readOnly = new TransactionTemplate(tx.getTransactionManager());
+        readOnly.setReadOnly(true);
+
+        EntityManager em = context.getBean(EntityManager.class);
+        tx.executeWithoutResult(status -> {
+            List<Member> members = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                Member member = new Member();
+                member.setName("report" + i);
+                member.setAddress(new Address("서울", "강가 " + i, "1111"));
+                em.persist(member);
+                members.add(member);
+            }
+            List<Book> books = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                Book book = new Book();
+                book.setName("report book " + i);
+                book.setPrice(10000 + i);
+                book.setStockQuantity(Integer.MAX_VALUE);
+                em.persist(book);
+                books.add(book);
+            }
+            for (int i = 0; i < ORDERS; i++) {
+                Member member = members.get(i % members.size());
+                Delivery delivery = new Delivery();
+                delivery.setAddress(member.getAddress());
+                Book first = books.get(i % books.size());
+                Book second = books.get((i + 1) % books.size());
+                em.persist(Order.createOrder(member, delivery,
+                        OrderItem.createOrderItem(first, first.getPrice(), 1),
+                        OrderItem.createOrderItem(second, second.getPrice(), 2)));
+                if (i % 500 == 0) {
+                    em.flush();
+                }
+            }
+        });
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public long entities() {
+        return readOnly.execute(status -> {
+            long total = 0;
+            for (Order order : orderRepository.findAllWithItem()) {
+                for (OrderItem orderItem : order.getOrderItems()) {
+                    total += orderItem.getTotalPrice();
+                }
+            }
+            return total;
+        });
+    }
+
+    @Benchmark
+    public long flatDto() {
+        long total = 0;
+        for (OrderFlatDto row : orderQueryRepository.findAllByDto_flat()) {
+            total += (long) row.getOrderPrice() * row.getCount();
+        }
+        return total;
+    }
+
+    @Benchmark
+    public long statelessFlat() {
+        long[] total = new long[1];
+        orderReportRepository.forEachFlat(row -> total[0] += (long) row.getOrderPrice() * row.getCount());
+        return total[0];
+    }
+}
@@ -0,0 +1,86 @@
+package jpabook.jpashop.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.*;
+import jpabook.jpashop.BenchmarkContext;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderStatus;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 주문 검색 쿼리 생성 비용 - 매번 만드는 Criteria 트리 vs JPQL 문자열 vs shape 별 템플릿
+ * *Execute 는 실행까지 포함한 비용 (생성 비용이 차지하는 비율 확인용)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class OrderSearchBenchmark {
+
+    private ConfigurableApplicationContext context;
+    private EntityManager em;
+    private OrderSearchTemplates templates;
+    private final Set<Long> memberIds = Set.of(1L, 2L, 3L);
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.start();
+        em = context.getBean(EntityManagerFactory.class).createEntityManager();
+        templates = context.getBean(OrderSearchTemplates.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        em.close();
+        context.close();
+    }
+
+    @Benchmark
+    public TypedQuery<Order> criteriaEveryCall() {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<Order> cq = cb.createQuery(Order.class);
+        Root<Order> o = cq.from(Order.class);
+        o.join("member", JoinType.INNER);
+        cq.where(cb.and(
+                cb.equal(o.get("status"), OrderStatus.ORDER),
+                o.get("member").get("id").in(memberIds)));
+        return em.createQuery(cq).setMaxResults(1000);
+    }
+
+    @Benchmark
+    public TypedQuery<Order> jpqlEveryCall() {
+        return jpql();
+    }
+
+    @Benchmark
+    public List<Order> jpqlEveryCallExecute() {
+        return jpql().getResultList();
+    }
+
+    @Benchmark
+    public TypedQuery<Order> shapeTemplate() {
+        return templates.create(em, OrderStatus.ORDER, memberIds, null, null).setMaxResults(1000);
+    }
+
+    @Benchmark
+    public List<Order> shapeTemplateExecute() {
+        return templates.create(em, OrderStatus.ORDER, memberIds, null, null).setMaxResults(1000).getResultList();
+    }
+
+    private TypedQuery<Order> jpql() {
+        StringJoiner where = new StringJoiner(" and ", " where ", "").setEmptyValue("");
+        where.add("o.status = :status");
+        where.add("o.member.id in :memberIds");
+        return em.createQuery("select o from Order o join o.member m" + where, Order.class)
+                .setParameter("status", OrderStatus.ORDER)
+                .setParameter("memberIds", memberIds)
+                .setMaxResults(1000);
+    }
+}
@@ -0,0 +1,90 @@
+package jpabook.jpashop.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jpabook.jpashop.BenchmarkContext;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.domain.item.Item;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 영속성 컨텍스트에 엔티티 loaded 개수를 올려 두고 changed 개만 바꾼 뒤 flush 하는 비용
+ * 바이트코드 향상(dirty tracking) 유무는 빌드 옵션으로 비교한다.
+ * ./gradlew jmh -Pjmh.includes=FlushBenchmark
+ * ./gradlew jmh -Pjmh.includes=FlushBenchmark -Phibernate.enhancement=false
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FlushBenchmark {
+
+    private static final int ITEMS = 10000;
+
+    @Param({"100", "10000"})
+    public int loaded;
+
+    @Param({"1", "10"})
+    public int changed;
+
+    private ConfigurableApplicationContext context;
+    private EntityManagerFactory emf;
+    private EntityManager em;
+    private List<Item> items;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.start();
+        emf = context.getBean(EntityManagerFactory.class);
+        EntityManager setupEm = context.getBean(EntityManager.class);
+        context.getBean(TransactionTemplate.class).executeWithoutResult(status -> {
+            for (int i = 0; i < ITEMS; i++) {
+                Book book = new Book();
+                book.setName("bench book " + i);
+                book.setPrice(10000);
+                book.setStockQuantity(100);
+                book.setAuthor("author " + i);
+                book.setIsbn(String.valueOf(i));
+                setupEm.persist(book);
+                if (i % 100 == 0) {
+                    setupEm.flush();
+                    setupEm.clear();
+                }
+            }
+        });
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    // 조회 비용은 측정에서 뺀다 - 매 호출 전에 새 영속성 컨텍스트에 loaded 개를 올린다.
+    @Setup(Level.Invocation)
+    public void load() {
+        em = emf.createEntityManager();
+        em.getTransaction().begin();
+        items = em.createQuery("select i from Item i order by i.id", Item.class)
+                .setMaxResults(loaded)
+                .getResultList();
+    }
+
+    @TearDown(Level.Invocation)
+    public void rollback() {
+        em.getTransaction().rollback();
+        em.close();
+    }
+
+    @Benchmark
+    public int flush() {
+        for (int i = 0; i < changed; i++) {
+            items.get(i).addStock(1);
+        }
+        em.flush();
+        return items.size();
+    }
+}
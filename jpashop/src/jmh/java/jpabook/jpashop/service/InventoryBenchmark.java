@@ -0,0 +1,66 @@
+package jpabook.jpashop.service;
+
+import jakarta.persistence.EntityManager;
+import jpabook.jpashop.BenchmarkContext;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.item.Book;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 같은 상품에 8 스레드가 동시에 주문 - Item.stockQuantity 직접 수정 vs 재고 원장
+ * 원장 모드는 compactor 가 1초마다 돈다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Threads(8)
+public class InventoryBenchmark {
+
+    @Param({"false", "true"})
+    public boolean ledger;
+
+    private ConfigurableApplicationContext context;
+    private OrderService orderService;
+    private Long memberId;
+    private Long itemId;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.start(
+                "jpashop.inventory.ledger=" + ledger,
+                "jpashop.inventory.compact-interval=PT1S");
+        orderService = context.getBean(OrderService.class);
+
+        EntityManager em = context.getBean(EntityManager.class);
+        context.getBean(TransactionTemplate.class).executeWithoutResult(status -> {
+            Member member = new Member();
+            member.setName("bench");
+            member.setAddress(new Address("서울", "1", "1111"));
+            em.persist(member);
+
+            Book book = new Book();
+            book.setName("bench book");
+            book.setPrice(10000);
+            book.setStockQuantity(Integer.MAX_VALUE / 2);
+            em.persist(book);
+
+            memberId = member.getId();
+            itemId = book.getId();
+        });
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Long order() {
+        return orderService.order(memberId, itemId, 1);
+    }
+}
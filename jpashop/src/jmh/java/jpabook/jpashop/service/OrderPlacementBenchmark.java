@@ -0,0 +1,63 @@
+package jpabook.jpashop.service;
+
+import jakarta.persistence.EntityManager;
+import jpabook.jpashop.BenchmarkContext;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.item.Book;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 주문 한 건 처리 시간 - 2차 캐시 사용 / 미사용
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class OrderPlacementBenchmark {
+
+    @Param({"true", "false"})
+    public boolean secondLevelCache;
+
+    private ConfigurableApplicationContext context;
+    private OrderService orderService;
+    private Long memberId;
+    private Long itemId;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.start(
+                "spring.jpa.properties.hibernate.cache.use_second_level_cache=" + secondLevelCache);
+        orderService = context.getBean(OrderService.class);
+
+        EntityManager em = context.getBean(EntityManager.class);
+        context.getBean(TransactionTemplate.class).executeWithoutResult(status -> {
+            Member member = new Member();
+            member.setName("bench");
+            member.setAddress(new Address("서울", "1", "1111"));
+            em.persist(member);
+
+            Book book = new Book();
+            book.setName("bench book");
+            book.setPrice(10000);
+            book.setStockQuantity(Integer.MAX_VALUE);
+            em.persist(book);
+
+            memberId = member.getId();
+            itemId = book.getId();
+        });
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Long order() {
+        return orderService.order(memberId, itemId, 1);
+    }
+}
@@ -0,0 +1,53 @@
+package jpabook.jpashop.domain;
+
+import static com.querydsl.core.types.PathMetadataFactory.*;
+
+import com.querydsl.core.types.dsl.*;
+
+import com.querydsl.core.types.PathMetadata;
+import javax.annotation.processing.Generated;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.dsl.PathInits;
+
+
+/**
+ * QArchivedDelivery is a Querydsl query type for ArchivedDelivery
+ */
+@Generated("com.querydsl.codegen.DefaultEntitySerializer")
+public class QArchivedDelivery extends EntityPathBase<ArchivedDelivery> {
+
+    private static final long serialVersionUID = 2066390969L;
+
+    private static final PathInits INITS = PathInits.DIRECT2;
+
+    public static final QArchivedDelivery archivedDelivery = new QArchivedDelivery("archivedDelivery");
+
+    public final QAddress address;
+
+    public final NumberPath<Long> id = createNumber("id", Long.class);
+
+    public final EnumPath<DeliveryStatus> status = createEnum("status", DeliveryStatus.class);
+
+    public QArchivedDelivery(String variable) {
+        this(ArchivedDelivery.class, forVariable(variable), INITS);
+    }
+
+    public QArchivedDelivery(Path<? extends ArchivedDelivery> path) {
+        this(path.getType(), path.getMetadata(), PathInits.getFor(path.getMetadata(), INITS));
+    }
+
+    public QArchivedDelivery(PathMetadata metadata) {
+        this(metadata, PathInits.getFor(metadata, INITS));
+    }
+
+    public QArchivedDelivery(PathMetadata metadata, PathInits inits) {
+        this(ArchivedDelivery.class, metadata, inits);
+    }
+
+    public QArchivedDelivery(Class<? extends ArchivedDelivery> type, PathMetadata metadata, PathInits inits) {
+        super(type, metadata, inits);
+        this.address = inits.isInitialized("address") ? new QAddress(forProperty("address")) : null;
+    }
+
+}
+
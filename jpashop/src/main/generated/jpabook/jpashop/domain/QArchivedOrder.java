@@ -0,0 +1,49 @@
+package jpabook.jpashop.domain;
+
+import static com.querydsl.core.types.PathMetadataFactory.*;
+
+import com.querydsl.core.types.dsl.*;
+
+import com.querydsl.core.types.PathMetadata;
+import javax.annotation.processing.Generated;
+import com.querydsl.core.types.Path;
+
+
+/**
+ * QArchivedOrder is a Querydsl query type for ArchivedOrder
+ */
+@Generated("com.querydsl.codegen.DefaultEntitySerializer")
+public class QArchivedOrder extends EntityPathBase<ArchivedOrder> {
+
+    private static final long serialVersionUID = -2109267543L;
+
+    public static final QArchivedOrder archivedOrder = new QArchivedOrder("archivedOrder");
+
+    public final DateTimePath<java.time.LocalDateTime> archivedAt = createDateTime("archivedAt", java.time.LocalDateTime.class);
+
+    public final NumberPath<Long> deliveryId = createNumber("deliveryId", Long.class);
+
+    public final NumberPath<Long> id = createNumber("id", Long.class);
+
+    public final NumberPath<Long> memberId = createNumber("memberId", Long.class);
+
+    public final DateTimePath<java.time.LocalDateTime> orderDate = createDateTime("orderDate", java.time.LocalDateTime.class);
+
+    public final EnumPath<OrderStatus> status = createEnum("status", OrderStatus.class);
+
+    public final NumberPath<Long> version = createNumber("version", Long.class);
+
+    public QArchivedOrder(String variable) {
+        super(ArchivedOrder.class, forVariable(variable));
+    }
+
+    public QArchivedOrder(Path<? extends ArchivedOrder> path) {
+        super(path.getType(), path.getMetadata());
+    }
+
+    public QArchivedOrder(PathMetadata metadata) {
+        super(ArchivedOrder.class, metadata);
+    }
+
+}
+
@@ -0,0 +1,45 @@
+package jpabook.jpashop.domain;
+
+import static com.querydsl.core.types.PathMetadataFactory.*;
+
+import com.querydsl.core.types.dsl.*;
+
+import com.querydsl.core.types.PathMetadata;
+import javax.annotation.processing.Generated;
+import com.querydsl.core.types.Path;
+
+
+/**
+ * QArchivedOrderItem is a Querydsl query type for ArchivedOrderItem
+ */
+@Generated("com.querydsl.codegen.DefaultEntitySerializer")
+public class QArchivedOrderItem extends EntityPathBase<ArchivedOrderItem> {
+
+    private static final long serialVersionUID = -515959716L;
+
+    public static final QArchivedOrderItem archivedOrderItem = new QArchivedOrderItem("archivedOrderItem");
+
+    public final NumberPath<Integer> count = createNumber("count", Integer.class);
+
+    public final NumberPath<Long> id = createNumber("id", Long.class);
+
+    public final NumberPath<Long> itemId = createNumber("itemId", Long.class);
+
+    public final NumberPath<Long> orderId = createNumber("orderId", Long.class);
+
+    public final NumberPath<Integer> orderPrice = createNumber("orderPrice", Integer.class);
+
+    public QArchivedOrderItem(String variable) {
+        super(ArchivedOrderItem.class, forVariable(variable));
+    }
+
+    public QArchivedOrderItem(Path<? extends ArchivedOrderItem> path) {
+        super(path.getType(), path.getMetadata());
+    }
+
+    public QArchivedOrderItem(PathMetadata metadata) {
+        super(ArchivedOrderItem.class, metadata);
+    }
+
+}
+
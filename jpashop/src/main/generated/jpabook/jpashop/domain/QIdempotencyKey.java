@@ -0,0 +1,43 @@
+package jpabook.jpashop.domain;
+
+import static com.querydsl.core.types.PathMetadataFactory.*;
+
+import com.querydsl.core.types.dsl.*;
+
+import com.querydsl.core.types.PathMetadata;
+import javax.annotation.processing.Generated;
+import com.querydsl.core.types.Path;
+
+
+/**
+ * QIdempotencyKey is a Querydsl query type for IdempotencyKey
+ */
+@Generated("com.querydsl.codegen.DefaultEntitySerializer")
+public class QIdempotencyKey extends EntityPathBase<IdempotencyKey> {
+
+    private static final long serialVersionUID = -510477103L;
+
+    public static final QIdempotencyKey idempotencyKey = new QIdempotencyKey("idempotencyKey");
+
+    public final DateTimePath<java.time.LocalDateTime> createdAt = createDateTime("createdAt", java.time.LocalDateTime.class);
+
+    public final StringPath fingerprint = createString("fingerprint");
+
+    public final StringPath key = createString("key");
+
+    public final NumberPath<Long> orderId = createNumber("orderId", Long.class);
+
+    public QIdempotencyKey(String variable) {
+        super(IdempotencyKey.class, forVariable(variable));
+    }
+
+    public QIdempotencyKey(Path<? extends IdempotencyKey> path) {
+        super(path.getType(), path.getMetadata());
+    }
+
+    public QIdempotencyKey(PathMetadata metadata) {
+        super(IdempotencyKey.class, metadata);
+    }
+
+}
+
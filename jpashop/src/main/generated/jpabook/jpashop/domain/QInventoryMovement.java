@@ -0,0 +1,45 @@
+package jpabook.jpashop.domain;
+
+import static com.querydsl.core.types.PathMetadataFactory.*;
+
+import com.querydsl.core.types.dsl.*;
+
+import com.querydsl.core.types.PathMetadata;
+import javax.annotation.processing.Generated;
+import com.querydsl.core.types.Path;
+
+
+/**
+ * QInventoryMovement is a Querydsl query type for InventoryMovement
+ */
+@Generated("com.querydsl.codegen.DefaultEntitySerializer")
+public class QInventoryMovement extends EntityPathBase<InventoryMovement> {
+
+    private static final long serialVersionUID = 1577300168L;
+
+    public static final QInventoryMovement inventoryMovement = new QInventoryMovement("inventoryMovement");
+
+    public final DateTimePath<java.time.LocalDateTime> createdAt = createDateTime("createdAt", java.time.LocalDateTime.class);
+
+    public final NumberPath<Long> id = createNumber("id", Long.class);
+
+    public final NumberPath<Long> itemId = createNumber("itemId", Long.class);
+
+    public final NumberPath<Long> orderId = createNumber("orderId", Long.class);
+
+    public final NumberPath<Integer> quantity = createNumber("quantity", Integer.class);
+
+    public QInventoryMovement(String variable) {
+        super(InventoryMovement.class, forVariable(variable));
+    }
+
+    public QInventoryMovement(Path<? extends InventoryMovement> path) {
+        super(path.getType(), path.getMetadata());
+    }
+
+    public QInventoryMovement(PathMetadata metadata) {
+        super(InventoryMovement.class, metadata);
+    }
+
+}
+
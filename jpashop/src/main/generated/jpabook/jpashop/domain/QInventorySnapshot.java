@@ -0,0 +1,41 @@
+package jpabook.jpashop.domain;
+
+import static com.querydsl.core.types.PathMetadataFactory.*;
+
+import com.querydsl.core.types.dsl.*;
+
+import com.querydsl.core.types.PathMetadata;
+import javax.annotation.processing.Generated;
+import com.querydsl.core.types.Path;
+
+
+/**
+ * QInventorySnapshot is a Querydsl query type for InventorySnapshot
+ */
+@Generated("com.querydsl.codegen.DefaultEntitySerializer")
+public class QInventorySnapshot extends EntityPathBase<InventorySnapshot> {
+
+    private static final long serialVersionUID = 1965852125L;
+
+    public static final QInventorySnapshot inventorySnapshot = new QInventorySnapshot("inventorySnapshot");
+
+    public final DateTimePath<java.time.LocalDateTime> compactedAt = createDateTime("compactedAt", java.time.LocalDateTime.class);
+
+    public final NumberPath<Long> itemId = createNumber("itemId", Long.class);
+
+    public final NumberPath<Integer> quantity = createNumber("quantity", Integer.class);
+
+    public QInventorySnapshot(String variable) {
+        super(InventorySnapshot.class, forVariable(variable));
+    }
+
+    public QInventorySnapshot(Path<? extends InventorySnapshot> path) {
+        super(path.getType(), path.getMetadata());
+    }
+
+    public QInventorySnapshot(PathMetadata metadata) {
+        super(InventorySnapshot.class, metadata);
+    }
+
+}
+
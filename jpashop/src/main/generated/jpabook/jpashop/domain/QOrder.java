@@ -34,6 +34,8 @@ public class QOrder extends EntityPathBase<Order> {
 
     public final EnumPath<OrderStatus> status = createEnum("status", OrderStatus.class);
 
+    public final NumberPath<Long> version = createNumber("version", Long.class);
+
     public QOrder(String variable) {
         this(Order.class, forVariable(variable), INITS);
     }
@@ -0,0 +1,53 @@
+package jpabook.jpashop.domain;
+
+import static com.querydsl.core.types.PathMetadataFactory.*;
+
+import com.querydsl.core.types.dsl.*;
+
+import com.querydsl.core.types.PathMetadata;
+import javax.annotation.processing.Generated;
+import com.querydsl.core.types.Path;
+
+
+/**
+ * QOutboxEvent is a Querydsl query type for OutboxEvent
+ */
+@Generated("com.querydsl.codegen.DefaultEntitySerializer")
+public class QOutboxEvent extends EntityPathBase<OutboxEvent> {
+
+    private static final long serialVersionUID = -1686686406L;
+
+    public static final QOutboxEvent outboxEvent = new QOutboxEvent("outboxEvent");
+
+    public final NumberPath<Long> aggregateId = createNumber("aggregateId", Long.class);
+
+    public final StringPath aggregateType = createString("aggregateType");
+
+    public final NumberPath<Integer> attempts = createNumber("attempts", Integer.class);
+
+    public final DateTimePath<java.time.LocalDateTime> availableAt = createDateTime("availableAt", java.time.LocalDateTime.class);
+
+    public final DateTimePath<java.time.LocalDateTime> createdAt = createDateTime("createdAt", java.time.LocalDateTime.class);
+
+    public final EnumPath<OutboxEventType> eventType = createEnum("eventType", OutboxEventType.class);
+
+    public final NumberPath<Long> id = createNumber("id", Long.class);
+
+    public final DateTimePath<java.time.LocalDateTime> parkedAt = createDateTime("parkedAt", java.time.LocalDateTime.class);
+
+    public final StringPath payload = createString("payload");
+
+    public QOutboxEvent(String variable) {
+        super(OutboxEvent.class, forVariable(variable));
+    }
+
+    public QOutboxEvent(Path<? extends OutboxEvent> path) {
+        super(path.getType(), path.getMetadata());
+    }
+
+    public QOutboxEvent(PathMetadata metadata) {
+        super(OutboxEvent.class, metadata);
+    }
+
+}
+
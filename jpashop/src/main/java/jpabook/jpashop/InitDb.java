@@ -1,10 +1,17 @@
 package jpabook.jpashop;
 
-import jakarta.annotation.PostConstruct;
 import jakarta.persistence.EntityManager;
 import jpabook.jpashop.domain.*;
 import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.repository.ItemSearchIndex;
+import jpabook.jpashop.repository.MemberNameIndex;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -14,17 +21,52 @@ import org.springframework.transaction.annotation.Transactional;
  * * JPA1 BOOK
  * * JPA2 BOOK
  * userB
+ *
+ * 컨텍스트 기동을 막지 않도록 ApplicationReadyEvent 이후 비동기로 실행한다.
+ * 초기화가 끝나기 전까지 readiness 는 OUT_OF_SERVICE 로, 초기화가 실패하면 DOWN 으로 노출된다.
  */
+@Slf4j
 @Component
 @RequiredArgsConstructor
-public class InitDb {
+public class InitDb implements HealthIndicator {
 
     private final InitService initService;
+    private final MemberNameIndex memberNameIndex;
+    private final ItemSearchIndex itemSearchIndex;
 
-    @PostConstruct
+    private volatile boolean ready = false;
+    private volatile Exception failure;
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
     public void init() {
-        initService.dbInit1();
-        initService.dbInit2();
+        long start = System.currentTimeMillis();
+        try {
+            // 청크(회원 단위)마다 하나의 트랜잭션, 트랜잭션 안의 insert는 jdbc batch로 묶인다.
+            initService.dbInit1();
+            initService.dbInit2();
+            memberNameIndex.rebuild();
+            itemSearchIndex.rebuild();
+        } catch (RuntimeException e) {
+            // @Async 예외는 호출자에게 전달되지 않으므로 기록해 두고 health 로 노출한다
+            failure = e;
+            log.error("InitDb failed", e);
+            return;
+        }
+        ready = true;
+        log.info("InitDb completed in {} ms", System.currentTimeMillis() - start);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @Override
+    public Health health() {
+        if (failure != null) {
+            return Health.down(failure).build();
+        }
+        return ready ? Health.up().build() : Health.outOfService().build();
     }
 
 
@@ -0,0 +1,68 @@
+package jpabook.jpashop;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.function.ToLongFunction;
+
+/**
+ * Hibernate 2차 캐시 region 별 hit / miss / put / eviction
+ * hit, miss, put 은 Hibernate Statistics, eviction 은 JCache 통계 MBean 에서 읽는다.
+ * Statistics 는 세션마다 비용이 들기 때문에 jpashop.cache.metrics=true 일 때만 켠다.
+ */
+@Component
+@ConditionalOnProperty(name = "jpashop.cache.metrics", havingValue = "true")
+@RequiredArgsConstructor
+public class SecondLevelCacheMetrics implements MeterBinder {
+
+    private static final String[] REGIONS = {"member", "item"};
+
+    private final EntityManagerFactory emf;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        for (String region : REGIONS) {
+            regionCounter(registry, statistics, region, "hit", CacheRegionStatistics::getHitCount);
+            regionCounter(registry, statistics, region, "miss", CacheRegionStatistics::getMissCount);
+            regionCounter(registry, statistics, region, "put", CacheRegionStatistics::getPutCount);
+            FunctionCounter.builder("hibernate.l2.cache.evictions", region, SecondLevelCacheMetrics::evictions)
+                    .tag("region", region)
+                    .register(registry);
+        }
+    }
+
+    private static void regionCounter(MeterRegistry registry, Statistics statistics, String region,
+                                      String result, ToLongFunction<CacheRegionStatistics> value) {
+        FunctionCounter.builder("hibernate.l2.cache", statistics,
+                        s -> value.applyAsLong(s.getDomainDataRegionStatistics(region)))
+                .tags("region", region, "result", result)
+                .register(registry);
+    }
+
+    private static long evictions(String region) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            for (ObjectName name : server.queryNames(new ObjectName("javax.cache:type=CacheStatistics,*"), null)) {
+                if (region.equals(name.getKeyProperty("Cache"))) {
+                    return (Long) server.getAttribute(name, "CacheEvictions");
+                }
+            }
+        } catch (Exception e) {
+            return 0;
+        }
+        return 0;
+    }
+}
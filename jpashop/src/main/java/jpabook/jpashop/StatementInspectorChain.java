@@ -0,0 +1,33 @@
+package jpabook.jpashop;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hibernate 에는 StatementInspector 를 하나만 등록할 수 있으므로 빈으로 등록된 inspector 를 순서대로 적용한다.
+ */
+@Component
+public class StatementInspectorChain implements HibernatePropertiesCustomizer {
+
+    private final List<StatementInspector> inspectors;
+
+    public StatementInspectorChain(List<StatementInspector> inspectors) {
+        this.inspectors = inspectors;
+    }
+
+    @Override
+    public void customize(Map<String, Object> hibernateProperties) {
+        StatementInspector chain = sql -> {
+            for (StatementInspector inspector : inspectors) {
+                sql = inspector.inspect(sql);
+            }
+            return sql;
+        };
+        hibernateProperties.put(AvailableSettings.STATEMENT_INSPECTOR, chain);
+    }
+}
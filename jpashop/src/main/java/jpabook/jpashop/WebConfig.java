@@ -0,0 +1,115 @@
+package jpabook.jpashop;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import jpabook.jpashop.api.MemberApiController;
+import jpabook.jpashop.api.OrderQueryProtobufConverter;
+import jpabook.jpashop.api.OrderSimpleApiController;
+import jpabook.jpashop.snapshot.ResponseSnapshotFilter;
+import jpabook.jpashop.snapshot.ResponseSnapshots;
+import jpabook.jpashop.snapshot.SnapshotRefresher;
+import jpabook.jpashop.snapshot.SnapshotRoute;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.resource.EncodedResourceResolver;
+import org.springframework.web.servlet.resource.ResourceUrlEncodingFilter;
+import org.springframework.web.servlet.resource.VersionResourceResolver;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static jpabook.jpashop.snapshot.SnapshotGroup.*;
+
+/**
+ * css, js 는 내용 해시가 붙은 경로(/css/bootstrap.min-{hash}.css)로 서빙하고 1년 immutable 캐시를 건다.
+ * 빌드 시 만들어 둔 .br / .gz 가 있으면 Accept-Encoding 에 맞춰 압축본을 내려준다.
+ */
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    private static final String[] ASSET_DIRS = {"css", "js"};
+    private static final MediaType SMILE = new MediaType("application", "x-jackson-smile");
+
+    // 파일명 끝의 -{md5} (ContentVersionStrategy 가 붙이는 32자리 hex)
+    private static final String VERSIONED_FILE = "{file:.+-[0-9a-f]{32}\\..+}";
+
+    /**
+     * 해시가 붙은 경로만 immutable 로 캐시한다.
+     * 해시 없는 경로(/css/bootstrap.min.css)는 배포마다 내용이 바뀌므로 no-cache (ETag/Last-Modified 로 재검증)
+     */
+    @Override
+    public void addResourceHandlers(ResourceHandlerRegistry registry) {
+        for (String dir : ASSET_DIRS) {
+            addAssetHandler(registry, "/" + dir + "/" + VERSIONED_FILE, dir,
+                    CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable());
+            addAssetHandler(registry, "/" + dir + "/**", dir, CacheControl.noCache());
+        }
+    }
+
+    private static void addAssetHandler(ResourceHandlerRegistry registry, String pattern, String dir, CacheControl cacheControl) {
+        registry.addResourceHandler(pattern)
+                .addResourceLocations("classpath:/static/" + dir + "/")
+                .setCacheControl(cacheControl)
+                .resourceChain(true)
+                .addResolver(new EncodedResourceResolver())
+                .addResolver(new VersionResourceResolver().addContentVersionStrategy("/**"));
+    }
+
+    // 타임리프 @{...} 링크를 해시가 붙은 경로로 바꿔준다.
+    @Bean
+    public ResourceUrlEncodingFilter resourceUrlEncodingFilter() {
+        return new ResourceUrlEncodingFilter();
+    }
+
+    // Accept: application/x-jackson-smile, application/cbor 로 바이너리 응답 (JSON 과 같은 ObjectMapper 설정 사용)
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+
+    // Accept: application/x-protobuf 로 OrderQueryDto 목록 (/api/v5/orders, /api/v6/orders)
+    // 빈으로 등록하면 기본 컨버터보다 앞에 놓여 Accept 가 없거나 */* 일 때도 protobuf 로 응답하므로 맨 뒤에 붙인다.
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(new OrderQueryProtobufConverter());
+    }
+
+    // 조회가 많은 목록은 응답 스냅샷으로 서빙한다. (경로 -> 의존하는 데이터, key 에 넣을 파라미터, 응답 타입, 다시 만드는 방법)
+    @Bean
+    public FilterRegistrationBean<ResponseSnapshotFilter> responseSnapshotFilter(
+            ResponseSnapshots snapshots, SnapshotRefresher refresher,
+            MemberApiController memberApiController, OrderSimpleApiController orderSimpleApiController,
+            @Value("${jpashop.snapshot.await-timeout:2s}") Duration awaitTimeout) {
+        List<MediaType> api = List.of(MediaType.APPLICATION_JSON, SMILE, MediaType.APPLICATION_CBOR);
+        Map<String, SnapshotRoute> routes = Map.of(
+                "/api/v2/members", new SnapshotRoute(Set.of(MEMBER), Set.of(), api,
+                        params -> memberApiController.memberV2()),
+                "/api/v4/simple-orders", new SnapshotRoute(Set.of(ORDER, MEMBER), Set.of(), api,
+                        params -> orderSimpleApiController.orderV4()),
+                "/items", new SnapshotRoute(Set.of(ITEM), Set.of(), List.of(MediaType.TEXT_HTML)));
+
+        FilterRegistrationBean<ResponseSnapshotFilter> registration =
+                new FilterRegistrationBean<>(new ResponseSnapshotFilter(snapshots, refresher, routes, awaitTimeout));
+        registration.addUrlPatterns(routes.keySet().toArray(String[]::new));
+        registration.setOrder(0);
+        return registration;
+    }
+}
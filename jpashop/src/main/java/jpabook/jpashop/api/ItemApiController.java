@@ -0,0 +1,27 @@
+package jpabook.jpashop.api;
+
+import jpabook.jpashop.repository.ItemSearchIndex;
+import jpabook.jpashop.repository.ItemSearchPage;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequiredArgsConstructor
+public class ItemApiController {
+
+    private final ItemSearchIndex itemSearchIndex;
+
+    /**
+     * 상품 검색 - 상품명, 저자, ISBN, 아티스트, 감독, 배우 (점수 높은 순, page 는 0 부터)
+     * DB 를 읽지 않고 메모리 인덱스에서 찾는다.
+     */
+    @GetMapping("/api/v1/items/search")
+    public ItemSearchPage search(
+            @RequestParam("q") String q,
+            @RequestParam(value = "page", defaultValue = "0") int page,
+            @RequestParam(value = "size", defaultValue = "20") int size) {
+        return itemSearchIndex.search(q, Math.max(0, page), Math.max(1, Math.min(size, 100)));
+    }
+}
@@ -3,6 +3,9 @@ package jpabook.jpashop.api;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotEmpty;
 import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.repository.order.query.MemberOrderCursor;
+import jpabook.jpashop.repository.order.query.MemberOrderHistoryPage;
+import jpabook.jpashop.repository.order.query.OrderQueryRepository;
 import jpabook.jpashop.service.MemberService;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -17,6 +20,7 @@ import java.util.stream.Collectors;
 public class MemberApiController {
 
     private final MemberService memberService;
+    private final OrderQueryRepository orderQueryRepository;
 
     @GetMapping("/api/v1/members")
     public List<Member> membersV1() {
@@ -44,6 +48,20 @@ public class MemberApiController {
         private String name;
     }
 
+    /**
+     * 회원 주문 이력 - 최근 주문부터, 응답의 next 를 cursor 로 넘기면 다음 페이지
+     * includeArchived=true 면 보관된 주문도 같은 순서로 섞어서
+     */
+    @GetMapping("/api/v2/members/{id}/orders")
+    public MemberOrderHistoryPage memberOrders(
+            @PathVariable("id") Long id,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", defaultValue = "20") int size,
+            @RequestParam(value = "includeArchived", defaultValue = "false") boolean includeArchived) {
+        return orderQueryRepository.findMemberOrderHistory(id, MemberOrderCursor.decode(cursor), Math.max(1, Math.min(size, 100)),
+                includeArchived);
+    }
+
     @PostMapping("/api/v1/members")
     public CreateMemberResponse saveMemberV1(@RequestBody @Valid Member member) {
         Long id = memberService.join(member);
@@ -1,23 +1,33 @@
 package jpabook.jpashop.api;
 
-import jpabook.jpashop.domain.Address;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
 import jpabook.jpashop.domain.Order;
-import jpabook.jpashop.domain.OrderItem;
-import jpabook.jpashop.domain.OrderStatus;
-import jpabook.jpashop.repository.OrderRepository;
 import jpabook.jpashop.repository.OrderSearch;
+import jpabook.jpashop.repository.order.query.OrderField;
 import jpabook.jpashop.repository.order.query.OrderFlatDto;
 import jpabook.jpashop.repository.order.query.OrderItemQueryDto;
 import jpabook.jpashop.repository.order.query.OrderQueryDto;
 import jpabook.jpashop.repository.order.query.OrderQueryRepository;
-import lombok.Getter;
+import jpabook.jpashop.service.IdempotencyStore;
+import jpabook.jpashop.service.LockRetry;
+import jpabook.jpashop.service.OrderAdmissionControl;
+import jpabook.jpashop.service.OrderLine;
+import jpabook.jpashop.service.OrderService;
+import jpabook.jpashop.service.query.OrderDto;
+import jpabook.jpashop.service.query.OrderQueryService;
+import lombok.AllArgsConstructor;
+import lombok.Data;
 import lombok.RequiredArgsConstructor;
-import org.springframework.web.bind.annotation.GetMapping;
-import org.springframework.web.bind.annotation.RequestParam;
-import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.bind.annotation.*;
 
-import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import static java.util.stream.Collectors.*;
 
@@ -25,38 +35,41 @@ import static java.util.stream.Collectors.*;
 @RequiredArgsConstructor
 public class OrderApiController {
 
-    private final OrderRepository orderRepository;
     private final OrderQueryRepository orderQueryRepository;
-
+    private final OrderQueryService orderQueryService;
+    private final OrderService orderService;
+    private final LockRetry lockRetry;
+    private final OrderAdmissionControl admissionControl;
+    private final IdempotencyStore idempotencyStore;
+
+    /**
+     * OSIV 없이도 동작하도록 조회와 변환은 OrderQueryService 에서 선언된 fetch plan 으로 한다.
+     */
     @GetMapping("/api/v1/orders")
     public List<Order> ordersV1() {
-        List<Order> all = orderRepository.findAllByCriteria(new OrderSearch());
-        for (Order order : all) {
-            order.getMember().getName();
-            order.getDelivery().getAddress();
-
-            List<OrderItem> orderItems = order.getOrderItems();
-            orderItems.stream().forEach(o -> o.getItem().getName());
-        }
-        return all;
+        return orderQueryService.ordersV1();
     }
 
     @GetMapping("/api/v2/orders")
     public List<OrderDto> ordersV2() {
-        List<Order> orders = orderRepository.findAllByCriteria(new OrderSearch());
-        List<OrderDto> collect = orders.stream()
-                .map(o -> new OrderDto(o))
-                .collect(toList());
-        return collect;
+        return orderQueryService.ordersV2();
     }
 
+    /**
+     * memberName, orderStatus 검색 + offset/limit 페이징, 페이지마다 쿼리 2번
+     * includeArchived=true 면 진행 중 주문 뒤에 보관된 주문(id 순, 최대 1000 건)이 이어진다.
+     */
     @GetMapping("/api/v3/orders")
-    public List<OrderDto> ordersV3() {
-        List<Order> orders = orderRepository.findAllWithItem();
-        List<OrderDto> collect = orders.stream()
-                .map(o -> new OrderDto(o))
-                .collect(toList());
-        return collect;
+    public List<OrderDto> ordersV3(
+            @ModelAttribute OrderSearch orderSearch,
+            @RequestParam(value = "offset", defaultValue = "0") int offset,
+            @RequestParam(value = "limit", defaultValue = "100") int limit,
+            @RequestParam(value = "includeArchived", defaultValue = "false") boolean includeArchived) {
+        List<OrderDto> orders = new ArrayList<>(orderQueryService.ordersV3(orderSearch, offset, limit));
+        if (includeArchived) {
+            orders.addAll(orderQueryService.archivedOrdersV3(orderSearch, offset, limit, orders.size()));
+        }
+        return orders;
     }
 
 
@@ -64,11 +77,7 @@ public class OrderApiController {
     public List<OrderDto> ordersV3_page(
             @RequestParam(value = "offset", defaultValue = "0") int offset,
             @RequestParam(value = "limit", defaultValue = "100") int limit) {
-        List<Order> orders = orderRepository.findAllWithMemberDelivery(offset, limit);
-        List<OrderDto> collect = orders.stream()
-                .map(o -> new OrderDto(o))
-                .collect(toList());
-        return collect;
+        return orderQueryService.ordersV3_page(offset, limit);
     }
 
     @GetMapping("/api/v4/orders")
@@ -77,10 +86,13 @@ public class OrderApiController {
         return orderQueryRepository.findOrderQueryDtos();
     }
 
+    /**
+     * includeArchived=true 면 최근 보관된 주문(orders_archive) 최대 1000 건도 함께 (버킷마다 쿼리 2번 추가)
+     */
     @GetMapping("/api/v5/orders")
-    public List<OrderQueryDto> orderV5() {
+    public List<OrderQueryDto> orderV5(@RequestParam(value = "includeArchived", defaultValue = "false") boolean includeArchived) {
         // 쿼리 : 1 + N(orderItem 개수)
-        return orderQueryRepository.findAllByDto_optimization();
+        return orderQueryRepository.findAllByDto_optimization(includeArchived);
     }
 
     @GetMapping("/api/v6/orders")
@@ -99,38 +111,63 @@ public class OrderApiController {
                         e.getKey().getAddress(), e.getValue())).collect(toList());
     }
 
-    @Getter
-    static class OrderDto {
-        private Long orderId;
-        private String name;
-        private LocalDateTime orderDate;
-        private OrderStatus orderStatus;
-        private Address address;
-        private List<OrderItemDto> orderItems;
-
-        public OrderDto(Order order) {
-            this.orderId = order.getId();
-            this.name = order.getMember().getName();
-            this.orderDate = order.getOrderDate();
-            this.orderStatus = order.getStatus();
-            this.address = order.getDelivery().getAddress();
-            orderItems = order.getOrderItems().stream()
-                    .map(OrderItemDto::new)
-                    .collect(toList());
+    /**
+     * fields=orderId,orderStatus,totalPrice 처럼 필요한 필드만 조회 (없으면 전체)
+     * 요청하지 않은 연관관계(member, delivery, orderItems)는 조인하지 않는다.
+     * 다음 페이지는 after=마지막 orderId (최대 1000 건)
+     * includeArchived=true 면 보관된 주문도 같은 id 순서로 섞어서
+     */
+    @GetMapping("/api/v7/orders")
+    public List<Map<String, Object>> orderV7(@RequestParam(value = "fields", required = false) String fields,
+                                             @RequestParam(value = "after", required = false) Long after,
+                                             @RequestParam(value = "limit", defaultValue = "100") int limit,
+                                             @RequestParam(value = "includeArchived", defaultValue = "false") boolean includeArchived) {
+        Set<OrderField> selected = OrderField.parse(fields);
+        return orderQueryRepository.findOrderFields(selected == null ? EnumSet.allOf(OrderField.class) : selected,
+                after, limit, includeArchived);
+    }
+
+    /**
+     * 여러 상품 주문 - 교착 상태/잠금 대기 시간 초과는 LockRetry 가 다시 실행한다.
+     * 화면 주문(OrderController)과 같이 담긴 상품들로 동시 실행을 제한하고, Idempotency-Key 가 있으면 한 번만 주문한다.
+     */
+    @PostMapping("/api/v2/orders")
+    public CreateOrderResponse createOrder(@RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+                                           @RequestBody @Valid CreateOrderRequest request) {
+        Long memberId = request.getMemberId();
+        List<OrderLine> lines = request.getLines().stream()
+                .map(line -> new OrderLine(line.getItemId(), line.getCount()))
+                .collect(toList());
+        List<Long> itemIds = lines.stream().map(OrderLine::itemId).collect(toList());
+        if (idempotencyKey == null) {
+            return new CreateOrderResponse(admissionControl.run(itemIds,
+                    () -> lockRetry.run(() -> orderService.order(memberId, lines))));
         }
+        String fingerprint = IdempotencyStore.fingerprint("orders", memberId, lines);
+        return new CreateOrderResponse(idempotencyStore.execute(idempotencyKey, fingerprint, () -> admissionControl.run(itemIds,
+                () -> lockRetry.run(() -> orderService.order(idempotencyKey, fingerprint, memberId, lines)))));
     }
 
-    @Getter
-    static class OrderItemDto {
-        private String itemName;
-        private int orderPrice;
-        private int count;
+    @Data
+    static class CreateOrderRequest {
+        @NotNull
+        private Long memberId;
+        @NotEmpty
+        @Valid
+        private List<OrderLineRequest> lines;
+    }
 
-        public OrderItemDto(OrderItem orderItem) {
-            this.itemName = orderItem.getItem().getName();
-            this.orderPrice = orderItem.getOrderPrice();
-            this.count = orderItem.getCount();
-        }
+    @Data
+    static class OrderLineRequest {
+        @NotNull
+        private Long itemId;
+        @Positive
+        private int count;
     }
 
+    @Data
+    @AllArgsConstructor
+    static class CreateOrderResponse {
+        private Long orderId;
+    }
 }
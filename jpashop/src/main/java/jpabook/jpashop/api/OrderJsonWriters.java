@@ -0,0 +1,240 @@
+package jpabook.jpashop.api;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.repository.order.query.OrderItemQueryDto;
+import jpabook.jpashop.repository.order.query.OrderQueryDto;
+import jpabook.jpashop.service.query.OrderDto;
+import jpabook.jpashop.service.query.OrderItemDto;
+import org.springframework.boot.jackson.JsonComponent;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * 주문 DTO 전용 JsonGenerator writer
+ * 리플렉션 빈 직렬화(getter 탐색, 프로퍼티별 serializer 조회) 대신 필드를 순서대로 바로 쓴다.
+ * - 필드 이름은 미리 인코딩해 둔 SerializedString, OrderStatus 도 상수별로 미리 만들어 둔다.
+ * - Address, 주문상품 목록은 serializer 를 다시 찾지 않고 안에서 바로 쓴다.
+ * - 출력은 기존 Jackson 결과와 같다. (필드 순서, null, ISO 날짜)
+ * JSON / Smile / CBOR 모두 같은 ObjectMapper 설정을 쓰므로 함께 적용된다.
+ */
+@JsonComponent
+public class OrderJsonWriters {
+
+    private static final SerializedString ORDER_ID = new SerializedString("orderId");
+    private static final SerializedString NAME = new SerializedString("name");
+    private static final SerializedString ORDER_DATE = new SerializedString("orderDate");
+    private static final SerializedString ORDER_STATUS = new SerializedString("orderStatus");
+    private static final SerializedString ADDRESS = new SerializedString("address");
+    private static final SerializedString CITY = new SerializedString("city");
+    private static final SerializedString STREET = new SerializedString("street");
+    private static final SerializedString ZIPCODE = new SerializedString("zipcode");
+    private static final SerializedString ORDER_ITEMS = new SerializedString("orderItems");
+    private static final SerializedString ITEM_NAME = new SerializedString("itemName");
+    private static final SerializedString ORDER_PRICE = new SerializedString("orderPrice");
+    private static final SerializedString COUNT = new SerializedString("count");
+
+    private static final SerializedString[] STATUS_NAMES;
+
+    static {
+        OrderStatus[] statuses = OrderStatus.values();
+        STATUS_NAMES = new SerializedString[statuses.length];
+        for (OrderStatus status : statuses) {
+            STATUS_NAMES[status.ordinal()] = new SerializedString(status.name());
+        }
+    }
+
+    // yyyy-MM-ddTHH:mm:ss.nnnnnnnnn
+    private static final ThreadLocal<char[]> DATE_BUFFER = ThreadLocal.withInitial(() -> new char[29]);
+
+    public static class OrderQueryDtoWriter extends StdSerializer<OrderQueryDto> {
+
+        public OrderQueryDtoWriter() {
+            super(OrderQueryDto.class);
+        }
+
+        @Override
+        public void serialize(OrderQueryDto order, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject(order);
+            writeOrderFields(gen, order.getOrderId(), order.getName(), order.getOrderDate(),
+                    order.getOrderStatus(), order.getAddress());
+            gen.writeFieldName(ORDER_ITEMS);
+            List<OrderItemQueryDto> items = order.getOrderItems();
+            if (items == null) {
+                gen.writeNull();
+            } else {
+                gen.writeStartArray(items, items.size());
+                for (int i = 0, n = items.size(); i < n; i++) {
+                    OrderItemQueryDto item = items.get(i);
+                    writeItem(gen, item.getItemName(), item.getOrderPrice(), item.getCount());
+                }
+                gen.writeEndArray();
+            }
+            gen.writeEndObject();
+        }
+    }
+
+    public static class OrderItemQueryDtoWriter extends StdSerializer<OrderItemQueryDto> {
+
+        public OrderItemQueryDtoWriter() {
+            super(OrderItemQueryDto.class);
+        }
+
+        @Override
+        public void serialize(OrderItemQueryDto item, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            writeItem(gen, item.getItemName(), item.getOrderPrice(), item.getCount());
+        }
+    }
+
+    public static class OrderDtoWriter extends StdSerializer<OrderDto> {
+
+        public OrderDtoWriter() {
+            super(OrderDto.class);
+        }
+
+        @Override
+        public void serialize(OrderDto order, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject(order);
+            writeOrderFields(gen, order.getOrderId(), order.getName(), order.getOrderDate(),
+                    order.getOrderStatus(), order.getAddress());
+            gen.writeFieldName(ORDER_ITEMS);
+            List<OrderItemDto> items = order.getOrderItems();
+            if (items == null) {
+                gen.writeNull();
+            } else {
+                gen.writeStartArray(items, items.size());
+                for (int i = 0, n = items.size(); i < n; i++) {
+                    OrderItemDto item = items.get(i);
+                    writeItem(gen, item.getItemName(), item.getOrderPrice(), item.getCount());
+                }
+                gen.writeEndArray();
+            }
+            gen.writeEndObject();
+        }
+    }
+
+    public static class OrderItemDtoWriter extends StdSerializer<OrderItemDto> {
+
+        public OrderItemDtoWriter() {
+            super(OrderItemDto.class);
+        }
+
+        @Override
+        public void serialize(OrderItemDto item, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            writeItem(gen, item.getItemName(), item.getOrderPrice(), item.getCount());
+        }
+    }
+
+    // OrderSimpleApiController.SimpleOrderDto (v2, v3)
+    public static class SimpleOrderDtoWriter extends StdSerializer<OrderSimpleApiController.SimpleOrderDto> {
+
+        public SimpleOrderDtoWriter() {
+            super(OrderSimpleApiController.SimpleOrderDto.class);
+        }
+
+        @Override
+        public void serialize(OrderSimpleApiController.SimpleOrderDto order, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject(order);
+            writeOrderFields(gen, order.getOrderId(), order.getName(), order.getOrderDate(),
+                    order.getOrderStatus(), order.getAddress());
+            gen.writeEndObject();
+        }
+    }
+
+    private static void writeOrderFields(JsonGenerator gen, Long orderId, String name, LocalDateTime orderDate,
+                                         OrderStatus orderStatus, Address address) throws IOException {
+        gen.writeFieldName(ORDER_ID);
+        if (orderId == null) {
+            gen.writeNull();
+        } else {
+            gen.writeNumber(orderId.longValue());
+        }
+        gen.writeFieldName(NAME);
+        gen.writeString(name);
+        gen.writeFieldName(ORDER_DATE);
+        writeDate(gen, orderDate);
+        gen.writeFieldName(ORDER_STATUS);
+        if (orderStatus == null) {
+            gen.writeNull();
+        } else {
+            gen.writeString(STATUS_NAMES[orderStatus.ordinal()]);
+        }
+        gen.writeFieldName(ADDRESS);
+        if (address == null) {
+            gen.writeNull();
+        } else {
+            gen.writeStartObject(address);
+            gen.writeFieldName(CITY);
+            gen.writeString(address.getCity());
+            gen.writeFieldName(STREET);
+            gen.writeString(address.getStreet());
+            gen.writeFieldName(ZIPCODE);
+            gen.writeString(address.getZipcode());
+            gen.writeEndObject();
+        }
+    }
+
+    private static void writeItem(JsonGenerator gen, String itemName, int orderPrice, int count) throws IOException {
+        gen.writeStartObject();
+        gen.writeFieldName(ITEM_NAME);
+        gen.writeString(itemName);
+        gen.writeFieldName(ORDER_PRICE);
+        gen.writeNumber(orderPrice);
+        gen.writeFieldName(COUNT);
+        gen.writeNumber(count);
+        gen.writeEndObject();
+    }
+
+    /**
+     * DateTimeFormatter.ISO_LOCAL_DATE_TIME 과 같은 문자열을 스레드별 버퍼에 써서 넘긴다. (String 을 만들지 않음)
+     * 초는 항상, 나노초는 있으면 뒤쪽 0 을 뺀 자릿수만 쓴다.
+     */
+    private static void writeDate(JsonGenerator gen, LocalDateTime date) throws IOException {
+        if (date == null) {
+            gen.writeNull();
+            return;
+        }
+        int year = date.getYear();
+        if (year < 0 || year > 9999) {
+            gen.writeString(DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(date));
+            return;
+        }
+        char[] buf = DATE_BUFFER.get();
+        digits(buf, 0, year, 4);
+        buf[4] = '-';
+        digits(buf, 5, date.getMonthValue(), 2);
+        buf[7] = '-';
+        digits(buf, 8, date.getDayOfMonth(), 2);
+        buf[10] = 'T';
+        digits(buf, 11, date.getHour(), 2);
+        buf[13] = ':';
+        digits(buf, 14, date.getMinute(), 2);
+        buf[16] = ':';
+        digits(buf, 17, date.getSecond(), 2);
+        int len = 19;
+        int nano = date.getNano();
+        if (nano != 0) {
+            buf[19] = '.';
+            digits(buf, 20, nano, 9);
+            len = 29;
+            while (buf[len - 1] == '0') {
+                len--;
+            }
+        }
+        gen.writeString(buf, 0, len);
+    }
+
+    private static void digits(char[] buf, int offset, int value, int width) {
+        for (int i = offset + width - 1; i >= offset; i--) {
+            buf[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package jpabook.jpashop.api;
+
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.WireFormat;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.repository.order.query.OrderItemQueryDto;
+import jpabook.jpashop.repository.order.query.OrderQueryDto;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+import java.util.List;
+
+/**
+ * List&lt;OrderQueryDto&gt; -> application/x-protobuf (src/main/proto/order_query.proto 의 OrderList)
+ * 생성된 메시지 클래스로 한 번 더 옮겨 담지 않고 CodedOutputStream 으로 바로 쓴다.
+ * 하위 메시지는 길이를 먼저 써야 하므로 size 를 계산한 뒤 쓴다.
+ */
+public class OrderQueryProtobufConverter extends AbstractGenericHttpMessageConverter<List<OrderQueryDto>> {
+
+    public static final MediaType PROTOBUF = new MediaType("application", "x-protobuf");
+
+    private static final ResolvableType TARGET = ResolvableType.forClassWithGenerics(List.class, OrderQueryDto.class);
+
+    // OrderList
+    private static final int ORDERS = 1;
+    // Order
+    private static final int ORDER_ID = 1;
+    private static final int NAME = 2;
+    private static final int ORDER_DATE = 3;
+    private static final int ORDER_STATUS = 4;
+    private static final int ADDRESS = 5;
+    private static final int ORDER_ITEMS = 6;
+    // Address
+    private static final int CITY = 1;
+    private static final int STREET = 2;
+    private static final int ZIPCODE = 3;
+    // OrderItem
+    private static final int ITEM_NAME = 1;
+    private static final int ORDER_PRICE = 2;
+    private static final int COUNT = 3;
+
+    public OrderQueryProtobufConverter() {
+        super(PROTOBUF);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return List.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected boolean canRead(MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+        if (type == null || !TARGET.isAssignableFrom(ResolvableType.forType(type))) {
+            return false;
+        }
+        return canWrite(mediaType);
+    }
+
+    @Override
+    public List<OrderQueryDto> read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("protobuf 요청 본문은 지원하지 않습니다.", inputMessage);
+    }
+
+    @Override
+    protected List<OrderQueryDto> readInternal(Class<? extends List<OrderQueryDto>> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("protobuf 요청 본문은 지원하지 않습니다.", inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(List<OrderQueryDto> orders, Type type, HttpOutputMessage outputMessage) throws IOException {
+        write(orders, outputMessage.getBody());
+    }
+
+    public static void write(List<OrderQueryDto> orders, OutputStream out) throws IOException {
+        CodedOutputStream output = CodedOutputStream.newInstance(out);
+        for (OrderQueryDto order : orders) {
+            output.writeTag(ORDERS, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+            output.writeUInt32NoTag(orderSize(order));
+            writeOrder(output, order);
+        }
+        output.flush();
+    }
+
+    private static void writeOrder(CodedOutputStream output, OrderQueryDto order) throws IOException {
+        if (order.getOrderId() != null) {
+            output.writeInt64(ORDER_ID, order.getOrderId());
+        }
+        writeString(output, NAME, order.getName());
+        if (order.getOrderDate() != null) {
+            output.writeString(ORDER_DATE, order.getOrderDate().toString());
+        }
+        if (order.getOrderStatus() != null) {
+            output.writeEnum(ORDER_STATUS, order.getOrderStatus().ordinal());
+        }
+        Address address = order.getAddress();
+        if (address != null) {
+            output.writeTag(ADDRESS, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+            output.writeUInt32NoTag(addressSize(address));
+            writeString(output, CITY, address.getCity());
+            writeString(output, STREET, address.getStreet());
+            writeString(output, ZIPCODE, address.getZipcode());
+        }
+        if (order.getOrderItems() != null) {
+            for (OrderItemQueryDto item : order.getOrderItems()) {
+                output.writeTag(ORDER_ITEMS, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+                output.writeUInt32NoTag(itemSize(item));
+                writeString(output, ITEM_NAME, item.getItemName());
+                output.writeInt32(ORDER_PRICE, item.getOrderPrice());
+                output.writeInt32(COUNT, item.getCount());
+            }
+        }
+    }
+
+    private static int orderSize(OrderQueryDto order) {
+        int size = 0;
+        if (order.getOrderId() != null) {
+            size += CodedOutputStream.computeInt64Size(ORDER_ID, order.getOrderId());
+        }
+        size += stringSize(NAME, order.getName());
+        if (order.getOrderDate() != null) {
+            size += CodedOutputStream.computeStringSize(ORDER_DATE, order.getOrderDate().toString());
+        }
+        if (order.getOrderStatus() != null) {
+            size += CodedOutputStream.computeEnumSize(ORDER_STATUS, order.getOrderStatus().ordinal());
+        }
+        if (order.getAddress() != null) {
+            int addressSize = addressSize(order.getAddress());
+            size += CodedOutputStream.computeTagSize(ADDRESS) + CodedOutputStream.computeUInt32SizeNoTag(addressSize) + addressSize;
+        }
+        if (order.getOrderItems() != null) {
+            for (OrderItemQueryDto item : order.getOrderItems()) {
+                int itemSize = itemSize(item);
+                size += CodedOutputStream.computeTagSize(ORDER_ITEMS) + CodedOutputStream.computeUInt32SizeNoTag(itemSize) + itemSize;
+            }
+        }
+        return size;
+    }
+
+    private static int addressSize(Address address) {
+        return stringSize(CITY, address.getCity())
+                + stringSize(STREET, address.getStreet())
+                + stringSize(ZIPCODE, address.getZipcode());
+    }
+
+    private static int itemSize(OrderItemQueryDto item) {
+        return stringSize(ITEM_NAME, item.getItemName())
+                + CodedOutputStream.computeInt32Size(ORDER_PRICE, item.getOrderPrice())
+                + CodedOutputStream.computeInt32Size(COUNT, item.getCount());
+    }
+
+    // proto3 는 기본값("")을 쓰지 않는다.
+    private static void writeString(CodedOutputStream output, int field, String value) throws IOException {
+        if (value != null && !value.isEmpty()) {
+            output.writeString(field, value);
+        }
+    }
+
+    private static int stringSize(int field, String value) {
+        return value != null && !value.isEmpty() ? CodedOutputStream.computeStringSize(field, value) : 0;
+    }
+}
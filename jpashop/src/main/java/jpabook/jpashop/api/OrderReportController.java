@@ -0,0 +1,62 @@
+package jpabook.jpashop.api;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.repository.order.query.OrderReportRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 주문 리포트 CSV - 조회하면서 바로 응답에 쓴다 (전체 목록을 메모리에 만들지 않음)
+ */
+@RestController
+@RequiredArgsConstructor
+public class OrderReportController {
+
+    private static final MediaType TEXT_CSV = new MediaType("text", "csv", StandardCharsets.UTF_8);
+
+    private final OrderReportRepository orderReportRepository;
+
+    @GetMapping("/api/reports/orders.csv")
+    public ResponseEntity<StreamingResponseBody> orders() {
+        StreamingResponseBody body = out -> {
+            BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            writer.write("orderId,name,orderDate,orderStatus,city,street,zipcode,itemName,orderPrice,count\n");
+            orderReportRepository.forEachFlat(row -> {
+                Address address = row.getAddress();
+                try {
+                    writer.write(row.getOrderId() + "," + csv(row.getName()) + "," + row.getOrderDate() + ","
+                            + row.getOrderStatus() + "," + csv(address.getCity()) + "," + csv(address.getStreet()) + ","
+                            + csv(address.getZipcode()) + "," + csv(row.getItemName()) + ","
+                            + row.getOrderPrice() + "," + row.getCount() + "\n");
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            writer.flush();
+        };
+        return ResponseEntity.ok()
+                .contentType(TEXT_CSV)
+                .header("Content-Disposition", "attachment; filename=\"orders.csv\"")
+                .body(body);
+    }
+
+    private static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
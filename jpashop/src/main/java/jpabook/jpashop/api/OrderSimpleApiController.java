@@ -3,17 +3,25 @@ package jpabook.jpashop.api;
 import jpabook.jpashop.domain.Address;
 import jpabook.jpashop.domain.Order;
 import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.fetchplan.FetchPlan;
+import jpabook.jpashop.intern.Canonical;
 import jpabook.jpashop.repository.OrderRepository;
 import jpabook.jpashop.repository.OrderSearch;
 import jpabook.jpashop.repository.OrderSimpleQueryDto;
+import jpabook.jpashop.repository.order.query.OrderField;
+import jpabook.jpashop.repository.order.query.OrderQueryRepository;
 import jpabook.jpashop.repository.order.simplequery.OrderSimpleQueryRepository;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.time.LocalDateTime;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
@@ -28,26 +36,31 @@ public class OrderSimpleApiController {
 
     private final OrderRepository orderRepository;
     private final OrderSimpleQueryRepository orderSimpleQueryRepository;
+    private final OrderQueryRepository orderQueryRepository;
 
+    /**
+     * xToOne(회원, 배송)만 fetch plan 의 entity graph 로 같이 조회한다. 주문상품은 초기화하지 않는다.
+     * (주문상품까지 필요하면 /api/v1/orders)
+     */
+    @FetchPlan(root = Order.class, graph = {"member", "delivery"}, maxQueries = 1)
     @GetMapping("/api/v1/simple-orders")
     public List<Order> orderV1() {
-        List<Order> all = orderRepository.findAllByCriteria(new OrderSearch());
-        for (Order order : all) {
-            order.getMember().getName(); // Lazy 강제 초기화
-            order.getDelivery().getAddress(); //Lazy 강제 초기화
-        }
-        return all;
+        return orderRepository.findAllByCriteria(new OrderSearch());
     }
 
+    /**
+     * fetch plan 의 entity graph 로 회원, 배송을 같이 조회하므로 OSIV 없이도 변환할 수 있다.
+     * (plan 이 없으면 1 + 회원 N + 배송 N)
+     */
+    @FetchPlan(root = Order.class, graph = {"member", "delivery"}, maxQueries = 1)
     @GetMapping("/api/v2/simple-orders")
     public List<SimpleOrderDto> orderV2() {
-        // ORDER 2개, N = 2
-        // N + 1 -> 1 + 회원 N + 배송 N, 여기서는 N = 2이므로 5번 SQL
         return orderRepository.findAllByCriteria(new OrderSearch()).stream()
                 .map(SimpleOrderDto::new)
                 .collect(Collectors.toList());
     }
 
+    @FetchPlan(root = Order.class, graph = {"member", "delivery"}, maxQueries = 1)
     @GetMapping("/api/v3/simple-orders")
     public List<SimpleOrderDto> orderV3() {
         return orderRepository.findAllWithMemberDelivery().stream()
@@ -60,6 +73,20 @@ public class OrderSimpleApiController {
         return orderSimpleQueryRepository.findOrderDtos();
     }
 
+    /**
+     * v4 와 같은 필드가 기본, fields= 로 필요한 필드만 조회
+     * 다음 페이지는 after=마지막 orderId (최대 1000 건)
+     */
+    @GetMapping("/api/v5/simple-orders")
+    public List<Map<String, Object>> orderV5(@RequestParam(value = "fields", required = false) String fields,
+                                             @RequestParam(value = "after", required = false) Long after,
+                                             @RequestParam(value = "limit", defaultValue = "100") int limit) {
+        Set<OrderField> selected = OrderField.parse(fields);
+        return orderQueryRepository.findOrderFields(selected == null ? EnumSet.of(OrderField.orderId,
+                OrderField.name, OrderField.orderDate, OrderField.orderStatus, OrderField.address) : selected,
+                after, limit);
+    }
+
 
     @Data
     static class SimpleOrderDto {
@@ -74,7 +101,7 @@ public class OrderSimpleApiController {
             name = order.getMember().getName(); // LAZY 초기화
             orderDate = order.getOrderDate();
             orderStatus = order.getStatus();
-            address = order.getDelivery().getAddress(); // LAZY 초기화
+            address = Canonical.address(order.getDelivery().getAddress()); // LAZY 초기화
         }
     }
 }
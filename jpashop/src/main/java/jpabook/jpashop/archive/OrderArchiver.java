@@ -0,0 +1,202 @@
+package jpabook.jpashop.archive;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import jpabook.jpashop.domain.ArchivedDelivery;
+import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.snapshot.ResponseSnapshots;
+import jpabook.jpashop.snapshot.SnapshotGroup;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.LockMode;
+import org.hibernate.query.NativeQuery;
+import org.hibernate.query.Query;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 오래된 주문(order-age), 취소된 주문(cancelled-age) 을 주문상품, 배송과 함께 보관 테이블로 옮긴다. (jpashop.archive.enabled=true)
+ * 주문과 주문상품은 주문 월의 버킷 테이블로 (OrderBuckets), retain-months 보다 오래된 버킷은 drop 한다.
+ * 배치마다 한 트랜잭션 - insert ... select 로 복사하고 원본을 지운다.
+ * 대상 주문 row 를 잠그므로 옮기는 동안 같은 주문의 취소는 기다린다. (지원하는 DB 는 다른 archiver 가 잠근 row 를 건너뛴다)
+ * 배치 사이에는 pause 와 직전 배치 시간 중 긴 만큼 쉰다 - DB 를 절반 이상 쓰지 않는다.
+ */
+@Slf4j
+@Component
+public class OrderArchiver {
+
+    private static final String CANDIDATES = " where o.orderDate < :orderCutoff" +
+            " or (o.status = :cancel and o.orderDate < :cancelledCutoff)";
+
+    private final EntityManager em;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final Duration orderAge;
+    private final Duration cancelledAge;
+    private final int batchSize;
+    private final Duration pause;
+    private final int retainMonths;
+    private final OrderBuckets orderBuckets;
+    private final ResponseSnapshots responseSnapshots;
+    private final Counter archived;
+
+    public OrderArchiver(EntityManager em, TransactionTemplate transactionTemplate, MeterRegistry meterRegistry,
+                         OrderBuckets orderBuckets, ResponseSnapshots responseSnapshots,
+                         @Value("${jpashop.archive.enabled:false}") boolean enabled,
+                         @Value("${jpashop.archive.order-age:P365D}") Duration orderAge,
+                         @Value("${jpashop.archive.cancelled-age:P1D}") Duration cancelledAge,
+                         @Value("${jpashop.archive.batch-size:200}") int batchSize,
+                         @Value("${jpashop.archive.pause:200ms}") Duration pause,
+                         @Value("${jpashop.archive.retain-months:0}") int retainMonths) {
+        this.em = em;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled;
+        this.orderAge = orderAge;
+        this.cancelledAge = cancelledAge;
+        this.batchSize = batchSize;
+        this.pause = pause;
+        this.retainMonths = retainMonths;
+        this.orderBuckets = orderBuckets;
+        this.responseSnapshots = responseSnapshots;
+        this.archived = Counter.builder("orders.archived").register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${jpashop.archive.interval:PT1H}")
+    public void scheduled() {
+        if (enabled) {
+            archive();
+            if (retainMonths > 0) {
+                orderBuckets.dropBefore(YearMonth.now().minusMonths(retainMonths));
+            }
+        }
+    }
+
+    /**
+     * @return 옮긴 주문 수
+     */
+    public int archive() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime orderCutoff = now.minus(orderAge);
+        LocalDateTime cancelledCutoff = now.minus(cancelledAge);
+        // 버킷 DDL 은 트랜잭션을 커밋시키므로 배치 전에 만든다.
+        candidateMonths(orderCutoff, cancelledCutoff).forEach(orderBuckets::ensure);
+        int total = 0;
+        int moved;
+        do {
+            long started = System.nanoTime();
+            moved = transactionTemplate.execute(status -> archiveBatch(orderCutoff, cancelledCutoff, now));
+            total += moved;
+            if (moved == batchSize && !throttle(Duration.ofNanos(System.nanoTime() - started))) {
+                break;
+            }
+        } while (moved == batchSize);
+        if (total > 0) {
+            archived.increment(total);
+            log.info("orders archived: {}", total);
+        }
+        return total;
+    }
+
+    private List<YearMonth> candidateMonths(LocalDateTime orderCutoff, LocalDateTime cancelledCutoff) {
+        return em.createQuery(
+                        "select distinct year(o.orderDate), month(o.orderDate) from Order o" + CANDIDATES, Object[].class)
+                .setParameter("orderCutoff", orderCutoff)
+                .setParameter("cancel", OrderStatus.CANCEL)
+                .setParameter("cancelledCutoff", cancelledCutoff)
+                .getResultList().stream()
+                .map(row -> YearMonth.of(((Number) row[0]).intValue(), ((Number) row[1]).intValue()))
+                .toList();
+    }
+
+    private int archiveBatch(LocalDateTime orderCutoff, LocalDateTime cancelledCutoff, LocalDateTime now) {
+        TypedQuery<Object[]> query = em.createQuery("select o.id, o.orderDate from Order o" + CANDIDATES + " order by o.id", Object[].class)
+                .setParameter("orderCutoff", orderCutoff)
+                .setParameter("cancel", OrderStatus.CANCEL)
+                .setParameter("cancelledCutoff", cancelledCutoff)
+                .setMaxResults(batchSize);
+        // OutboxDispatcher 와 같이 SKIP LOCKED 는 Hibernate 락 모드로 건다.
+        query.unwrap(Query.class).setHibernateLockMode(LockMode.UPGRADE_SKIPLOCKED);
+        List<Object[]> rows = query.getResultList();
+        if (rows.isEmpty()) {
+            return 0;
+        }
+        List<Long> orderIds = new ArrayList<>(rows.size());
+        Map<YearMonth, List<Long>> byMonth = new TreeMap<>();
+        for (Object[] row : rows) {
+            orderIds.add((Long) row[0]);
+            byMonth.computeIfAbsent(YearMonth.from((LocalDateTime) row[1]), m -> new ArrayList<>()).add((Long) row[0]);
+        }
+        List<Long> deliveryIds = em.createQuery("select o.delivery.id from Order o where o.id in :orderIds", Long.class)
+                .setParameter("orderIds", orderIds)
+                .getResultList();
+
+        // 복사 - 배송, 주문, 주문상품
+        // Hibernate 6.2 HQL insert 는 임베디드(address) 컬럼을 대상으로 못 쓴다 - 배송만 native SQL
+        em.createNativeQuery("insert into delivery_archive (delivery_id, city, street, zipcode, status)" +
+                        " select delivery_id, city, street, zipcode, status from delivery where delivery_id in (:deliveryIds)")
+                .unwrap(NativeQuery.class)
+                .addSynchronizedEntityClass(ArchivedDelivery.class)
+                .setParameter("deliveryIds", deliveryIds)
+                .executeUpdate();
+        byMonth.forEach((month, ids) -> {
+            if (!orderBuckets.exists(month)) {
+                // 실행 중에 새로 대상이 된 주문 - 다음 실행에서 버킷을 만들고 옮긴다.
+                throw new IllegalStateException("보관 버킷이 없습니다: " + month);
+            }
+            OrderBucketContext.call(month, () -> {
+                em.createQuery("insert into ArchivedOrder (id, memberId, deliveryId, orderDate, status, version, archivedAt)" +
+                                " select o.id, o.member.id, o.delivery.id, o.orderDate, o.status, o.version, :now" +
+                                " from Order o where o.id in :orderIds")
+                        .setParameter("now", now)
+                        .setParameter("orderIds", ids)
+                        .executeUpdate();
+                return em.createQuery("insert into ArchivedOrderItem (id, orderId, itemId, orderPrice, count)" +
+                                " select oi.id, oi.order.id, oi.item.id, oi.orderPrice, oi.count" +
+                                " from OrderItem oi where oi.order.id in :orderIds")
+                        .setParameter("orderIds", ids)
+                        .executeUpdate();
+            });
+        });
+
+        // 원본 삭제 - FK 순서대로
+        em.createQuery("delete from OrderItem oi where oi.order.id in :orderIds")
+                .setParameter("orderIds", orderIds)
+                .executeUpdate();
+        int deleted = em.createQuery("delete from Order o where o.id in :orderIds")
+                .setParameter("orderIds", orderIds)
+                .executeUpdate();
+        if (deleted != orderIds.size()) {
+            throw new IllegalStateException("이미 보관된 주문이 있습니다.");
+        }
+        em.createQuery("delete from Delivery d where d.id in :deliveryIds")
+                .setParameter("deliveryIds", deliveryIds)
+                .executeUpdate();
+        // 주문 목록 스냅샷에서 빠진다 (배치가 커밋된 뒤)
+        responseSnapshots.invalidate(SnapshotGroup.ORDER);
+        return orderIds.size();
+    }
+
+    /**
+     * @return 인터럽트되면 false
+     */
+    private boolean throttle(Duration lastBatch) {
+        try {
+            Thread.sleep(Math.max(pause.toMillis(), lastBatch.toMillis()));
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
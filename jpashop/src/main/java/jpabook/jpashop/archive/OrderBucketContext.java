@@ -0,0 +1,34 @@
+package jpabook.jpashop.archive;
+
+import java.time.YearMonth;
+import java.util.function.Supplier;
+
+/**
+ * 현재 스레드가 읽고 쓰는 월 버킷
+ * 버킷이 정해진 동안 OrderBucketStatementInspector 가 orders_archive, order_item_archive 를 그 달의 테이블로 바꾼다.
+ */
+public final class OrderBucketContext {
+
+    private static final ThreadLocal<YearMonth> CURRENT = new ThreadLocal<>();
+
+    private OrderBucketContext() {
+    }
+
+    public static YearMonth current() {
+        return CURRENT.get();
+    }
+
+    public static <T> T call(YearMonth bucket, Supplier<T> work) {
+        YearMonth previous = CURRENT.get();
+        CURRENT.set(bucket);
+        try {
+            return work.get();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package jpabook.jpashop.archive;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.stereotype.Component;
+
+import java.time.YearMonth;
+import java.util.regex.Pattern;
+
+/**
+ * 버킷이 정해져 있으면 보관 테이블 이름을 월 테이블 이름으로 바꾼다. (orders_archive -> orders_archive_202401)
+ * 엔티티 매핑과 JPQL/Querydsl 은 그대로 두고 실행되는 SQL 만 바꾼다.
+ */
+@Component
+public class OrderBucketStatementInspector implements StatementInspector {
+
+    private static final Pattern TABLES = Pattern.compile("\\b(" + OrderBuckets.ORDERS + "|" + OrderBuckets.ORDER_ITEMS + ")\\b");
+
+    @Override
+    public String inspect(String sql) {
+        YearMonth bucket = OrderBucketContext.current();
+        if (bucket == null) {
+            return sql;
+        }
+        return TABLES.matcher(sql).replaceAll("$1_" + OrderBuckets.suffix(bucket));
+    }
+}
@@ -0,0 +1,172 @@
+package jpabook.jpashop.archive;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 보관 주문의 월 버킷 - 주문 월마다 orders_archive_yyyymm, order_item_archive_yyyymm 테이블을 따로 둔다.
+ * H2 에는 파티션이 없으므로 애플리케이션이 테이블을 만들고, 지우고, 조회를 나눠 보낸다.
+ * 매핑된 orders_archive, order_item_archive 는 빈 틀(컬럼 정의)로만 쓴다.
+ * 오래된 달은 delete 대신 drop table 로 지운다.
+ */
+@Slf4j
+@Component
+public class OrderBuckets {
+
+    static final String ORDERS = "orders_archive";
+    static final String ORDER_ITEMS = "order_item_archive";
+    private static final Pattern BUCKET_TABLE = Pattern.compile(ORDERS + "_(\\d{4})(\\d{2})", Pattern.CASE_INSENSITIVE);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ExecutorService fanOut;
+    private final NavigableSet<YearMonth> buckets = new ConcurrentSkipListSet<>();
+
+    public OrderBuckets(JdbcTemplate jdbcTemplate, @Value("${jpashop.archive.fan-out-threads:4}") int fanOutThreads) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.fanOut = Executors.newFixedThreadPool(fanOutThreads, new CustomizableThreadFactory("order-bucket-"));
+    }
+
+    public static String suffix(YearMonth month) {
+        return String.format("%04d%02d", month.getYear(), month.getMonthValue());
+    }
+
+    @PostConstruct
+    void load() {
+        jdbcTemplate.execute((ConnectionCallback<Void>) con -> {
+            try (ResultSet tables = con.getMetaData().getTables(con.getCatalog(), con.getSchema(), "%", null)) {
+                while (tables.next()) {
+                    Matcher m = BUCKET_TABLE.matcher(tables.getString("TABLE_NAME"));
+                    if (m.matches()) {
+                        buckets.add(YearMonth.of(Integer.parseInt(m.group(1)), Integer.parseInt(m.group(2))));
+                    }
+                }
+            }
+            return null;
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        fanOut.shutdown();
+    }
+
+    public List<YearMonth> all() {
+        return new ArrayList<>(buckets);
+    }
+
+    /**
+     * from ~ to (날짜 포함) 와 겹치는 버킷, null 이면 그쪽은 열린 범위
+     */
+    public List<YearMonth> between(LocalDate from, LocalDate to) {
+        YearMonth first = from == null ? null : YearMonth.from(from);
+        YearMonth last = to == null ? null : YearMonth.from(to);
+        List<YearMonth> result = new ArrayList<>();
+        for (YearMonth bucket : buckets) {
+            if ((first == null || !bucket.isBefore(first)) && (last == null || !bucket.isAfter(last))) {
+                result.add(bucket);
+            }
+        }
+        return result;
+    }
+
+    public boolean exists(YearMonth month) {
+        return buckets.contains(month);
+    }
+
+    /**
+     * 버킷 테이블이 없으면 만든다. DDL 은 진행 중인 트랜잭션을 커밋시키므로 트랜잭션 밖에서 호출한다.
+     */
+    public synchronized void ensure(YearMonth month) {
+        if (buckets.contains(month)) {
+            return;
+        }
+        String orders = ORDERS + "_" + suffix(month);
+        String orderItems = ORDER_ITEMS + "_" + suffix(month);
+        jdbcTemplate.execute("create table " + orders + " as select * from " + ORDERS + " with no data");
+        // create table ... as 는 not null, 키, 인덱스를 복사하지 않는다.
+        jdbcTemplate.execute("alter table " + orders + " alter column order_id set not null");
+        jdbcTemplate.execute("alter table " + orders + " add primary key (order_id)");
+        jdbcTemplate.execute("create index idx_" + orders + "_member_date on " + orders + " (member_id, order_date desc, order_id desc)");
+        jdbcTemplate.execute("create table " + orderItems + " as select * from " + ORDER_ITEMS + " with no data");
+        jdbcTemplate.execute("alter table " + orderItems + " alter column order_item_id set not null");
+        jdbcTemplate.execute("alter table " + orderItems + " add primary key (order_item_id)");
+        jdbcTemplate.execute("create index idx_" + orderItems + "_order on " + orderItems + " (order_id)");
+        buckets.add(month);
+        log.info("order bucket created: {}", suffix(month));
+    }
+
+    /**
+     * 한 달치 보관 주문을 통째로 지운다. (그 달 주문의 delivery_archive row 도 함께)
+     */
+    public synchronized void drop(YearMonth month) {
+        if (!buckets.contains(month)) {
+            return;
+        }
+        String orders = ORDERS + "_" + suffix(month);
+        jdbcTemplate.update("delete from delivery_archive where delivery_id in (select delivery_id from " + orders + ")");
+        jdbcTemplate.execute("drop table " + ORDER_ITEMS + "_" + suffix(month));
+        jdbcTemplate.execute("drop table " + orders);
+        buckets.remove(month);
+        log.info("order bucket dropped: {}", suffix(month));
+    }
+
+    /**
+     * @return 지운 버킷 수
+     */
+    public int dropBefore(YearMonth keepFrom) {
+        List<YearMonth> old = new ArrayList<>(buckets.headSet(keepFrom, false));
+        old.forEach(this::drop);
+        return old.size();
+    }
+
+    /**
+     * 버킷마다 query 를 실행해 버킷 순서대로 합친다. 버킷이 여러 개면 fan-out 스레드에서 동시에 실행한다.
+     * 각 스레드는 트랜잭션 없이 자기 EntityManager 로 읽는다.
+     */
+    public <T> List<T> fanOut(Collection<YearMonth> targets, Supplier<List<T>> query) {
+        if (targets.isEmpty()) {
+            return new ArrayList<>();
+        }
+        if (targets.size() == 1) {
+            return new ArrayList<>(OrderBucketContext.call(targets.iterator().next(), query));
+        }
+        List<CompletableFuture<List<T>>> futures = new ArrayList<>(targets.size());
+        for (YearMonth bucket : targets) {
+            futures.add(CompletableFuture.supplyAsync(() -> OrderBucketContext.call(bucket, query), fanOut));
+        }
+        List<T> result = new ArrayList<>();
+        try {
+            for (CompletableFuture<List<T>> future : futures) {
+                result.addAll(future.join());
+            }
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,128 @@
+package jpabook.jpashop.batchfetch;
+
+import org.hibernate.LockOptions;
+import org.hibernate.boot.registry.StandardServiceInitiator;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.engine.spi.LoadQueryInfluencers;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.loader.ast.internal.Preparable;
+import org.hibernate.loader.ast.internal.StandardBatchLoaderFactory;
+import org.hibernate.loader.ast.spi.BatchLoaderFactory;
+import org.hibernate.loader.ast.spi.CollectionBatchLoader;
+import org.hibernate.loader.ast.spi.EntityBatchLoader;
+import org.hibernate.metamodel.mapping.EntityMappingType;
+import org.hibernate.metamodel.mapping.PluralAttributeMapping;
+import org.hibernate.service.spi.ServiceContributor;
+import org.hibernate.service.spi.ServiceRegistryImplementor;
+
+import java.util.Map;
+
+/**
+ * 엔티티 배치 로더를 감싸, 한 번 로딩할 때마다 쿼리 전에 listener 에 알린다.
+ * 바이트코드 향상된 엔티티의 지연 로딩(enhancement-as-proxy)은 LOAD 이벤트 없이 persister 의 로더를 바로 부르므로
+ * 엔티티 배치 로딩은 이벤트 리스너로 볼 수 없다. 컬렉션은 INIT_COLLECTION 이벤트로 본다. (BatchFetchMetrics)
+ * Contributor 가 META-INF/services 로 기본 BatchLoaderFactory 를 이것으로 바꾼다.
+ */
+public class BatchFetchLoaderFactory implements BatchLoaderFactory {
+
+    @FunctionalInterface
+    public interface EntityBatchListener {
+        void onEntityBatch(EntityMappingType entity, Object id, int batchSize, SharedSessionContractImplementor session);
+    }
+
+    private final BatchLoaderFactory delegate;
+    private volatile EntityBatchListener listener;
+
+    public BatchFetchLoaderFactory(BatchLoaderFactory delegate) {
+        this.delegate = delegate;
+    }
+
+    public void listen(EntityBatchListener listener) {
+        this.listener = listener;
+    }
+
+    @Override
+    public <T> EntityBatchLoader<T> createEntityBatchLoader(int domainBatchSize, EntityMappingType entityDescriptor,
+                                                           SessionFactoryImplementor factory) {
+        return new RecordingEntityBatchLoader<>(delegate.createEntityBatchLoader(domainBatchSize, entityDescriptor, factory));
+    }
+
+    @Override
+    public CollectionBatchLoader createCollectionBatchLoader(int domainBatchSize, LoadQueryInfluencers influencers,
+                                                             PluralAttributeMapping attributeMapping,
+                                                             SessionFactoryImplementor factory) {
+        return delegate.createCollectionBatchLoader(domainBatchSize, influencers, attributeMapping, factory);
+    }
+
+    // persister 가 Preparable 이면 prepare() 를 부르므로 그대로 넘긴다.
+    private class RecordingEntityBatchLoader<T> implements EntityBatchLoader<T>, Preparable {
+
+        private final EntityBatchLoader<T> loader;
+
+        RecordingEntityBatchLoader(EntityBatchLoader<T> loader) {
+            this.loader = loader;
+        }
+
+        @Override
+        public T load(Object id, LockOptions lockOptions, Boolean readOnly, SharedSessionContractImplementor session) {
+            notify(id, session);
+            return loader.load(id, lockOptions, readOnly, session);
+        }
+
+        @Override
+        public T load(Object id, Object entityInstance, LockOptions lockOptions, Boolean readOnly,
+                      SharedSessionContractImplementor session) {
+            notify(id, session);
+            return loader.load(id, entityInstance, lockOptions, readOnly, session);
+        }
+
+        @Override
+        public Object[] loadDatabaseSnapshot(Object id, SharedSessionContractImplementor session) {
+            return loader.loadDatabaseSnapshot(id, session);
+        }
+
+        @Override
+        public EntityMappingType getLoadable() {
+            return loader.getLoadable();
+        }
+
+        @Override
+        public int getDomainBatchSize() {
+            return loader.getDomainBatchSize();
+        }
+
+        @Override
+        public void prepare() {
+            if (loader instanceof Preparable preparable) {
+                preparable.prepare();
+            }
+        }
+
+        private void notify(Object id, SharedSessionContractImplementor session) {
+            EntityBatchListener current = listener;
+            if (current != null) {
+                current.onEntityBatch(loader.getLoadable(), id, loader.getDomainBatchSize(), session);
+            }
+        }
+    }
+
+    public static class Contributor implements ServiceContributor {
+
+        @Override
+        public void contribute(StandardServiceRegistryBuilder builder) {
+            builder.addInitiator(new StandardServiceInitiator<BatchLoaderFactory>() {
+                @Override
+                public Class<BatchLoaderFactory> getServiceInitiated() {
+                    return BatchLoaderFactory.class;
+                }
+
+                @Override
+                public BatchLoaderFactory initiateService(Map<String, Object> configurationValues,
+                                                          ServiceRegistryImplementor registry) {
+                    return new BatchFetchLoaderFactory(new StandardBatchLoaderFactory(configurationValues, registry));
+                }
+            });
+        }
+    }
+}
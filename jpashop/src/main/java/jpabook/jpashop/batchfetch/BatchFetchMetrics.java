@@ -0,0 +1,187 @@
+package jpabook.jpashop.batchfetch;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.collection.spi.PersistentCollection;
+import org.hibernate.engine.spi.BatchFetchQueue;
+import org.hibernate.engine.spi.CollectionEntry;
+import org.hibernate.engine.spi.PersistenceContext;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.*;
+import org.hibernate.internal.util.StringHelper;
+import org.hibernate.loader.ast.spi.BatchLoaderFactory;
+import org.hibernate.metamodel.mapping.EntityMappingType;
+import org.hibernate.persister.collection.CollectionPersister;
+import org.hibernate.service.spi.ServiceRegistryImplementor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntSupplier;
+
+/**
+ * 배치 로딩(컬렉션 초기화, 엔티티 지연 로딩) 한 번마다 연관관계별로 기록한다.
+ * 엔티티 쪽은 BatchFetchLoaderFactory 가 감싼 배치 로더가 알려준다.
+ * - hibernate.batch.fetch.keys{association} : 한 번의 배치 로딩에 실린 키 수 (count = 왕복 수)
+ * - hibernate.batch.fetch.fill{association} : 키 수 / batch size
+ * adaptive 모드면 로딩 시점에 대기 중인 같은 연관관계 키 수(수요)도 기록하고,
+ * 수요의 p95 를 권장 batch size 로 adaptiveFile 에 저장한다. (다음 기동 때 BatchFetchSizeConfigurer 가 적용)
+ */
+@Slf4j
+@Component
+public class BatchFetchMetrics {
+
+    // 권장값을 내기 위한 최소 관측 수
+    private static final long MIN_SAMPLES = 20;
+
+    private final EntityManagerFactory emf;
+    private final MeterRegistry registry;
+    private final BatchFetchProperties properties;
+
+    private final Map<String, Summaries> summaries = new ConcurrentHashMap<>();
+    private final Map<String, DistributionSummary> demands = new ConcurrentHashMap<>();
+
+    public BatchFetchMetrics(EntityManagerFactory emf, MeterRegistry registry, BatchFetchProperties properties) {
+        this.emf = emf;
+        this.registry = registry;
+        this.properties = properties;
+    }
+
+    @PostConstruct
+    void registerListeners() {
+        ServiceRegistryImplementor services = emf.unwrap(SessionFactoryImplementor.class).getServiceRegistry();
+        services.getService(EventListenerRegistry.class)
+                .prependListeners(EventType.INIT_COLLECTION, (InitializeCollectionEventListener) this::onInitializeCollection);
+        if (services.getService(BatchLoaderFactory.class) instanceof BatchFetchLoaderFactory loaders) {
+            loaders.listen(this::onEntityBatch);
+        } else {
+            log.warn("BatchFetchLoaderFactory 가 등록되지 않아 엔티티 배치 로딩은 기록하지 않습니다.");
+        }
+    }
+
+    private void onInitializeCollection(InitializeCollectionEvent event) {
+        PersistentCollection<?> collection = event.getCollection();
+        if (collection.wasInitialized()) {
+            return;
+        }
+        PersistenceContext persistenceContext = event.getSession().getPersistenceContextInternal();
+        CollectionEntry entry = persistenceContext.getCollectionEntry(collection);
+        CollectionPersister persister = entry == null ? null : entry.getLoadedPersister();
+        if (persister == null || persister.getBatchSize() <= 1) {
+            return;
+        }
+        Object key = entry.getLoadedKey();
+        if (persister.hasCache() && event.getSession().getFactory().getCache().containsCollection(persister.getRole(), key)) {
+            return;
+        }
+        BatchFetchQueue queue = persistenceContext.getBatchFetchQueue();
+        String owner = persister.getOwnerEntityPersister().getEntityName();
+        record(StringHelper.unqualify(owner) + persister.getRole().substring(owner.length()),
+                count(queue.getCollectionBatch(persister, key, persister.getBatchSize())), persister.getBatchSize(),
+                () -> count(queue.getCollectionBatch(persister, key, properties.getMaxSize())));
+    }
+
+    // 2차 캐시에서 꺼낸 엔티티는 로더까지 오지 않는다.
+    private void onEntityBatch(EntityMappingType entity, Object id, int batchSize, SharedSessionContractImplementor session) {
+        if (batchSize <= 1) {
+            return;
+        }
+        BatchFetchQueue queue = session.getPersistenceContextInternal().getBatchFetchQueue();
+        record(StringHelper.unqualify(entity.getEntityName()),
+                count(queue.getBatchLoadableEntityIds(entity, id, batchSize)), batchSize,
+                () -> count(queue.getBatchLoadableEntityIds(entity, id, properties.getMaxSize())));
+    }
+
+    private void record(String association, int keys, int batchSize, IntSupplier demand) {
+        Summaries summary = summaries.computeIfAbsent(association, this::summaries);
+        summary.keys().record(keys);
+        summary.fill().record((double) keys / batchSize);
+        if (properties.isAdaptive()) {
+            demands.computeIfAbsent(association, this::demandSummary).record(demand.getAsInt());
+        }
+    }
+
+    private Summaries summaries(String association) {
+        return new Summaries(
+                DistributionSummary.builder("hibernate.batch.fetch.keys")
+                        .tag("association", association)
+                        .register(registry),
+                DistributionSummary.builder("hibernate.batch.fetch.fill")
+                        .tag("association", association)
+                        .register(registry));
+    }
+
+    private DistributionSummary demandSummary(String association) {
+        DistributionSummary summary = DistributionSummary.builder("hibernate.batch.fetch.demand")
+                .tag("association", association)
+                .publishPercentiles(0.95)
+                .register(registry);
+        Gauge.builder("hibernate.batch.fetch.recommended", summary, this::recommend)
+                .tag("association", association)
+                .register(registry);
+        return summary;
+    }
+
+    /**
+     * 수요의 p95 - 95% 의 배치 로딩이 한 번의 왕복으로 끝나는 크기
+     */
+    private double recommend(DistributionSummary demand) {
+        if (demand.count() < MIN_SAMPLES) {
+            return Double.NaN;
+        }
+        for (ValueAtPercentile percentile : demand.takeSnapshot().percentileValues()) {
+            return Math.max(1, Math.min(properties.getMaxSize(), Math.ceil(percentile.value())));
+        }
+        return Double.NaN;
+    }
+
+    @Scheduled(fixedDelayString = "${jpashop.batch-fetch.adaptive-interval:PT10M}")
+    @PreDestroy
+    public void saveRecommendations() {
+        if (!properties.isAdaptive()) {
+            return;
+        }
+        Properties recommended = new Properties();
+        demands.forEach((association, demand) -> {
+            double size = recommend(demand);
+            if (!Double.isNaN(size)) {
+                recommended.setProperty(association, String.valueOf((int) size));
+            }
+        });
+        if (recommended.isEmpty()) {
+            return;
+        }
+        try (Writer writer = Files.newBufferedWriter(properties.getAdaptiveFile())) {
+            recommended.store(writer, "adaptive batch fetch sizes (p95 of observed demand)");
+            log.info("adaptive batch size 저장: {}", recommended);
+        } catch (IOException e) {
+            log.warn("adaptive batch size 를 저장하지 못했습니다: {}", properties.getAdaptiveFile(), e);
+        }
+    }
+
+    private record Summaries(DistributionSummary keys, DistributionSummary fill) {
+    }
+
+    private static int count(Object[] keys) {
+        int count = 0;
+        for (Object key : keys) {
+            if (key != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,33 @@
+package jpabook.jpashop.batchfetch;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 연관관계별 batch fetch size (jpashop.batch-fetch.*)
+ * - 컬렉션은 "엔티티.속성" (Order.orderItems, Category.items)
+ * - xToOne 은 대상 엔티티 이름 (Order.member -> Member, OrderItem.item -> Item)
+ *   Hibernate 는 프록시 배치 로딩을 대상 엔티티 단위로 하므로 같은 엔티티를 가리키는 연관관계는 값을 공유한다.
+ * 지정하지 않은 연관관계는 hibernate.default_batch_fetch_size 를 쓴다.
+ */
+@Getter
+@Setter
+@ConfigurationProperties("jpashop.batch-fetch")
+public class BatchFetchProperties {
+
+    private Map<String, Integer> sizes = new LinkedHashMap<>();
+
+    /**
+     * 관측한 배치 수요로 권장 size 를 계산해 adaptiveFile 에 저장하고, 다음 기동 때 sizes 위에 덮어쓴다.
+     */
+    private boolean adaptive = false;
+
+    private Path adaptiveFile = Path.of("batch-fetch-sizes.properties");
+
+    private int maxSize = 1000;
+}
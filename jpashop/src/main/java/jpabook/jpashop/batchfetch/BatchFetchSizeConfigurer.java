@@ -0,0 +1,91 @@
+package jpabook.jpashop.batchfetch;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.spi.BootstrapContext;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.jpa.boot.internal.EntityManagerFactoryBuilderImpl;
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.hibernate.mapping.Collection;
+import org.hibernate.mapping.PersistentClass;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * 연관관계별 batch size 를 매핑 메타데이터에 반영한다.
+ * Integrator 는 persister 가 만들어지기 전에 호출되므로 @BatchSize 를 붙인 것과 같다.
+ */
+@Slf4j
+@Component
+@EnableConfigurationProperties(BatchFetchProperties.class)
+public class BatchFetchSizeConfigurer implements HibernatePropertiesCustomizer, Integrator {
+
+    private final BatchFetchProperties properties;
+
+    public BatchFetchSizeConfigurer(BatchFetchProperties properties) {
+        this.properties = properties;
+    }
+
+    @Override
+    public void customize(Map<String, Object> hibernateProperties) {
+        hibernateProperties.put(EntityManagerFactoryBuilderImpl.INTEGRATOR_PROVIDER, (IntegratorProvider) () -> List.of(this));
+    }
+
+    @Override
+    public void integrate(Metadata metadata, BootstrapContext bootstrapContext, SessionFactoryImplementor sessionFactory) {
+        effectiveSizes().forEach((association, size) -> {
+            int dot = association.indexOf('.');
+            PersistentClass entity = findEntity(metadata, dot < 0 ? association : association.substring(0, dot));
+            if (dot < 0) {
+                entity.setBatchSize(size);
+            } else {
+                Collection collection = metadata.getCollectionBinding(entity.getEntityName() + association.substring(dot));
+                if (collection == null) {
+                    throw new IllegalArgumentException("컬렉션 연관관계가 아닙니다: " + association);
+                }
+                collection.setBatchSize(size);
+            }
+            log.info("batch fetch size {} = {}", association, size);
+        });
+    }
+
+    @Override
+    public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+    }
+
+    private Map<String, Integer> effectiveSizes() {
+        Map<String, Integer> sizes = new LinkedHashMap<>(properties.getSizes());
+        if (properties.isAdaptive() && Files.exists(properties.getAdaptiveFile())) {
+            Properties learned = new Properties();
+            try (Reader reader = Files.newBufferedReader(properties.getAdaptiveFile())) {
+                learned.load(reader);
+            } catch (IOException e) {
+                log.warn("adaptive batch size 파일을 읽지 못했습니다: {}", properties.getAdaptiveFile(), e);
+                return sizes;
+            }
+            learned.forEach((association, size) -> sizes.put((String) association, Integer.parseInt((String) size)));
+            log.info("adaptive batch size 적용: {}", learned);
+        }
+        return sizes;
+    }
+
+    private static PersistentClass findEntity(Metadata metadata, String name) {
+        for (PersistentClass entity : metadata.getEntityBindings()) {
+            if (name.equals(entity.getJpaEntityName())) {
+                return entity;
+            }
+        }
+        throw new IllegalArgumentException("엔티티가 아닙니다: " + name);
+    }
+}
@@ -1,11 +1,14 @@
 package jpabook.jpashop.controller;
 
 import jpabook.jpashop.domain.Member;
-import jpabook.jpashop.domain.Order;
 import jpabook.jpashop.domain.item.Item;
 import jpabook.jpashop.repository.OrderSearch;
+import jpabook.jpashop.repository.order.query.OrderListRowDto;
+import jpabook.jpashop.service.IdempotencyStore;
 import jpabook.jpashop.service.ItemService;
+import jpabook.jpashop.service.LockRetry;
 import jpabook.jpashop.service.MemberService;
+import jpabook.jpashop.service.OrderAdmissionControl;
 import jpabook.jpashop.service.OrderService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Controller;
@@ -21,6 +24,10 @@ public class OrderController {
     private final OrderService orderService;
     private final MemberService memberService;
     private final ItemService itemService;
+    private final OrderRowCache orderRowCache;
+    private final IdempotencyStore idempotencyStore;
+    private final OrderAdmissionControl admissionControl;
+    private final LockRetry lockRetry;
 
     @GetMapping("/order")
     public String createForm(Model model) {
@@ -34,18 +41,28 @@ public class OrderController {
     }
 
     @PostMapping("/order")
-    public String order(@RequestParam("memberId") Long memberId,
+    public String order(@RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+                        @RequestParam("memberId") Long memberId,
                         @RequestParam("itemId") Long itemId,
                         @RequestParam("count") int count) {
-        orderService.order(memberId, itemId, count);
+        if (idempotencyKey == null) {
+            admissionControl.run(itemId, () -> lockRetry.run(() -> orderService.order(memberId, itemId, count)));
+        } else {
+            // 같은 키로 재시도하면 이전 결과를 돌려주고 주문은 다시 실행하지 않는다.
+            String fingerprint = IdempotencyStore.fingerprint("order", memberId, itemId, count);
+            idempotencyStore.execute(idempotencyKey, fingerprint, () -> admissionControl.run(itemId,
+                    () -> lockRetry.run(() -> orderService.order(idempotencyKey, fingerprint, memberId, itemId, count))));
+        }
         return "redirect:/orders";
     }
 
     @GetMapping("/orders")
     public String orderList(@ModelAttribute("orderSearch") OrderSearch orderSearch,
+                            @RequestParam(value = "includeArchived", defaultValue = "false") boolean includeArchived,
                             Model model) {
-        List<Order> orders = orderService.findOrders(orderSearch);
-        model.addAttribute("orders", orders);
+        List<OrderListRowDto> orders = orderService.findOrderListRows(orderSearch, includeArchived);
+        model.addAttribute("includeArchived", includeArchived);
+        model.addAttribute("orderRows", orderRowCache.render(orders));
 
         return "order/orderList";
     }
@@ -0,0 +1,57 @@
+package jpabook.jpashop.controller;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jpabook.jpashop.repository.order.query.OrderListRowDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.thymeleaf.ITemplateEngine;
+import org.thymeleaf.context.Context;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 주문 목록의 한 줄(order/orderListRow :: row)을 렌더링한 결과를 주문 id 로 캐시한다.
+ * 렌더링에 쓴 행 값(주문 version, 회원 이름, 상품 이름 ...)이 하나라도 다르면 다시 렌더링한다.
+ * 주문 version 만 보면 회원/상품 이름이 바뀌어도 예전 HTML 이 나간다.
+ * 최대 jpashop.order-rows.max-entries 건까지만 보관한다.
+ */
+@Component
+public class OrderRowCache {
+
+    private static final String TEMPLATE = "order/orderListRow";
+    private static final Set<String> FRAGMENT = Set.of("row");
+
+    private final ITemplateEngine templateEngine;
+    private final Cache<Long, RenderedRow> rows;
+
+    public OrderRowCache(ITemplateEngine templateEngine,
+                         @Value("${jpashop.order-rows.max-entries:10000}") long maxEntries) {
+        this.templateEngine = templateEngine;
+        this.rows = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .build();
+    }
+
+    public List<String> render(List<OrderListRowDto> orders) {
+        return orders.stream()
+                .map(this::render)
+                .toList();
+    }
+
+    public String render(OrderListRowDto order) {
+        RenderedRow cached = rows.getIfPresent(order.getId());
+        if (cached != null && cached.row().equals(order)) {
+            return cached.html();
+        }
+        Context context = new Context();
+        context.setVariable("item", order);
+        String html = templateEngine.process(TEMPLATE, FRAGMENT, context);
+        rows.put(order.getId(), new RenderedRow(order, html));
+        return html;
+    }
+
+    private record RenderedRow(OrderListRowDto row, String html) {
+    }
+}
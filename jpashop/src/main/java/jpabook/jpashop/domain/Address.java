@@ -1,9 +1,12 @@
 package jpabook.jpashop.domain;
 
 import jakarta.persistence.Embeddable;
+import lombok.EqualsAndHashCode;
 import lombok.Getter;
 
+// 값 타입 - 값이 같으면 같은 주소 (Canonical 이 같은 주소를 한 인스턴스로 합친다)
 @Getter
+@EqualsAndHashCode
 @Embeddable
 public class Address {
     private String city;
@@ -0,0 +1,26 @@
+package jpabook.jpashop.domain;
+
+import jakarta.persistence.*;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * 보관된 배송 정보 - ArchivedOrder 와 함께 옮겨 온다.
+ */
+@Entity
+@Table(name = "delivery_archive")
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class ArchivedDelivery {
+
+    @Id
+    @Column(name = "delivery_id")
+    private Long id;
+
+    @Embedded
+    private Address address;
+
+    @Enumerated(EnumType.STRING)
+    private DeliveryStatus status;
+}
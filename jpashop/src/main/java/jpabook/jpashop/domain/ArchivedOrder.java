@@ -0,0 +1,38 @@
+package jpabook.jpashop.domain;
+
+import jakarta.persistence.*;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 보관된 주문 - OrderArchiver 가 orders 에서 옮겨 온다. (id 는 원래 주문 id 그대로)
+ * 연관관계 없이 id 만 들고 있어 회원/상품을 지워도 보관 row 는 남는다.
+ * orders_archive 는 컬럼 틀이고 row 는 주문 월의 버킷 테이블에 있다. 조회는 OrderBucketContext 안에서 한다. (OrderBuckets)
+ */
+@Entity
+@Table(name = "orders_archive")
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class ArchivedOrder {
+
+    @Id
+    @Column(name = "order_id")
+    private Long id;
+
+    @Column(name = "member_id")
+    private Long memberId;
+
+    @Column(name = "delivery_id")
+    private Long deliveryId;
+
+    private LocalDateTime orderDate;
+
+    private OrderStatus status; // Order 와 같은 매핑
+
+    private Long version;
+
+    private LocalDateTime archivedAt;
+}
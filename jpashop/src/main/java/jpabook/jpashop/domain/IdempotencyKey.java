@@ -0,0 +1,59 @@
+package jpabook.jpashop.domain;
+
+import jakarta.persistence.*;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+
+/**
+ * 처리가 끝난 Idempotency-Key 와 그 결과(주문 id)
+ * fingerprint 는 요청 파라미터의 해시 - 같은 키를 다른 요청에 재사용하면 거절한다.
+ */
+@Entity
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class IdempotencyKey implements Persistable<String> {
+
+    @Id
+    @Column(name = "idempotency_key")
+    private String key;
+
+    @Column(length = 64)
+    private String fingerprint;
+
+    private Long orderId;
+
+    private LocalDateTime createdAt;
+
+    // 키를 직접 지정하므로 save 가 merge(select 후 update)가 아니라 persist(insert)가 되도록 한다.
+    // 같은 키가 이미 저장돼 있으면 덮어쓰지 않고 PK 위반으로 실패한다.
+    @Transient
+    @Getter(AccessLevel.NONE)
+    private boolean persisted;
+
+    public IdempotencyKey(String key, String fingerprint, Long orderId) {
+        this.key = key;
+        this.fingerprint = fingerprint;
+        this.orderId = orderId;
+        this.createdAt = LocalDateTime.now();
+    }
+
+    @Override
+    public String getId() {
+        return key;
+    }
+
+    @Override
+    public boolean isNew() {
+        return !persisted;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markPersisted() {
+        persisted = true;
+    }
+}
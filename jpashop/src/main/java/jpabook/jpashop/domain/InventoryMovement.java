@@ -0,0 +1,40 @@
+package jpabook.jpashop.domain;
+
+import jakarta.persistence.*;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 재고 원장 - 주문(-), 취소(+), 재고 수정(±) 을 insert 만 한다.
+ * 같은 상품의 주문끼리 row 를 다투지 않는다. InventoryCompactor 가 스냅샷으로 접어 넣고 지운다.
+ */
+@Entity
+@Table(name = "inventory_movement", indexes = @Index(name = "idx_inventory_movement_item", columnList = "item_id"))
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class InventoryMovement {
+
+    @Id
+    @GeneratedValue
+    @Column(name = "movement_id")
+    private Long id;
+
+    @Column(name = "item_id", nullable = false)
+    private Long itemId;
+
+    private Long orderId;
+
+    private int quantity;
+
+    private LocalDateTime createdAt;
+
+    public InventoryMovement(Long itemId, Long orderId, int quantity) {
+        this.itemId = itemId;
+        this.orderId = orderId;
+        this.quantity = quantity;
+        this.createdAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,39 @@
+package jpabook.jpashop.domain;
+
+import jakarta.persistence.*;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 상품별 재고 스냅샷 - 가용 재고 = quantity + 아직 접히지 않은 InventoryMovement 합
+ * InventoryCompactor 만 수정한다.
+ */
+@Entity
+@Table(name = "inventory_snapshot")
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class InventorySnapshot {
+
+    @Id
+    @Column(name = "item_id")
+    private Long itemId;
+
+    private int quantity;
+
+    private LocalDateTime compactedAt;
+
+    public InventorySnapshot(Long itemId, int quantity) {
+        this.itemId = itemId;
+        this.quantity = quantity;
+        this.compactedAt = LocalDateTime.now();
+    }
+
+    //==비즈니스 로직==//
+    public void fold(int movements) {
+        this.quantity += movements;
+        this.compactedAt = LocalDateTime.now();
+    }
+}
@@ -14,7 +14,12 @@ import static jakarta.persistence.CascadeType.ALL;
 import static jakarta.persistence.FetchType.LAZY;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+        // 회원 주문 이력 keyset 페이지 (OrderQueryRepository.findMemberOrderHistory)
+        @Index(name = "idx_orders_member_date", columnList = "member_id, orderDate desc, order_id desc"),
+        // 주문일 범위 검색 (OrderSearch.orderDateFrom/To)
+        @Index(name = "idx_orders_date", columnList = "orderDate")
+})
 @Getter
 @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
@@ -39,6 +44,9 @@ public class Order {
 
     private OrderStatus status; // 주문 상태 [ORDER, CANCEL]
 
+    @Version
+    private Long version;
+
     //==연관관계 메서드==//
     public void setMember(Member member) {
         this.member = member;
@@ -74,14 +82,21 @@ public class Order {
      * 주문 취소
      */
     public void cancel() {
+        cancelWithoutStock();
+        for (OrderItem orderItem : orderItems) {
+            orderItem.cancel();
+        }
+    }
+
+    /**
+     * 주문 취소 - 재고는 되돌리지 않는다 (원장 모드에서는 InventoryLedger.release)
+     */
+    public void cancelWithoutStock() {
         if (delivery.getStatus() == DeliveryStatus.COMP) {
             throw new IllegalStateException("이미 배송완료된 상품은 취소가 불가능합니다.");
         }
 
         this.setStatus(OrderStatus.CANCEL);
-        for (OrderItem orderItem : orderItems) {
-            orderItem.cancel();
-        }
     }
 
     //==조회 로직==//
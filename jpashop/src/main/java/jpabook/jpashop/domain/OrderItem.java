@@ -33,12 +33,19 @@ public class OrderItem {
 
     //==생성 메서드==//
     public static OrderItem createOrderItem(Item item, int orderPrice, int count) {
+        OrderItem orderItem = createOrderItemWithoutStock(item, orderPrice, count);
+        item.removeStock(count);
+        return orderItem;
+    }
+
+    /**
+     * 재고를 건드리지 않는다 - 원장 모드에서는 InventoryLedger.reserve 가 재고를 잡는다.
+     */
+    public static OrderItem createOrderItemWithoutStock(Item item, int orderPrice, int count) {
         OrderItem orderItem = new OrderItem();
         orderItem.setItem(item);
         orderItem.setOrderPrice(orderPrice);
         orderItem.setCount(count);
-
-        item.removeStock(count);
         return orderItem;
     }
 
@@ -0,0 +1,65 @@
+package jpabook.jpashop.domain;
+
+import jakarta.persistence.*;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * transactional outbox - 주문/취소/상품 수정과 같은 트랜잭션에 insert 한다.
+ * OutboxDispatcher 가 전달에 성공하면 지우고, 실패하면 availableAt 을 뒤로 미뤄 다시 시도한다.
+ * max-attempts 번 실패하면 parkedAt 을 찍고 더 이상 전달하지 않는다. (확인 후 직접 지우거나 parkedAt 을 비워 다시 보낸다)
+ */
+@Entity
+@Table(name = "outbox_event", indexes = @Index(name = "idx_outbox_event_aggregate", columnList = "aggregateType, aggregateId"))
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue
+    @Column(name = "outbox_event_id")
+    private Long id;
+
+    @Column(nullable = false)
+    private String aggregateType;
+
+    @Column(nullable = false)
+    private Long aggregateId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private OutboxEventType eventType;
+
+    @Column(length = 4000)
+    private String payload;
+
+    private LocalDateTime createdAt;
+
+    private LocalDateTime availableAt;
+
+    private int attempts;
+
+    private LocalDateTime parkedAt;
+
+    public OutboxEvent(OutboxEventType eventType, Long aggregateId, String payload) {
+        this.aggregateType = eventType.getAggregateType();
+        this.aggregateId = aggregateId;
+        this.eventType = eventType;
+        this.payload = payload;
+        this.createdAt = LocalDateTime.now();
+        this.availableAt = this.createdAt;
+    }
+
+    //==비즈니스 로직==//
+    public void retryAt(LocalDateTime availableAt) {
+        this.attempts++;
+        this.availableAt = availableAt;
+    }
+
+    public void park(LocalDateTime parkedAt) {
+        this.parkedAt = parkedAt;
+    }
+}
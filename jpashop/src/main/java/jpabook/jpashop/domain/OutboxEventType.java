@@ -0,0 +1,21 @@
+package jpabook.jpashop.domain;
+
+/**
+ * outbox 이벤트 종류 - 같은 aggregate 의 이벤트끼리는 순서대로 전달된다.
+ */
+public enum OutboxEventType {
+    ORDER_PLACED("Order"),
+    ORDER_CANCELED("Order"),
+    ITEM_CREATED("Item"),
+    ITEM_UPDATED("Item");
+
+    private final String aggregateType;
+
+    OutboxEventType(String aggregateType) {
+        this.aggregateType = aggregateType;
+    }
+
+    public String getAggregateType() {
+        return aggregateType;
+    }
+}
@@ -0,0 +1,10 @@
+package jpabook.jpashop.exception;
+
+/**
+ * strict 모드에서 fetch plan 밖의 지연 로딩, 또는 maxQueries 초과
+ */
+public class FetchPlanViolationException extends RuntimeException {
+    public FetchPlanViolationException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,24 @@
+package jpabook.jpashop.fetchplan;
+
+import java.lang.annotation.*;
+
+/**
+ * 엔드포인트/서비스 메서드가 조회할 연관관계와 최대 쿼리 수를 선언한다.
+ * - graph : root 엔티티 조회 쿼리에 fetch graph 로 적용 (FetchPlanContext.applyTo)
+ * - batch : 지연 로딩을 허용하는 연관관계 (default_batch_fetch_size 로 IN 배치 조회)
+ * 그 밖의 지연 로딩과 maxQueries 초과는 FetchPlanMonitor 가 세고 로그를 남긴다. (strict 모드면 예외)
+ * 경로는 root 기준 속성 이름, 중첩은 점으로 잇는다. (예: orderItems.item)
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface FetchPlan {
+
+    Class<?> root();
+
+    String[] graph() default {};
+
+    String[] batch() default {};
+
+    int maxQueries();
+}
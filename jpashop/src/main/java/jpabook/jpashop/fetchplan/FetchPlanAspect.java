@@ -0,0 +1,39 @@
+package jpabook.jpashop.fetchplan;
+
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * @FetchPlan 메서드 실행 동안 plan 을 활성화한다.
+ * 트랜잭션(LOWEST_PRECEDENCE)보다 바깥에서 감싸야 커밋 시점의 지연 로딩, 쿼리까지 같은 plan 으로 센다.
+ * (HIGHEST_PRECEDENCE 면 ExposeInvocationInterceptor 보다 앞서 annotation 바인딩이 안 된다)
+ */
+@Aspect
+@Component
+@Order(0)
+@RequiredArgsConstructor
+public class FetchPlanAspect {
+
+    private final FetchPlanRegistry registry;
+    private final FetchPlanMonitor monitor;
+
+    @Around("@annotation(fetchPlan)")
+    public Object around(ProceedingJoinPoint joinPoint, FetchPlan fetchPlan) throws Throwable {
+        MethodSignature signature = (MethodSignature) joinPoint.getSignature();
+        FetchPlanContext.Active active = FetchPlanContext.enter(registry.get(signature.getMethod(), fetchPlan));
+        boolean completed = false;
+        try {
+            Object result = joinPoint.proceed();
+            completed = true;
+            return result;
+        } finally {
+            FetchPlanContext.exit(active);
+            monitor.finished(active, completed);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package jpabook.jpashop.fetchplan;
+
+import jakarta.persistence.TypedQuery;
+import jpabook.jpashop.fetchplan.FetchPlanRegistry.Plan;
+
+/**
+ * 현재 스레드에서 실행 중인 fetch plan
+ * 리포지토리는 applyTo 로 root 조회 쿼리에 plan 의 entity graph 를 건다.
+ */
+public final class FetchPlanContext {
+
+    private static final String FETCH_GRAPH = "jakarta.persistence.fetchgraph";
+
+    private static final ThreadLocal<Active> CURRENT = new ThreadLocal<>();
+
+    private FetchPlanContext() {
+    }
+
+    public static Active current() {
+        return CURRENT.get();
+    }
+
+    public static <T> TypedQuery<T> applyTo(TypedQuery<T> query, Class<T> root) {
+        Active active = CURRENT.get();
+        if (active != null && active.plan.root() == root && active.plan.graph() != null) {
+            query.setHint(FETCH_GRAPH, active.plan.graph());
+        }
+        return query;
+    }
+
+    static Active enter(Plan plan) {
+        Active active = new Active(plan, CURRENT.get());
+        CURRENT.set(active);
+        return active;
+    }
+
+    static void exit(Active active) {
+        if (active.previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(active.previous);
+        }
+    }
+
+    public static final class Active {
+        private final Plan plan;
+        private final Active previous;
+        private int queries;
+
+        private Active(Plan plan, Active previous) {
+            this.plan = plan;
+            this.previous = previous;
+        }
+
+        public Plan plan() {
+            return plan;
+        }
+
+        public int queries() {
+            return queries;
+        }
+
+        void countQuery() {
+            queries++;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package jpabook.jpashop.fetchplan;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import jpabook.jpashop.exception.FetchPlanViolationException;
+import jpabook.jpashop.fetchplan.FetchPlanRegistry.Plan;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.InitializeCollectionEventListener;
+import org.hibernate.event.spi.LoadEvent;
+import org.hibernate.event.spi.LoadEventListener;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * plan 이 활성화된 동안의 지연 로딩과 쿼리 수를 기록한다.
+ * - jpa.lazy.load{plan, target, planned} : 지연 로딩 (컬렉션 초기화, 프록시 초기화)
+ * - jpa.fetch.plan.queries{plan} : 메서드 한 번에 실행된 SQL 수
+ * plan 밖의 지연 로딩, maxQueries 초과는 경고 로그, strict 모드면 FetchPlanViolationException
+ */
+@Slf4j
+@Component
+public class FetchPlanMonitor {
+
+    private final EntityManagerFactory emf;
+    private final MeterRegistry registry;
+    private final boolean strict;
+
+    public FetchPlanMonitor(EntityManagerFactory emf, MeterRegistry registry,
+                            @Value("${jpashop.fetch-plan.strict:false}") boolean strict) {
+        this.emf = emf;
+        this.registry = registry;
+        this.strict = strict;
+    }
+
+    @PostConstruct
+    void registerListeners() {
+        EventListenerRegistry listeners = emf.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry().getService(EventListenerRegistry.class);
+        listeners.prependListeners(EventType.INIT_COLLECTION,
+                (InitializeCollectionEventListener) event -> lazyLoad(event.getCollection().getRole()));
+        listeners.prependListeners(EventType.LOAD, (LoadEventListener) this::onLoad);
+    }
+
+    // 프록시 초기화는 IMMEDIATE_LOAD 로 들어온다. (em.find 등은 제외)
+    private void onLoad(LoadEvent event, LoadEventListener.LoadType loadType) {
+        if (loadType == LoadEventListener.IMMEDIATE_LOAD) {
+            lazyLoad(event.getEntityClassName());
+        }
+    }
+
+    private void lazyLoad(String target) {
+        FetchPlanContext.Active active = FetchPlanContext.current();
+        if (active == null) {
+            return;
+        }
+        Plan plan = active.plan();
+        boolean planned = plan.allowsLazy(target);
+        Counter.builder("jpa.lazy.load")
+                .tags("plan", plan.name(), "target", target, "planned", String.valueOf(planned))
+                .register(registry)
+                .increment();
+        if (!planned) {
+            violation("fetch plan " + plan.name() + " 밖의 지연 로딩: " + target);
+        }
+    }
+
+    void finished(FetchPlanContext.Active active, boolean completed) {
+        Plan plan = active.plan();
+        DistributionSummary.builder("jpa.fetch.plan.queries")
+                .tag("plan", plan.name())
+                .register(registry)
+                .record(active.queries());
+        // 이미 예외로 끝난 호출은 원래 예외를 가리지 않는다.
+        if (completed && active.queries() > plan.maxQueries()) {
+            violation("fetch plan " + plan.name() + " 쿼리 수 초과: " + active.queries() + " > " + plan.maxQueries());
+        }
+    }
+
+    private void violation(String message) {
+        if (strict) {
+            throw new FetchPlanViolationException(message);
+        }
+        log.warn(message);
+    }
+}
@@ -0,0 +1,93 @@
+package jpabook.jpashop.fetchplan;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.metamodel.*;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.graph.Graph;
+import org.hibernate.graph.RootGraph;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+import java.lang.reflect.Method;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @FetchPlan 선언 -> 실행용 Plan (메서드별로 한 번만 만든다)
+ * graph 경로는 EntityGraph 로, graph + batch 경로는 지연 로딩 허용 대상(컬렉션 role, 엔티티 이름)으로 바꿔 둔다.
+ */
+@Component
+@RequiredArgsConstructor
+public class FetchPlanRegistry {
+
+    private final EntityManagerFactory emf;
+
+    private final Map<Method, Plan> plans = new ConcurrentHashMap<>();
+
+    public Plan get(Method method, FetchPlan fetchPlan) {
+        return plans.computeIfAbsent(method, m -> create(
+                ClassUtils.getShortName(m.getDeclaringClass()) + "." + m.getName(), fetchPlan));
+    }
+
+    private Plan create(String name, FetchPlan fetchPlan) {
+        EntityType<?> root = emf.getMetamodel().entity(fetchPlan.root());
+
+        RootGraph<?> graph = null;
+        if (fetchPlan.graph().length > 0) {
+            // 그래프는 메타모델만 참조하므로 만든 EntityManager 를 닫은 뒤에도 재사용할 수 있다.
+            try (EntityManager em = emf.createEntityManager()) {
+                graph = (RootGraph<?>) em.createEntityGraph(fetchPlan.root());
+            }
+            for (String path : fetchPlan.graph()) {
+                addPath(graph, path.split("\\."));
+            }
+        }
+
+        Set<String> lazyTargets = new HashSet<>();
+        for (String path : fetchPlan.graph()) {
+            collectTargets(root, path, lazyTargets);
+        }
+        for (String path : fetchPlan.batch()) {
+            collectTargets(root, path, lazyTargets);
+        }
+        return new Plan(name, fetchPlan.root(), graph, Set.copyOf(lazyTargets), fetchPlan.maxQueries());
+    }
+
+    private static void addPath(Graph<?> graph, String[] segments) {
+        Graph<?> current = graph;
+        for (int i = 0; i < segments.length - 1; i++) {
+            current = current.addSubGraph(segments[i]);
+        }
+        current.addAttributeNode(segments[segments.length - 1]);
+    }
+
+    /**
+     * 경로를 따라가며 컬렉션은 "소유 엔티티.속성" role, 단일 연관관계는 대상 엔티티 이름을 모은다.
+     */
+    private static void collectTargets(EntityType<?> root, String path, Set<String> targets) {
+        ManagedType<?> current = root;
+        for (String segment : path.split("\\.")) {
+            Attribute<?, ?> attribute = current.getAttribute(segment);
+            if (attribute instanceof PluralAttribute<?, ?, ?> plural) {
+                targets.add(current.getJavaType().getName() + "." + segment);
+                current = (ManagedType<?>) plural.getElementType();
+            } else if (attribute instanceof SingularAttribute<?, ?> singular
+                    && singular.getType() instanceof ManagedType<?> target) {
+                targets.add(target.getJavaType().getName());
+                current = target;
+            } else {
+                throw new IllegalArgumentException("연관관계가 아닙니다: " + root.getName() + "." + path);
+            }
+        }
+    }
+
+    public record Plan(String name, Class<?> root, RootGraph<?> graph, Set<String> lazyTargets, int maxQueries) {
+
+        public boolean allowsLazy(String target) {
+            return lazyTargets.contains(target);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package jpabook.jpashop.fetchplan;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.stereotype.Component;
+
+/**
+ * plan 이 활성화된 동안 실행되는 SQL 수를 센다. (SQL 은 바꾸지 않는다)
+ * StatementInspectorChain 이 등록한다.
+ */
+@Component
+public class FetchPlanStatementInspector implements StatementInspector {
+
+    @Override
+    public String inspect(String sql) {
+        FetchPlanContext.Active active = FetchPlanContext.current();
+        if (active != null) {
+            active.countQuery();
+        }
+        return sql;
+    }
+}
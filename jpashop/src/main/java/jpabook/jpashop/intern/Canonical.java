@@ -0,0 +1,50 @@
+package jpabook.jpashop.intern;
+
+import jpabook.jpashop.domain.Address;
+
+/**
+ * 조회 결과(DTO)를 만들 때 반복되는 값을 하나의 인스턴스로 합친다.
+ * - Address : 같은 (city, street, zipcode) 는 같은 인스턴스 (회원 한 명의 주문은 모두 같은 주소)
+ * - 문자열 : 도시, 우편번호, 상품명처럼 종류가 적은 값
+ * JDBC 는 행마다 새 String 을 만들기 때문에 대량 조회에서는 같은 값이 행 수만큼 힙에 쌓인다.
+ * OrderStatus 같은 enum 은 원래 하나뿐이라 대상이 아니다.
+ * DTO 생성자에서 호출하므로 스프링 빈이 아닌 static 으로 두고, 설정은 CanonicalConfigurer 가 넣는다.
+ */
+public final class Canonical {
+
+    static final int ADDRESS_CAPACITY = 16_384;
+    static final int STRING_CAPACITY = 16_384;
+
+    static final Interner<Address> ADDRESSES = new Interner<>(ADDRESS_CAPACITY);
+    static final Interner<String> STRINGS = new Interner<>(STRING_CAPACITY);
+
+    private static volatile boolean enabled = true;
+
+    private Canonical() {
+    }
+
+    public static Address address(Address address) {
+        if (!enabled || address == null) {
+            return address;
+        }
+        // 처음 본 주소는 안의 도시/우편번호도 합쳐서 등록한다.
+        return ADDRESSES.intern(address,
+                a -> new Address(string(a.getCity()), a.getStreet(), string(a.getZipcode())));
+    }
+
+    public static String string(String value) {
+        return enabled ? STRINGS.intern(value) : value;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void setEnabled(boolean enabled) {
+        Canonical.enabled = enabled;
+        if (!enabled) {
+            ADDRESSES.clear();
+            STRINGS.clear();
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package jpabook.jpashop.intern;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Canonical 설정 적용 + interner 별 hit / miss / size
+ * - value.intern{kind, result} : hit 이면 중복 인스턴스 하나를 버린 것
+ * - value.intern.size{kind}
+ */
+@Component
+public class CanonicalConfigurer implements MeterBinder {
+
+    private final boolean enabled;
+
+    public CanonicalConfigurer(@Value("${jpashop.intern.enabled:true}") boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @PostConstruct
+    void apply() {
+        Canonical.setEnabled(enabled);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        bind(registry, "address", Canonical.ADDRESSES);
+        bind(registry, "string", Canonical.STRINGS);
+    }
+
+    private static void bind(MeterRegistry registry, String kind, Interner<?> interner) {
+        FunctionCounter.builder("value.intern", interner, Interner::hits)
+                .tags("kind", kind, "result", "hit")
+                .register(registry);
+        FunctionCounter.builder("value.intern", interner, Interner::misses)
+                .tags("kind", kind, "result", "miss")
+                .register(registry);
+        Gauge.builder("value.intern.size", interner, Interner::size)
+                .tag("kind", kind)
+                .register(registry);
+    }
+}
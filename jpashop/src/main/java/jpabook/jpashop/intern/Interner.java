@@ -0,0 +1,97 @@
+package jpabook.jpashop.intern;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.UnaryOperator;
+
+/**
+ * 크기 제한이 있는 값 interner - 같은 값이면 먼저 본 인스턴스를 돌려준다.
+ * 세그먼트마다 access-order LinkedHashMap (LRU) 이고, 가득 차면 가장 오래 안 쓴 값을 버린다.
+ * 버려진 값은 다음에 다시 등록될 뿐이라 결과가 틀리지는 않고 중복 제거율만 떨어진다.
+ * 불변 값(equals/hashCode 가 값 기준)에만 쓴다.
+ */
+public final class Interner<T> {
+
+    private static final int SEGMENTS = 16;
+
+    private final Segment<T>[] segments;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public Interner(int capacity) {
+        int perSegment = Math.max(1, capacity / SEGMENTS);
+        segments = new Segment[SEGMENTS];
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment<>(perSegment);
+        }
+    }
+
+    public T intern(T value) {
+        return intern(value, UnaryOperator.identity());
+    }
+
+    /**
+     * @param onMiss 처음 보는 값이면 등록할 인스턴스를 만든다. (value 와 equals 여야 한다)
+     */
+    public T intern(T value, UnaryOperator<T> onMiss) {
+        if (value == null) {
+            return null;
+        }
+        int h = value.hashCode();
+        Segment<T> segment = segments[(h ^ (h >>> 16)) & (SEGMENTS - 1)];
+        synchronized (segment) {
+            T canonical = segment.get(value);
+            if (canonical != null) {
+                hits.increment();
+                return canonical;
+            }
+            canonical = onMiss.apply(value);
+            segment.put(canonical, canonical);
+            misses.increment();
+            return canonical;
+        }
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment<T> segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    public void clear() {
+        for (Segment<T> segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    private static final class Segment<T> extends LinkedHashMap<T, T> {
+
+        private final int capacity;
+
+        Segment(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<T, T> eldest) {
+            return size() > capacity;
+        }
+    }
+}
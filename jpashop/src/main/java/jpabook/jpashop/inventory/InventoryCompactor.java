@@ -0,0 +1,103 @@
+package jpabook.jpashop.inventory;
+
+import jakarta.persistence.EntityManager;
+import jpabook.jpashop.domain.InventorySnapshot;
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.snapshot.ResponseSnapshots;
+import jpabook.jpashop.snapshot.SnapshotGroup;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 원장 이동을 스냅샷으로 접어 넣고 지운다. (배치마다 한 트랜잭션)
+ * 접은 만큼 Item.stockQuantity 도 맞춰 두므로 화면의 재고는 compact-interval 만큼 늦을 수 있다.
+ * 스냅샷이 없는 상품은 Item.stockQuantity 로 스냅샷을 만든 뒤 접는다.
+ */
+@Slf4j
+@Component
+public class InventoryCompactor {
+
+    private static final int BATCH = 1000;
+
+    private final EntityManager em;
+    private final TransactionTemplate transactionTemplate;
+    private final InventoryLedger inventoryLedger;
+    private final ResponseSnapshots responseSnapshots;
+
+    public InventoryCompactor(EntityManager em, TransactionTemplate transactionTemplate, InventoryLedger inventoryLedger,
+                              ResponseSnapshots responseSnapshots) {
+        this.em = em;
+        this.transactionTemplate = transactionTemplate;
+        this.inventoryLedger = inventoryLedger;
+        this.responseSnapshots = responseSnapshots;
+    }
+
+    @Scheduled(fixedDelayString = "${jpashop.inventory.compact-interval:PT30S}")
+    public void scheduled() {
+        if (inventoryLedger.isEnabled()) {
+            compact();
+        }
+    }
+
+    /**
+     * @return 접은 이동 수
+     */
+    public int compact() {
+        int total = 0;
+        int folded;
+        do {
+            folded = transactionTemplate.execute(status -> compactBatch());
+            total += folded;
+        } while (folded == BATCH);
+        if (total > 0) {
+            log.debug("inventory movements compacted: {}", total);
+        }
+        return total;
+    }
+
+    private int compactBatch() {
+        List<Object[]> rows = em.createQuery(
+                        "select m.id, m.itemId, m.quantity from InventoryMovement m order by m.id", Object[].class)
+                .setMaxResults(BATCH)
+                .getResultList();
+        if (rows.isEmpty()) {
+            return 0;
+        }
+        List<Long> ids = new ArrayList<>(rows.size());
+        Map<Long, Integer> sums = new HashMap<>();
+        for (Object[] row : rows) {
+            ids.add((Long) row[0]);
+            sums.merge((Long) row[1], (Integer) row[2], Integer::sum);
+        }
+
+        // 먼저 지워서 row 잠금을 잡는다 - 다른 compactor 가 같은 이동을 접었으면 건수가 달라 롤백된다.
+        int deleted = em.createQuery("delete from InventoryMovement m where m.id in :ids")
+                .setParameter("ids", ids)
+                .executeUpdate();
+        if (deleted != ids.size()) {
+            throw new IllegalStateException("이미 접힌 재고 이동이 있습니다.");
+        }
+        sums.forEach((itemId, sum) -> {
+            InventorySnapshot snapshot = em.find(InventorySnapshot.class, itemId);
+            Item item = em.find(Item.class, itemId);
+            if (snapshot == null) {
+                snapshot = new InventorySnapshot(itemId, item == null ? 0 : item.getStockQuantity());
+                em.persist(snapshot);
+            }
+            snapshot.fold(sum);
+            if (item != null) {
+                item.setStockQuantity(snapshot.getQuantity());
+            }
+        });
+        // 상품 목록 스냅샷의 재고도 커밋 뒤에 바뀐다.
+        responseSnapshots.invalidate(SnapshotGroup.ITEM);
+        return rows.size();
+    }
+}
@@ -0,0 +1,180 @@
+package jpabook.jpashop.inventory;
+
+import jakarta.persistence.EntityManager;
+import jpabook.jpashop.domain.InventoryMovement;
+import jpabook.jpashop.domain.InventorySnapshot;
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.exception.NotEnoughStockException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 원장 방식 재고 (jpashop.inventory.ledger=true)
+ * 주문/취소가 Item.stockQuantity 를 고치지 않고 inventory_movement 에 insert 만 한다.
+ * 가용 재고 = 스냅샷 + 접히지 않은 이동 합계
+ *
+ * 초과 판매는 상품별 예약 카운터로 먼저 막는다. 카운터에서 CAS 로 차감하고 원장에 쓰며,
+ * 트랜잭션이 롤백되면 되돌린다. 카운터는 JVM 안에만 있으므로, 원장에 쓴 뒤 같은 트랜잭션에서
+ * DB 의 가용 재고(커밋된 원장 + 이 트랜잭션의 이동)를 다시 합산해 음수면 거절한다.
+ * 다른 인스턴스가 커밋한 주문은 이 합산에서 걸린다. 아직 커밋되지 않은 다른 트랜잭션의 이동은 보이지 않는다.
+ * 카운터는 기동 시 한 번에 채우고, 그 뒤에 생긴 상품은 처음 쓰는 트랜잭션에서 읽기만 해서 채운다.
+ * 스냅샷이 없는 상품은 Item.stockQuantity 가 기준이다.
+ */
+@Component
+public class InventoryLedger {
+
+    private final EntityManager em;
+    private final TransactionTemplate readOnly;
+    private final boolean enabled;
+
+    private final Map<Long, AtomicInteger> counters = new ConcurrentHashMap<>();
+
+    public InventoryLedger(EntityManager em, PlatformTransactionManager transactionManager,
+                           @Value("${jpashop.inventory.ledger:false}") boolean enabled) {
+        this.em = em;
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 전체 상품의 카운터를 쿼리 한 번으로 채운다. 먼저 채워진 카운터(기동 직후의 주문)는 그대로 둔다.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (!enabled) {
+            return;
+        }
+        List<Object[]> rows = readOnly.execute(status -> em.createQuery(
+                        "select i.id, coalesce(s.quantity, i.stockQuantity)," +
+                                " (select coalesce(sum(m.quantity), 0) from InventoryMovement m where m.itemId = i.id)" +
+                                " from Item i left join InventorySnapshot s on s.itemId = i.id", Object[].class)
+                .getResultList());
+        for (Object[] row : rows) {
+            int available = ((Number) row[1]).intValue() + ((Number) row[2]).intValue();
+            counters.putIfAbsent((Long) row[0], new AtomicInteger(available));
+        }
+    }
+
+    /**
+     * 주문 - 가용 재고가 모자라면 NotEnoughStockException
+     */
+    public void reserve(Long itemId, Long orderId, int count) {
+        AtomicInteger available = counter(itemId);
+        int current;
+        do {
+            current = available.get();
+            if (current < count) {
+                throw new NotEnoughStockException("need more stock");
+            }
+        } while (!available.compareAndSet(current, current - count));
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    available.addAndGet(count);
+                }
+            }
+        });
+        em.persist(new InventoryMovement(itemId, orderId, -count));
+        if (committedAvailable(itemId) < 0) {
+            // 카운터가 DB 보다 많았다 - 다음 사용 때 다시 적재한다.
+            counters.remove(itemId, available);
+            throw new NotEnoughStockException("need more stock");
+        }
+    }
+
+    /**
+     * 취소 - 커밋된 뒤에 가용 재고로 돌아온다.
+     */
+    public void release(Long itemId, Long orderId, int count) {
+        append(itemId, orderId, count);
+    }
+
+    /**
+     * 재고 수정 - 커밋된 가용 재고(스냅샷 + 원장 합계)와의 차이를 원장에 남긴다.
+     * 카운터는 진행 중인 예약이 이미 빠져 있어서, 그 값으로 차이를 구하면 예약이 커밋될 때 한 번 더 빠진다.
+     * 호출한 쪽이 Item.stockQuantity 를 바꾸므로, 스냅샷이 없으면 바뀌기 전 값으로 같은 트랜잭션에서 만들어 둔다.
+     */
+    public void adjustTo(Long itemId, int quantity) {
+        counter(itemId);
+        if (em.find(InventorySnapshot.class, itemId) == null) {
+            em.persist(new InventorySnapshot(itemId, item(itemId).getStockQuantity()));
+        }
+        int delta = quantity - committedAvailable(itemId);
+        if (delta != 0) {
+            append(itemId, null, delta);
+        }
+    }
+
+    public int available(Long itemId) {
+        return counter(itemId).get();
+    }
+
+    private void append(Long itemId, Long orderId, int quantity) {
+        AtomicInteger available = counter(itemId);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                available.addAndGet(quantity);
+            }
+        });
+        em.persist(new InventoryMovement(itemId, orderId, quantity));
+    }
+
+    // 원장에 쓰기 전에 카운터를 먼저 만들어 두므로, 적재 시점에는 이 JVM 의 미커밋 이동이 없다.
+    // 적재(DB 조회)는 computeIfAbsent 밖에서 하고, 동시에 적재했으면 먼저 넣은 카운터를 쓴다.
+    private AtomicInteger counter(Long itemId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("재고 원장은 트랜잭션 안에서만 쓸 수 있습니다.");
+        }
+        AtomicInteger counter = counters.get(itemId);
+        if (counter != null) {
+            return counter;
+        }
+        AtomicInteger loaded = new AtomicInteger(committedAvailable(itemId));
+        counter = counters.putIfAbsent(itemId, loaded);
+        return counter == null ? loaded : counter;
+    }
+
+    /**
+     * 커밋된 원장 기준 가용 재고 + 현재 트랜잭션의 이동
+     * 스냅샷과 이동 합계를 한 문장으로 읽어, 그 사이에 compact 가 커밋되어도 어긋나지 않는다.
+     */
+    private int committedAvailable(Long itemId) {
+        List<Object[]> rows = em.createQuery(
+                        "select coalesce(s.quantity, i.stockQuantity)," +
+                                " (select coalesce(sum(m.quantity), 0) from InventoryMovement m where m.itemId = i.id)" +
+                                " from Item i left join InventorySnapshot s on s.itemId = i.id" +
+                                " where i.id = :itemId", Object[].class)
+                .setParameter("itemId", itemId)
+                .getResultList();
+        if (rows.isEmpty()) {
+            throw new IllegalArgumentException("상품이 없습니다: " + itemId);
+        }
+        return ((Number) rows.get(0)[0]).intValue() + ((Number) rows.get(0)[1]).intValue();
+    }
+
+    private Item item(Long itemId) {
+        Item item = em.find(Item.class, itemId);
+        if (item == null) {
+            throw new IllegalArgumentException("상품이 없습니다: " + itemId);
+        }
+        return item;
+    }
+}
@@ -0,0 +1,35 @@
+package jpabook.jpashop.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jpabook.jpashop.domain.OutboxEvent;
+import jpabook.jpashop.domain.OutboxEventType;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * 이벤트를 outbox_event 에 쓴다. 호출한 트랜잭션이 커밋되어야 전달되므로 트랜잭션 안에서만 호출한다.
+ */
+@Component
+@RequiredArgsConstructor
+public class Outbox {
+
+    private final EntityManager em;
+    private final ObjectMapper objectMapper;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publish(OutboxEventType eventType, Long aggregateId, Object payload) {
+        em.persist(new OutboxEvent(eventType, aggregateId, toJson(payload)));
+    }
+
+    private String toJson(Object payload) {
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("outbox payload 를 직렬화할 수 없습니다.", e);
+        }
+    }
+}
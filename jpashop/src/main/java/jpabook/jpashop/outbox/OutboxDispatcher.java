@@ -0,0 +1,187 @@
+package jpabook.jpashop.outbox;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import jpabook.jpashop.domain.OutboxEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.LockMode;
+import org.hibernate.query.Query;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * outbox_event 를 배치로 읽어 OutboxHandler 에 전달한다. (배치마다 한 트랜잭션)
+ * 읽을 때 row 를 잠그고(지원하는 DB 는 SKIP LOCKED), 전달한 이벤트는 같은 트랜잭션에서 지운다.
+ * handler 는 호출마다 새 트랜잭션(REQUIRES_NEW)에서 돈다. @Transactional handler 가 실패해도
+ * 배치 트랜잭션은 rollback-only 가 되지 않으므로 재시도/park 기록과 다른 이벤트의 삭제는 커밋된다.
+ * 커밋 전에 죽으면 다시 전달되므로 at-least-once 다.
+ *
+ * aggregate 별 순서: id 순으로 읽고, 앞 이벤트가 재시도 대기 중인 aggregate 의 이벤트는 읽지 않는다.
+ * 배치 안에서 실패하면 같은 aggregate 의 뒤 이벤트는 남겨 둔다.
+ * SKIP LOCKED 로 앞 이벤트를 건너뛸 수 있으므로 dispatcher 는 인스턴스마다 하나만 돈다. (여러 인스턴스면 aggregate 로 나눠야 한다)
+ *
+ * max-attempts 번 실패한 이벤트는 park 해서 더 읽지 않고, 같은 aggregate 의 뒤 이벤트도 막지 않는다.
+ */
+@Slf4j
+@Component
+public class OutboxDispatcher {
+
+    private final EntityManager em;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate handlerTransaction;
+    private final List<OutboxHandler> handlers;
+    private final boolean enabled;
+    private final int batchSize;
+    private final Duration baseBackoff;
+    private final Duration maxBackoff;
+    private final int maxAttempts;
+
+    private final Counter delivered;
+    private final Counter failed;
+    private final Counter parked;
+    private final Timer lag;
+    private final AtomicLong pending = new AtomicLong();
+    private final AtomicLong oldestAgeMillis = new AtomicLong();
+    private final AtomicLong parkedCount = new AtomicLong();
+
+    public OutboxDispatcher(EntityManager em, PlatformTransactionManager transactionManager, List<OutboxHandler> handlers,
+                            MeterRegistry meterRegistry,
+                            @Value("${jpashop.outbox.dispatch-enabled:true}") boolean enabled,
+                            @Value("${jpashop.outbox.batch-size:100}") int batchSize,
+                            @Value("${jpashop.outbox.base-backoff:1s}") Duration baseBackoff,
+                            @Value("${jpashop.outbox.max-backoff:5m}") Duration maxBackoff,
+                            @Value("${jpashop.outbox.max-attempts:10}") int maxAttempts) {
+        this.em = em;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.handlerTransaction = new TransactionTemplate(transactionManager);
+        this.handlerTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.handlers = handlers;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.baseBackoff = baseBackoff;
+        this.maxBackoff = maxBackoff;
+        this.maxAttempts = maxAttempts;
+        this.delivered = Counter.builder("outbox.events").tag("result", "delivered").register(meterRegistry);
+        this.failed = Counter.builder("outbox.events").tag("result", "failed").register(meterRegistry);
+        this.parked = Counter.builder("outbox.events").tag("result", "parked").register(meterRegistry);
+        // 커밋부터 전달까지가 아니라 insert 부터 전달까지 (트랜잭션 시간 포함)
+        this.lag = Timer.builder("outbox.delivery.lag").publishPercentiles(0.5, 0.95, 0.99).register(meterRegistry);
+        Gauge.builder("outbox.pending", pending, AtomicLong::get).register(meterRegistry);
+        Gauge.builder("outbox.oldest.age", oldestAgeMillis, a -> a.get() / 1000.0).baseUnit("seconds").register(meterRegistry);
+        Gauge.builder("outbox.parked", parkedCount, AtomicLong::get).register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${jpashop.outbox.poll-interval:PT0.5S}")
+    public void scheduled() {
+        if (enabled) {
+            dispatch();
+        }
+    }
+
+    /**
+     * @return 전달한 이벤트 수
+     */
+    public synchronized int dispatch() {
+        int total = 0;
+        Batch batch;
+        do {
+            batch = transactionTemplate.execute(status -> dispatchBatch());
+            total += batch.delivered();
+        } while (batch.claimed() == batchSize && batch.delivered() > 0);
+        refreshBacklog();
+        return total;
+    }
+
+    private Batch dispatchBatch() {
+        LocalDateTime now = LocalDateTime.now();
+        TypedQuery<OutboxEvent> query = em.createQuery(
+                        "select e from OutboxEvent e" +
+                                " where e.parkedAt is null and e.availableAt <= :now" +
+                                " and not exists (select p.id from OutboxEvent p" +
+                                " where p.aggregateType = e.aggregateType and p.aggregateId = e.aggregateId" +
+                                " and p.id < e.id and p.parkedAt is null and p.availableAt > :now)" +
+                                " order by e.id", OutboxEvent.class)
+                .setParameter("now", now)
+                .setMaxResults(batchSize);
+        // lock timeout 힌트(SKIP_LOCKED)는 JPA 락 모드에 붙지 않아 그냥 for update 로 나갈 수 있다 - Hibernate 락 모드로 건다.
+        query.unwrap(Query.class).setHibernateLockMode(LockMode.UPGRADE_SKIPLOCKED);
+        List<OutboxEvent> events = query.getResultList();
+        if (events.isEmpty()) {
+            return new Batch(0, 0);
+        }
+
+        List<Long> done = new ArrayList<>(events.size());
+        Set<String> blocked = new HashSet<>();
+        for (OutboxEvent event : events) {
+            String aggregate = event.getAggregateType() + ":" + event.getAggregateId();
+            if (blocked.contains(aggregate)) {
+                continue;
+            }
+            try {
+                for (OutboxHandler handler : handlers) {
+                    if (handler.supports(event)) {
+                        handlerTransaction.executeWithoutResult(status -> handler.handle(event));
+                    }
+                }
+                done.add(event.getId());
+                lag.record(Duration.between(event.getCreatedAt(), LocalDateTime.now()));
+            } catch (RuntimeException e) {
+                blocked.add(aggregate);
+                event.retryAt(LocalDateTime.now().plus(backoff(event.getAttempts() + 1)));
+                failed.increment();
+                if (event.getAttempts() >= maxAttempts) {
+                    event.park(LocalDateTime.now());
+                    parked.increment();
+                    log.error("outbox event {} ({} {}) parked after {} attempts: {}", event.getId(), event.getEventType(),
+                            event.getAggregateId(), event.getAttempts(), e.getMessage());
+                } else {
+                    log.warn("outbox event {} ({} {}) failed, attempt {}: {}", event.getId(), event.getEventType(),
+                            event.getAggregateId(), event.getAttempts(), e.getMessage());
+                }
+            }
+        }
+
+        if (!done.isEmpty()) {
+            em.createQuery("delete from OutboxEvent e where e.id in :ids")
+                    .setParameter("ids", done)
+                    .executeUpdate();
+            delivered.increment(done.size());
+        }
+        return new Batch(events.size(), done.size());
+    }
+
+    private Duration backoff(int attempt) {
+        long millis = baseBackoff.toMillis() << Math.min(attempt - 1, 20);
+        return Duration.ofMillis(Math.min(millis, maxBackoff.toMillis()));
+    }
+
+    // park 된 이벤트는 밀린 이벤트로 세지 않는다 (outbox.parked 로 따로 본다)
+    private void refreshBacklog() {
+        Object[] row = em.createQuery("select count(e), min(e.createdAt) from OutboxEvent e where e.parkedAt is null", Object[].class)
+                .getSingleResult();
+        pending.set((Long) row[0]);
+        LocalDateTime oldest = (LocalDateTime) row[1];
+        oldestAgeMillis.set(oldest == null ? 0 : Duration.between(oldest, LocalDateTime.now()).toMillis());
+        parkedCount.set(em.createQuery("select count(e) from OutboxEvent e where e.parkedAt is not null", Long.class)
+                .getSingleResult());
+    }
+
+    private record Batch(int claimed, int delivered) {
+    }
+}
@@ -0,0 +1,16 @@
+package jpabook.jpashop.outbox;
+
+import jpabook.jpashop.domain.OutboxEvent;
+
+/**
+ * outbox 이벤트 수신자 - 빈으로 등록하면 OutboxDispatcher 가 전달한다.
+ * 전달은 at-least-once 이므로 같은 이벤트(id)를 두 번 받아도 결과가 같아야 한다.
+ * 예외를 던지면 이벤트를 나중에 다시 전달하고, 그 동안 같은 aggregate 의 뒤 이벤트도 멈춘다.
+ * handler 마다 새 트랜잭션 안에서 호출되고, 예외를 던지면 그 트랜잭션만 롤백된다. (앞서 성공한 handler 도 재시도 때 다시 받는다)
+ */
+public interface OutboxHandler {
+
+    boolean supports(OutboxEvent event);
+
+    void handle(OutboxEvent event);
+}
@@ -0,0 +1,34 @@
+package jpabook.jpashop.repository;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * 컬렉션 fetch join 페이징
+ * 컬렉션을 fetch join 하면 SQL 로 페이징할 수 없어 Hibernate 가 전체를 읽고 메모리에서 자른다.
+ * 1) 검색 조건으로 루트 id 만 페이징해서 조회하고
+ * 2) 그 id 들에 대해서만 전체 그래프를 fetch join 으로 한 번에 조회한 뒤 1) 의 순서대로 정렬한다.
+ */
+public final class IdPagination {
+
+    private IdPagination() {
+    }
+
+    /**
+     * @param pageIds 1단계에서 페이징한 id (페이지 순서)
+     * @param fetcher id 목록 -> fetch join 조회 (in 절)
+     * @param idOf    엔티티 -> id
+     */
+    public static <T, ID> List<T> fetch(List<ID> pageIds, Function<List<ID>, List<T>> fetcher, Function<T, ID> idOf) {
+        if (pageIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<ID, Integer> position = new HashMap<>(pageIds.size() * 2);
+        for (int i = 0; i < pageIds.size(); i++) {
+            position.put(pageIds.get(i), i);
+        }
+        List<T> result = new ArrayList<>(fetcher.apply(pageIds));
+        result.sort(Comparator.comparingInt(e -> position.get(idOf.apply(e))));
+        return result;
+    }
+}
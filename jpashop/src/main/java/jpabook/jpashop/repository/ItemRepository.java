@@ -1,16 +1,22 @@
 package jpabook.jpashop.repository;
 
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
 import jpabook.jpashop.domain.item.Item;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Map;
 
 @Repository
 @RequiredArgsConstructor
 public class ItemRepository {
 
+    private static final String LOCK_TIMEOUT_HINT = "jakarta.persistence.lock.timeout";
+    // for update wait n 을 지원하지 않는 DB(H2 등)는 세션의 잠금 대기 시간을 쓴다.
+    private static final int LOCK_TIMEOUT_MILLIS = 2000;
+
     private final EntityManager em;
 
     public void save(Item item) {
@@ -25,6 +31,16 @@ public class ItemRepository {
         return em.find(Item.class, id);
     }
 
+    /**
+     * 재고 차감용 - select ... for update
+     * 여러 상품을 잠글 때는 id 오름차순으로 호출해야 교착 상태가 생기지 않는다.
+     */
+    public Item findOneForUpdate(Long id) {
+        // 같은 트랜잭션에서 저장만 하고 아직 insert 되지 않은 상품은 잠글 row 가 없다.
+        em.flush();
+        return em.find(Item.class, id, LockModeType.PESSIMISTIC_WRITE, Map.of(LOCK_TIMEOUT_HINT, LOCK_TIMEOUT_MILLIS));
+    }
+
     public List<Item> findAll() {
         return em.createQuery("select i from Item i", Item.class)
                 .getResultList();
@@ -0,0 +1,17 @@
+package jpabook.jpashop.repository;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * 상품 검색 결과 한 줄 - 점수가 높은 순
+ */
+@Data
+@AllArgsConstructor
+public class ItemSearchHit {
+    private Long itemId;
+    private String type; // Book, Album, Movie
+    private String name;
+    private int price;
+    private float score;
+}
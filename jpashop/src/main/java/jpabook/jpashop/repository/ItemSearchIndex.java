@@ -0,0 +1,221 @@
+package jpabook.jpashop.repository;
+
+import jpabook.jpashop.domain.item.Album;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.domain.item.Movie;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+
+/**
+ * 상품 전문 검색 인덱스 (메모리 역색인)
+ * 상품명, 저자/ISBN(Book), 아티스트(Album), 감독/배우(Movie) 를 토큰으로 나눠 토큰 -> (상품 id, 가중치) 로 보관한다.
+ * 점수는 tf-idf - 상품명에 나온 토큰은 NAME_WEIGHT 배, 마지막 검색어 토큰은 앞부분만 맞아도 된다. (입력 중 검색)
+ * 검색어 토큰이 모두 들어 있는 상품만 찾는다.
+ */
+@Component
+@RequiredArgsConstructor
+public class ItemSearchIndex {
+
+    private static final float NAME_WEIGHT = 2f;
+    private static final Pattern SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final ItemRepository itemRepository;
+
+    // 토큰 사전은 정렬해 두고 prefix 는 subMap 으로 찾는다.
+    private final NavigableMap<String, Map<Long, Float>> postings = new ConcurrentSkipListMap<>();
+    private final Map<Long, Doc> docs = new ConcurrentHashMap<>();
+
+    /**
+     * 기동 시 한 번 채운다. InitDb 가 실패하거나 꺼져 있어도 이미 있는 상품은 검색된다.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        rebuild();
+    }
+
+    /**
+     * 전체 재구성 (기동 시, InitDb 가 데이터를 넣은 뒤)
+     */
+    public synchronized void rebuild() {
+        postings.clear();
+        docs.clear();
+        for (Item item : itemRepository.findAll()) {
+            add(toDoc(item));
+        }
+    }
+
+    /**
+     * 상품 등록/수정 반영 - 트랜잭션 안이면 커밋 이후에 반영한다.
+     */
+    public void put(Item item) {
+        Doc doc = toDoc(item);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    replace(doc);
+                }
+            });
+            return;
+        }
+        replace(doc);
+    }
+
+    /**
+     * @param page 0 부터
+     */
+    public ItemSearchPage search(String query, int page, int size) {
+        List<String> tokens = tokenize(query);
+        if (tokens.isEmpty() || docs.isEmpty()) {
+            return new ItemSearchPage(0, page, size, List.of());
+        }
+
+        // 토큰마다 맞는 posting 목록, 맞는 상품이 적은 토큰부터 교집합을 좁힌다.
+        List<List<Map<Long, Float>>> matches = new ArrayList<>(tokens.size());
+        for (int i = 0; i < tokens.size(); i++) {
+            List<Map<Long, Float>> match = postingsOf(tokens.get(i), i == tokens.size() - 1);
+            if (match.isEmpty()) {
+                return new ItemSearchPage(0, page, size, List.of());
+            }
+            matches.add(match);
+        }
+        matches.sort(Comparator.comparingLong(ItemSearchIndex::postingSize));
+
+        Map<Long, Float> scores = new HashMap<>();
+        for (Map<Long, Float> posting : matches.get(0)) {
+            float idf = idf(posting);
+            posting.forEach((id, weight) -> scores.merge(id, idf * weight, Math::max));
+        }
+        // 이후 토큰은 남은 후보만 posting 에서 찾아본다. (큰 posting 을 통째로 복사하지 않는다)
+        for (int i = 1; i < matches.size() && !scores.isEmpty(); i++) {
+            List<Map<Long, Float>> match = matches.get(i);
+            Iterator<Map.Entry<Long, Float>> it = scores.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<Long, Float> entry = it.next();
+                float best = 0;
+                for (Map<Long, Float> posting : match) {
+                    Float weight = posting.get(entry.getKey());
+                    if (weight != null) {
+                        best = Math.max(best, idf(posting) * weight);
+                    }
+                }
+                if (best == 0) {
+                    it.remove();
+                } else {
+                    entry.setValue(entry.getValue() + best);
+                }
+            }
+        }
+
+        List<Map.Entry<Long, Float>> ranked = new ArrayList<>(scores.entrySet());
+        ranked.sort(Map.Entry.<Long, Float>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()));
+        List<ItemSearchHit> hits = new ArrayList<>(size);
+        // page * size 는 int 를 넘을 수 있다.
+        long offset = (long) page * size;
+        for (int i = (int) Math.min(offset, ranked.size()); i < ranked.size() && hits.size() < size; i++) {
+            Map.Entry<Long, Float> entry = ranked.get(i);
+            Doc doc = docs.get(entry.getKey());
+            if (doc != null) {
+                hits.add(new ItemSearchHit(doc.id(), doc.type(), doc.name(), doc.price(), entry.getValue()));
+            }
+        }
+        return new ItemSearchPage(ranked.size(), page, size, hits);
+    }
+
+    public int termCount() {
+        return postings.size();
+    }
+
+    /**
+     * 토큰 하나에 맞는 posting (prefix 면 그 토큰으로 시작하는 모든 토큰의 posting, 점수는 그중 가장 높은 것)
+     */
+    private List<Map<Long, Float>> postingsOf(String token, boolean prefix) {
+        if (prefix) {
+            return new ArrayList<>(postings.subMap(token, true, token + Character.MAX_VALUE, false).values());
+        }
+        Map<Long, Float> posting = postings.get(token);
+        return posting == null ? List.of() : List.of(posting);
+    }
+
+    private float idf(Map<Long, Float> posting) {
+        return (float) Math.log(1 + (double) docs.size() / Math.max(1, posting.size()));
+    }
+
+    private static long postingSize(List<Map<Long, Float>> match) {
+        long size = 0;
+        for (Map<Long, Float> posting : match) {
+            size += posting.size();
+        }
+        return size;
+    }
+
+    private synchronized void replace(Doc doc) {
+        Doc old = docs.remove(doc.id());
+        if (old != null) {
+            for (String term : old.weights().keySet()) {
+                postings.computeIfPresent(term, (k, posting) -> {
+                    posting.remove(doc.id());
+                    return posting.isEmpty() ? null : posting;
+                });
+            }
+        }
+        add(doc);
+    }
+
+    private void add(Doc doc) {
+        docs.put(doc.id(), doc);
+        doc.weights().forEach((term, weight) ->
+                postings.computeIfAbsent(term, k -> new ConcurrentHashMap<>()).put(doc.id(), weight));
+    }
+
+    private static Doc toDoc(Item item) {
+        Map<String, Float> weights = new HashMap<>();
+        addField(weights, item.getName(), NAME_WEIGHT);
+        String type = "Item";
+        if (item instanceof Book book) {
+            type = "Book";
+            addField(weights, book.getAuthor(), 1f);
+            addField(weights, book.getIsbn(), 1f);
+        } else if (item instanceof Album album) {
+            type = "Album";
+            addField(weights, album.getArtist(), 1f);
+        } else if (item instanceof Movie movie) {
+            type = "Movie";
+            addField(weights, movie.getDirector(), 1f);
+            addField(weights, movie.getActor(), 1f);
+        }
+        return new Doc(item.getId(), type, item.getName(), item.getPrice(), weights);
+    }
+
+    private static void addField(Map<String, Float> weights, String value, float weight) {
+        for (String token : tokenize(value)) {
+            weights.merge(token, weight, Float::sum);
+        }
+    }
+
+    private static List<String> tokenize(String s) {
+        if (s == null) {
+            return List.of();
+        }
+        List<String> tokens = new ArrayList<>();
+        for (String token : SEPARATOR.split(s.toLowerCase(Locale.ROOT))) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    private record Doc(Long id, String type, String name, int price, Map<String, Float> weights) {
+    }
+}
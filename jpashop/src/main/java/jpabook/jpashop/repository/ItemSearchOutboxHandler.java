@@ -0,0 +1,32 @@
+package jpabook.jpashop.repository;
+
+import jpabook.jpashop.domain.OutboxEvent;
+import jpabook.jpashop.domain.OutboxEventType;
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.outbox.OutboxHandler;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * 상품 등록/수정 이벤트가 전달되면 커밋된 상품을 다시 읽어 검색 인덱스에 반영한다.
+ */
+@Component
+@RequiredArgsConstructor
+public class ItemSearchOutboxHandler implements OutboxHandler {
+
+    private final ItemRepository itemRepository;
+    private final ItemSearchIndex itemSearchIndex;
+
+    @Override
+    public boolean supports(OutboxEvent event) {
+        return event.getEventType() == OutboxEventType.ITEM_CREATED || event.getEventType() == OutboxEventType.ITEM_UPDATED;
+    }
+
+    @Override
+    public void handle(OutboxEvent event) {
+        Item item = itemRepository.findOne(event.getAggregateId());
+        if (item != null) {
+            itemSearchIndex.put(item);
+        }
+    }
+}
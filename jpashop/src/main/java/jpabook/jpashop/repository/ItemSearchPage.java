@@ -0,0 +1,18 @@
+package jpabook.jpashop.repository;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * total 은 검색어에 맞는 전체 상품 수
+ */
+@Data
+@AllArgsConstructor
+public class ItemSearchPage {
+    private int total;
+    private int page;
+    private int size;
+    private List<ItemSearchHit> hits;
+}
@@ -0,0 +1,193 @@
+package jpabook.jpashop.repository;
+
+import jpabook.jpashop.domain.Member;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 회원 이름 trigram 인덱스
+ * like '%name%' 대신 부분 문자열 -> 회원 id 후보를 메모리에서 찾고, 주문 조회는 member_id in (...) 으로 한다.
+ * trigram 은 문자 3개를 long 하나로 묶은 키, posting 은 정렬된 long[] 로 보관한다.
+ * like 와 같이 대소문자를 구분한다.
+ * 3글자 미만 검색어는 trigram 을 쓸 수 없어 전체 이름을 훑는다.
+ * 첫 재구성(rebuild)이 끝나기 전에는 인덱스가 비어 있으므로 DB 에서 찾는다.
+ * 결과는 어느 경로든 id 가 작은 순서로 최대 LIMIT 명 (주문 검색의 member_id in (...) 크기 제한)
+ */
+@Component
+@RequiredArgsConstructor
+public class MemberNameIndex {
+
+    private static final int GRAM = 3;
+    private static final int LIMIT = 1000;
+
+    private final MemberRepository memberRepository;
+
+    private volatile Map<Long, long[]> postings = new ConcurrentHashMap<>();
+    private volatile Map<Long, String> names = new ConcurrentHashMap<>();
+    private volatile boolean built = false;
+
+    /**
+     * 전체 재구성 (기동 시 InitDb 에서 호출)
+     * 새 맵에 다 채운 뒤 바꿔 끼우므로, 재구성 중에도 조회는 이전 인덱스를 본다.
+     */
+    public synchronized void rebuild() {
+        Map<Long, long[]> newPostings = new ConcurrentHashMap<>();
+        Map<Long, String> newNames = new ConcurrentHashMap<>();
+        for (Member member : memberRepository.findAll()) {
+            add(newPostings, newNames, member.getId(), member.getName());
+        }
+        postings = newPostings;
+        names = newNames;
+        built = true;
+    }
+
+    /**
+     * 회원 가입/이름 변경 반영 - 트랜잭션 안이면 커밋 이후에 반영한다.
+     */
+    public void put(Long memberId, String name) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    replace(memberId, name);
+                }
+            });
+            return;
+        }
+        replace(memberId, name);
+    }
+
+    /**
+     * 이름에 query 가 포함된 회원 id (id 오름차순, 최대 LIMIT 명)
+     */
+    public Set<Long> findMemberIds(String query) {
+        if (!built) {
+            return new TreeSet<>(memberRepository.findIdsByNameContaining(query, PageRequest.of(0, LIMIT)));
+        }
+        Map<Long, long[]> postings = this.postings;
+        Map<Long, String> names = this.names;
+        Set<Long> result = new TreeSet<>();
+        if (query.length() < GRAM) {
+            // 맵 순서와 상관없이 id 가 작은 LIMIT 명 (큰 id 부터 빠지는 heap)
+            PriorityQueue<Long> lowest = new PriorityQueue<>(Comparator.reverseOrder());
+            for (Map.Entry<Long, String> entry : names.entrySet()) {
+                if (entry.getValue().contains(query)) {
+                    lowest.add(entry.getKey());
+                    if (lowest.size() > LIMIT) {
+                        lowest.poll();
+                    }
+                }
+            }
+            result.addAll(lowest);
+            return result;
+        }
+
+        long[] candidates = null;
+        for (long gram : grams(query)) {
+            long[] ids = postings.get(gram);
+            if (ids == null) {
+                return result;
+            }
+            candidates = candidates == null ? ids : intersect(candidates, ids);
+            if (candidates.length == 0) {
+                return result;
+            }
+        }
+        // trigram 이 모두 들어 있어도 연속된 부분 문자열이 아닐 수 있으므로 다시 확인 (posting 은 id 오름차순)
+        for (long id : candidates) {
+            String name = names.get(id);
+            if (name != null && name.contains(query)) {
+                result.add(id);
+                if (result.size() >= LIMIT) {
+                    break;
+                }
+            }
+        }
+        return result;
+    }
+
+    public int gramCount() {
+        return postings.size();
+    }
+
+    private synchronized void replace(Long memberId, String name) {
+        Map<Long, long[]> postings = this.postings;
+        Map<Long, String> names = this.names;
+        String old = names.get(memberId);
+        if (old != null) {
+            for (long gram : grams(old)) {
+                postings.computeIfPresent(gram, (k, ids) -> {
+                    long[] removed = remove(ids, memberId);
+                    return removed.length == 0 ? null : removed;
+                });
+            }
+            names.remove(memberId);
+        }
+        add(postings, names, memberId, name);
+    }
+
+    private static void add(Map<Long, long[]> postings, Map<Long, String> names, Long memberId, String name) {
+        if (memberId == null || name == null) {
+            return;
+        }
+        names.put(memberId, name);
+        for (long gram : grams(name)) {
+            postings.merge(gram, new long[]{memberId}, (ids, one) -> insert(ids, memberId));
+        }
+    }
+
+    private static Set<Long> grams(String s) {
+        Set<Long> grams = new HashSet<>();
+        for (int i = 0; i + GRAM <= s.length(); i++) {
+            grams.add(((long) s.charAt(i) << 32) | ((long) s.charAt(i + 1) << 16) | s.charAt(i + 2));
+        }
+        return grams;
+    }
+
+    private static long[] insert(long[] ids, long id) {
+        int pos = Arrays.binarySearch(ids, id);
+        if (pos >= 0) {
+            return ids;
+        }
+        int at = -pos - 1;
+        long[] result = new long[ids.length + 1];
+        System.arraycopy(ids, 0, result, 0, at);
+        result[at] = id;
+        System.arraycopy(ids, at, result, at + 1, ids.length - at);
+        return result;
+    }
+
+    private static long[] remove(long[] ids, long id) {
+        int pos = Arrays.binarySearch(ids, id);
+        if (pos < 0) {
+            return ids;
+        }
+        long[] result = new long[ids.length - 1];
+        System.arraycopy(ids, 0, result, 0, pos);
+        System.arraycopy(ids, pos + 1, result, pos, ids.length - pos - 1);
+        return result;
+    }
+
+    private static long[] intersect(long[] a, long[] b) {
+        long[] result = new long[Math.min(a.length, b.length)];
+        int i = 0, j = 0, n = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                result[n++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, n);
+    }
+}
@@ -1,7 +1,10 @@
 package jpabook.jpashop.repository;
 
 import jpabook.jpashop.domain.Member;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 
@@ -10,4 +13,8 @@ public interface MemberRepository extends JpaRepository<Member, Long> {
     
     //select m from Member m where m.name = ? <- JPQL 생성
     List<Member> findByName(String name);
+
+    //이름에 name 이 포함된 회원 id (MemberNameIndex 재구성 전)
+    @Query("select m.id from Member m where locate(:name, m.name) > 0 order by m.id")
+    List<Long> findIdsByNameContaining(@Param("name") String name, Pageable pageable);
 }
@@ -1,18 +1,27 @@
 package jpabook.jpashop.repository;
 
+import com.querydsl.core.types.Predicate;
 import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.TypedQuery;
-import jakarta.persistence.criteria.*;
+import jpabook.jpashop.archive.OrderBuckets;
+import jpabook.jpashop.domain.ArchivedOrder;
 import jpabook.jpashop.domain.Order;
 import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.fetchplan.FetchPlanContext;
 import org.springframework.stereotype.Repository;
 import org.springframework.util.StringUtils;
 
+import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Set;
+import java.util.StringJoiner;
 
+import static jpabook.jpashop.domain.QArchivedOrder.archivedOrder;
 import static jpabook.jpashop.domain.QMember.member;
 import static jpabook.jpashop.domain.QOrder.order;
 
@@ -21,10 +30,17 @@ public class OrderRepository {
 
     private final EntityManager em;
     private final JPAQueryFactory query;
+    private final MemberNameIndex memberNameIndex;
+    private final OrderSearchTemplates searchTemplates;
+    private final OrderBuckets orderBuckets;
 
-    public OrderRepository(EntityManager em) {
+    public OrderRepository(EntityManager em, MemberNameIndex memberNameIndex, OrderSearchTemplates searchTemplates,
+                           OrderBuckets orderBuckets) {
         this.em = em;
         this.query = new JPAQueryFactory(em);
+        this.memberNameIndex = memberNameIndex;
+        this.searchTemplates = searchTemplates;
+        this.orderBuckets = orderBuckets;
     }
 
     public void save(Order order) {
@@ -36,70 +52,65 @@ public class OrderRepository {
     }
 
     public List<Order> findAllString(OrderSearch orderSearch) {
-
-        String jpql = "select o from Order o join o.member m";
-
-        boolean isFirstCondition = true;
+        StringJoiner where = new StringJoiner(" and ", " where ", "").setEmptyValue("");
         //주문 상태 검색
         if (orderSearch.getOrderStatus() != null) {
-            if (isFirstCondition) {
-                jpql += " where";
-                isFirstCondition = false;
-            } else {
-                jpql += " and";
-            }
-            jpql += " o.status = :status";
+            where.add("o.status = :status");
         }
-        //회원 이름 검색
+        //회원 이름 검색 - trigram 인덱스로 찾은 회원 id로 조회
+        Set<Long> memberIds = null;
         if (StringUtils.hasText(orderSearch.getMemberName())) {
-            if (isFirstCondition) {
-                jpql += " where";
-                isFirstCondition = false;
-            } else {
-                jpql += " and";
+            memberIds = memberNameIndex.findMemberIds(orderSearch.getMemberName());
+            if (memberIds.isEmpty()) {
+                return new ArrayList<>();
             }
-            jpql += " m.name like :name";
+            where.add("o.member.id in :memberIds");
+        }
+        //주문일 검색
+        LocalDateTime from = orderSearch.orderDateLowerBound();
+        LocalDateTime to = orderSearch.orderDateUpperBound();
+        if (from != null) {
+            where.add("o.orderDate >= :from");
+        }
+        if (to != null) {
+            where.add("o.orderDate < :to");
         }
 
-        TypedQuery<Order> query = em.createQuery(jpql, Order.class)
-                .setMaxResults(1000);
-
+        TypedQuery<Order> query = em.createQuery("select o from Order o join o.member m" + where, Order.class)
+                .setMaxResults(1000); //최대 1000 건
         if (orderSearch.getOrderStatus() != null) {
-            query = query.setParameter("status", orderSearch.getOrderStatus());
+            query.setParameter("status", orderSearch.getOrderStatus());
         }
-        if (StringUtils.hasText(orderSearch.getMemberName())) {
-            query = query.setParameter("name", orderSearch.getMemberName());
+        if (memberIds != null) {
+            query.setParameter("memberIds", memberIds);
         }
-
-        return query.getResultList();
+        if (from != null) {
+            query.setParameter("from", from);
+        }
+        if (to != null) {
+            query.setParameter("to", to);
+        }
+        //fetch plan 이 선언돼 있으면 그 entity graph 로 연관관계를 같이 조회
+        return FetchPlanContext.applyTo(query, Order.class).getResultList();
     }
 
     /**
-     * JPA Criteria
+     * JPA Criteria - 검색 조건 shape 별로 한 번 렌더링해 둔 Criteria 템플릿에 파라미터만 바인딩 (OrderSearchTemplates)
      */
     public List<Order> findAllByCriteria(OrderSearch orderSearch) {
-        CriteriaBuilder cb = em.getCriteriaBuilder();
-        CriteriaQuery<Order> cq = cb.createQuery(Order.class);
-        Root<Order> o = cq.from(Order.class);
-        Join<Object, Object> m = o.join("member", JoinType.INNER);
-
-        List<Predicate> criteria = new ArrayList<>();
-
-        //주문 상태 검색
-        if (orderSearch.getOrderStatus() != null) {
-            Predicate status = cb.equal(o.get("status"), orderSearch.getOrderStatus());
-            criteria.add(status);
-        }
-        //회원 이름 검색
+        //회원 이름 검색 - trigram 인덱스로 찾은 회원 id로 조회
+        Set<Long> memberIds = null;
         if (StringUtils.hasText(orderSearch.getMemberName())) {
-            Predicate name =
-                    cb.like(m.<String>get("name"), "%" + orderSearch.getMemberName()
-                            + "%");
-            criteria.add(name);
+            memberIds = memberNameIndex.findMemberIds(orderSearch.getMemberName());
+            if (memberIds.isEmpty()) {
+                return new ArrayList<>();
+            }
         }
-        cq.where(cb.and(criteria.toArray(new Predicate[criteria.size()])));
-        TypedQuery<Order> query = em.createQuery(cq).setMaxResults(1000); //최대 1000 건
-        return query.getResultList();
+        TypedQuery<Order> query = searchTemplates.create(em, orderSearch.getOrderStatus(), memberIds,
+                        orderSearch.orderDateLowerBound(), orderSearch.orderDateUpperBound())
+                .setMaxResults(1000); //최대 1000 건
+        //fetch plan 이 선언돼 있으면 그 entity graph 로 연관관계를 같이 조회
+        return FetchPlanContext.applyTo(query, Order.class).getResultList();
     }
 
     public List<Order> findAllWithMemberDelivery() {
@@ -127,24 +138,120 @@ public class OrderRepository {
                 .getResultList();
     }
 
+    /**
+     * 주문 + 회원, 배송, 주문상품, 상품 전체를 페이지 단위로 조회 (쿼리 2번: id 페이지, fetch join)
+     * 한 페이지는 최대 1000 건, 음수 offset 은 0 으로 본다.
+     */
+    public List<Order> findAllWithItem(OrderSearch orderSearch, int offset, int limit) {
+        BooleanExpression memberIn = null;
+        if (StringUtils.hasText(orderSearch.getMemberName())) {
+            Set<Long> memberIds = memberNameIndex.findMemberIds(orderSearch.getMemberName());
+            if (memberIds.isEmpty()) {
+                return new ArrayList<>();
+            }
+            memberIn = order.member.id.in(memberIds);
+        }
+        List<Long> ids = query
+                .select(order.id)
+                .from(order)
+                .where(statusEq(orderSearch.getOrderStatus()), memberIn, orderDateBetween(orderSearch))
+                .orderBy(order.id.asc())
+                .offset(Math.max(0, offset))
+                .limit(Math.max(1, Math.min(limit, 1000)))
+                .fetch();
+        return IdPagination.fetch(ids, this::findAllWithItem, Order::getId);
+    }
+
+    /**
+     * findAllWithItem(orderSearch, offset, limit) 과 같은 조건의 주문 수
+     */
+    public long count(OrderSearch orderSearch) {
+        BooleanExpression memberIn = null;
+        if (StringUtils.hasText(orderSearch.getMemberName())) {
+            Set<Long> memberIds = memberNameIndex.findMemberIds(orderSearch.getMemberName());
+            if (memberIds.isEmpty()) {
+                return 0;
+            }
+            memberIn = order.member.id.in(memberIds);
+        }
+        Long count = query
+                .select(order.count())
+                .from(order)
+                .where(statusEq(orderSearch.getOrderStatus()), memberIn, orderDateBetween(orderSearch))
+                .fetchOne();
+        return count == null ? 0 : count;
+    }
+
+    private List<Order> findAllWithItem(List<Long> ids) {
+        return em.createQuery(
+                        "select o from Order o" +
+                                " join fetch o.member m" +
+                                " join fetch o.delivery d" +
+                                " left join fetch o.orderItems oi" +
+                                " left join fetch oi.item i" +
+                                " where o.id in :ids", Order.class)
+                .setParameter("ids", ids)
+                .getResultList();
+    }
+
     public List<Order> findAll(OrderSearch orderSearch) {
         return query
                 .select(order)
                 .from(order)
                 .join(order.member, member)
-                .where(statusEq(orderSearch.getOrderStatus()), nameLike(orderSearch.getMemberName()))
+                .where(statusEq(orderSearch.getOrderStatus()), memberNameIn(orderSearch.getMemberName(), memberNameIndex),
+                        orderDateBetween(orderSearch))
                 .limit(1000)
                 .fetch();
     }
 
-    private static BooleanExpression nameLike(String memberName) {
-        if (StringUtils.hasText(memberName)) {
+    /**
+     * 보관된 주문 검색 - 주문일 범위와 겹치는 월 버킷만 읽는다. (범위가 없으면 전체 버킷)
+     * 버킷이 여러 개면 버킷마다 동시에 조회해서 최근 주문부터 합친다. (최대 1000 건)
+     */
+    public List<ArchivedOrder> findArchived(OrderSearch orderSearch) {
+        BooleanExpression memberIn = null;
+        if (StringUtils.hasText(orderSearch.getMemberName())) {
+            Set<Long> memberIds = memberNameIndex.findMemberIds(orderSearch.getMemberName());
+            if (memberIds.isEmpty()) {
+                return new ArrayList<>();
+            }
+            memberIn = archivedOrder.memberId.in(memberIds);
+        }
+        LocalDateTime from = orderSearch.orderDateLowerBound();
+        LocalDateTime to = orderSearch.orderDateUpperBound();
+        Predicate[] where = {
+                memberIn,
+                orderSearch.getOrderStatus() == null ? null : archivedOrder.status.eq(orderSearch.getOrderStatus()),
+                from == null ? null : archivedOrder.orderDate.goe(from),
+                to == null ? null : archivedOrder.orderDate.lt(to)
+        };
+
+        List<YearMonth> buckets = orderBuckets.between(orderSearch.getOrderDateFrom(), orderSearch.getOrderDateTo());
+        List<ArchivedOrder> result = orderBuckets.fanOut(buckets, () -> query
+                .selectFrom(archivedOrder)
+                .where(where)
+                .orderBy(archivedOrder.orderDate.desc(), archivedOrder.id.desc())
+                .limit(1000)
+                .fetch());
+        result.sort(Comparator.comparing(ArchivedOrder::getOrderDate).thenComparing(ArchivedOrder::getId).reversed());
+        return result.size() > 1000 ? new ArrayList<>(result.subList(0, 1000)) : result;
+    }
+
+    public static BooleanExpression memberNameIn(String memberName, MemberNameIndex memberNameIndex) {
+        if (!StringUtils.hasText(memberName)) {
             return null;
         }
-        return member.name.like(memberName);
+        return order.member.id.in(memberNameIndex.findMemberIds(memberName));
+    }
+
+    public static BooleanExpression orderDateBetween(OrderSearch orderSearch) {
+        BooleanExpression from = orderSearch.orderDateLowerBound() == null ? null : order.orderDate.goe(orderSearch.orderDateLowerBound());
+        BooleanExpression to = orderSearch.orderDateUpperBound() == null ? null : order.orderDate.lt(orderSearch.orderDateUpperBound());
+        return from == null ? to : from.and(to);
     }
 
-    private BooleanExpression statusEq(OrderStatus statusCond) {
+    public static BooleanExpression statusEq(OrderStatus statusCond) {
         if (statusCond == null) {
             return null;
         }
@@ -3,6 +3,10 @@ package jpabook.jpashop.repository;
 import jpabook.jpashop.domain.OrderStatus;
 import lombok.Getter;
 import lombok.Setter;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 
 @Getter
 @Setter
@@ -10,4 +14,18 @@ public class OrderSearch {
 
     private String memberName;
     private OrderStatus orderStatus; //주문 상태[ORDER, CANCEL]
+
+    //주문일 범위 (날짜 포함), 보관 주문 검색은 이 범위의 월 버킷만 읽는다.
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate orderDateFrom;
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate orderDateTo;
+
+    public LocalDateTime orderDateLowerBound() {
+        return orderDateFrom == null ? null : orderDateFrom.atStartOfDay();
+    }
+
+    public LocalDateTime orderDateUpperBound() {
+        return orderDateTo == null ? null : orderDateTo.plusDays(1).atStartOfDay();
+    }
 }
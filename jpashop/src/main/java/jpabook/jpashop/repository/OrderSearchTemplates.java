@@ -0,0 +1,128 @@
+package jpabook.jpashop.repository;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderStatus;
+import org.hibernate.query.sqm.tree.select.SqmSelectStatement;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 주문 검색 Criteria 템플릿
+ * 값이 있는 검색 조건의 조합(shape)마다 Criteria 트리를 한 번만 만들어 HQL 로 렌더링해 두고,
+ * 호출 시에는 그 문자열로 쿼리를 만들어 파라미터만 바인딩한다.
+ * 같은 HQL 문자열이므로 Hibernate 쿼리 해석(plan) 캐시도 재사용된다.
+ */
+@Component
+public class OrderSearchTemplates implements MeterBinder {
+
+    private static final int STATUS = 1;
+    private static final int MEMBER = 1 << 1;
+    private static final int FROM = 1 << 2;
+    private static final int TO = 1 << 3;
+
+    private final Map<Integer, String> templates = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("order.search.template", hits, LongAdder::sum)
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("order.search.template", misses, LongAdder::sum)
+                .tag("result", "miss")
+                .register(registry);
+        Gauge.builder("order.search.template.hit.rate", this, OrderSearchTemplates::hitRate)
+                .register(registry);
+        Gauge.builder("order.search.template.shapes", templates, Map::size)
+                .register(registry);
+    }
+
+    /**
+     * @param status    null 이면 조건 없음
+     * @param memberIds null 이면 조건 없음
+     * @param from      주문일시 하한(포함), null 이면 조건 없음
+     * @param to        주문일시 상한(미포함), null 이면 조건 없음
+     */
+    public TypedQuery<Order> create(EntityManager em, OrderStatus status, Collection<Long> memberIds,
+                                    LocalDateTime from, LocalDateTime to) {
+        int shape = (status != null ? STATUS : 0) | (memberIds != null ? MEMBER : 0)
+                | (from != null ? FROM : 0) | (to != null ? TO : 0);
+
+        String hql = templates.get(shape);
+        if (hql == null) {
+            misses.increment();
+            hql = templates.computeIfAbsent(shape, s -> compile(em.getCriteriaBuilder(), s));
+        } else {
+            hits.increment();
+        }
+
+        TypedQuery<Order> query = em.createQuery(hql, Order.class);
+        if (status != null) {
+            query.setParameter("status", status);
+        }
+        if (memberIds != null) {
+            query.setParameter("memberIds", memberIds);
+        }
+        if (from != null) {
+            query.setParameter("from", from);
+        }
+        if (to != null) {
+            query.setParameter("to", to);
+        }
+        return query;
+    }
+
+    public double hitRate() {
+        long hit = hits.sum();
+        long total = hit + misses.sum();
+        return total == 0 ? 0 : (double) hit / total;
+    }
+
+    /**
+     * 값 대신 이름 있는 파라미터로 Criteria 트리를 만들고 HQL 로 렌더링
+     */
+    static String compile(CriteriaBuilder cb, int shape) {
+        CriteriaQuery<Order> cq = cb.createQuery(Order.class);
+        Root<Order> o = cq.from(Order.class);
+        o.alias("o");
+        Join<Order, Member> m = o.join("member", JoinType.INNER);
+        m.alias("m");
+
+        List<Predicate> criteria = new ArrayList<>();
+        if ((shape & STATUS) != 0) {
+            criteria.add(cb.equal(o.get("status"), cb.parameter(OrderStatus.class, "status")));
+        }
+        if ((shape & MEMBER) != 0) {
+            criteria.add(m.get("id").in(cb.parameter(Collection.class, "memberIds")));
+        }
+        if ((shape & FROM) != 0) {
+            criteria.add(cb.greaterThanOrEqualTo(o.<LocalDateTime>get("orderDate"), cb.parameter(LocalDateTime.class, "from")));
+        }
+        if ((shape & TO) != 0) {
+            criteria.add(cb.lessThan(o.<LocalDateTime>get("orderDate"), cb.parameter(LocalDateTime.class, "to")));
+        }
+        cq.select(o).where(criteria.toArray(new Predicate[0]));
+        return ((SqmSelectStatement<Order>) cq).toHqlString();
+    }
+}
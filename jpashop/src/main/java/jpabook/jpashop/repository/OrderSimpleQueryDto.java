@@ -2,6 +2,7 @@ package jpabook.jpashop.repository;
 
 import jpabook.jpashop.domain.Address;
 import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.intern.Canonical;
 import lombok.Data;
 
 import java.time.LocalDateTime;
@@ -19,6 +20,6 @@ public class OrderSimpleQueryDto {
         this.name = name; // LAZY 초기화
         this.orderDate = orderDate;
         this.orderStatus = orderStatus;
-        this.address = address; // LAZY 초기화
+        this.address = Canonical.address(address);
     }
 }
@@ -0,0 +1,35 @@
+package jpabook.jpashop.repository.order.query;
+
+import jpabook.jpashop.exception.InvalidCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * 회원 주문 이력 keyset - 이전 페이지 마지막 주문의 (orderDate, orderId)
+ * 클라이언트에는 base64url 문자열로 주고받는다.
+ */
+public record MemberOrderCursor(LocalDateTime orderDate, Long orderId) {
+
+    public String encode() {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((orderDate + "_" + orderId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 없으면 첫 페이지 (null)
+     */
+    public static MemberOrderCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int at = value.lastIndexOf('_');
+            return new MemberOrderCursor(LocalDateTime.parse(value.substring(0, at)), Long.valueOf(value.substring(at + 1)));
+        } catch (RuntimeException e) {
+            throw new InvalidCursorException("잘못된 cursor 입니다: " + cursor);
+        }
+    }
+}
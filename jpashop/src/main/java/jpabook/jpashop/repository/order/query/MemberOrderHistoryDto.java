@@ -0,0 +1,26 @@
+package jpabook.jpashop.repository.order.query;
+
+import jpabook.jpashop.domain.OrderStatus;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 회원 주문 이력 한 줄 - 주문상품은 싣지 않고 상품 수, 합계만
+ */
+@Data
+public class MemberOrderHistoryDto {
+    private Long orderId;
+    private LocalDateTime orderDate;
+    private OrderStatus orderStatus;
+    private long itemCount;
+    private long totalPrice;
+
+    public MemberOrderHistoryDto(Long orderId, LocalDateTime orderDate, OrderStatus orderStatus, long itemCount, long totalPrice) {
+        this.orderId = orderId;
+        this.orderDate = orderDate;
+        this.orderStatus = orderStatus;
+        this.itemCount = itemCount;
+        this.totalPrice = totalPrice;
+    }
+}
@@ -0,0 +1,16 @@
+package jpabook.jpashop.repository.order.query;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * next 가 null 이면 마지막 페이지
+ */
+@Data
+@AllArgsConstructor
+public class MemberOrderHistoryPage {
+    private List<MemberOrderHistoryDto> orders;
+    private String next;
+}
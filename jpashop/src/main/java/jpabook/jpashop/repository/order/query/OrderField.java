@@ -0,0 +1,38 @@
+package jpabook.jpashop.repository.order.query;
+
+import jpabook.jpashop.exception.InvalidFieldsException;
+import org.springframework.util.StringUtils;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * 주문 API 에서 fields= 로 고를 수 있는 필드 (이름은 OrderQueryDto 속성과 같다)
+ */
+public enum OrderField {
+    orderId,
+    name,           // member 조인
+    orderDate,
+    orderStatus,
+    address,        // delivery 조인
+    totalPrice,     // order_item 합계
+    orderItems;     // order_item, item 별도 조회
+
+    /**
+     * "orderId,orderStatus,totalPrice" -> EnumSet, 비어 있으면 null
+     */
+    public static Set<OrderField> parse(String fields) {
+        if (!StringUtils.hasText(fields)) {
+            return null;
+        }
+        Set<OrderField> result = EnumSet.noneOf(OrderField.class);
+        for (String field : StringUtils.commaDelimitedListToStringArray(fields)) {
+            try {
+                result.add(OrderField.valueOf(field.trim()));
+            } catch (IllegalArgumentException e) {
+                throw new InvalidFieldsException("알 수 없는 필드입니다: " + field);
+            }
+        }
+        return result;
+    }
+}
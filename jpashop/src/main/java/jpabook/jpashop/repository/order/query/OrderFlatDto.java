@@ -2,6 +2,7 @@ package jpabook.jpashop.repository.order.query;
 
 import jpabook.jpashop.domain.Address;
 import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.intern.Canonical;
 import lombok.Data;
 
 import java.time.LocalDateTime;
@@ -22,8 +23,8 @@ public class OrderFlatDto {
         this.name = name;
         this.orderDate = orderDate;
         this.orderStatus = orderStatus;
-        this.address = address;
-        this.itemName = itemName;
+        this.address = Canonical.address(address);
+        this.itemName = Canonical.string(itemName);
         this.orderPrice = orderPrice;
         this.count = count;
     }
@@ -1,6 +1,7 @@
 package jpabook.jpashop.repository.order.query;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import jpabook.jpashop.intern.Canonical;
 import lombok.Data;
 
 @Data
@@ -13,7 +14,7 @@ public class OrderItemQueryDto {
 
     public OrderItemQueryDto(Long orderId, String itemName, int orderPrice, int count) {
         this.orderId = orderId;
-        this.itemName = itemName;
+        this.itemName = Canonical.string(itemName);
         this.orderPrice = orderPrice;
         this.count = count;
     }
@@ -0,0 +1,41 @@
+package jpabook.jpashop.repository.order.query;
+
+import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.intern.Canonical;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 주문 목록 화면 한 줄 - 대표상품(첫 번째 주문상품)까지 한 번에 조회
+ */
+@Data
+public class OrderListRowDto {
+    private Long id;
+    private Long version;
+    private String memberName;
+    private String itemName;
+    private int orderPrice;
+    private int count;
+    private OrderStatus status;
+    private LocalDateTime orderDate;
+    private boolean archived; // 보관된 주문 - 취소할 수 없다
+
+    public OrderListRowDto(Long id, Long version, String memberName, String itemName,
+                           int orderPrice, int count, OrderStatus status, LocalDateTime orderDate) {
+        this(id, version, memberName, itemName, orderPrice, count, status, orderDate, false);
+    }
+
+    public OrderListRowDto(Long id, Long version, String memberName, String itemName,
+                           int orderPrice, int count, OrderStatus status, LocalDateTime orderDate, boolean archived) {
+        this.id = id;
+        this.version = version;
+        this.memberName = memberName;
+        this.itemName = Canonical.string(itemName);
+        this.orderPrice = orderPrice;
+        this.count = count;
+        this.status = status;
+        this.orderDate = orderDate;
+        this.archived = archived;
+    }
+}
@@ -2,6 +2,7 @@ package jpabook.jpashop.repository.order.query;
 
 import jpabook.jpashop.domain.Address;
 import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.intern.Canonical;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 
@@ -23,7 +24,7 @@ public class OrderQueryDto {
         this.name = name;
         this.orderDate = orderDate;
         this.orderStatus = orderStatus;
-        this.address = address;
+        this.address = Canonical.address(address);
     }
 
 
@@ -33,7 +34,7 @@ public class OrderQueryDto {
         this.name = name;
         this.orderDate = orderDate;
         this.orderStatus = orderStatus;
-        this.address = address;
+        this.address = Canonical.address(address);
         this.orderItems = orderItems;
     }
 }
@@ -1,18 +1,56 @@
 package jpabook.jpashop.repository.order.query;
 
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.Projections;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.NumberExpression;
+import com.querydsl.jpa.JPAExpressions;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
 import jakarta.persistence.EntityManager;
-import lombok.RequiredArgsConstructor;
+import jakarta.persistence.TypedQuery;
+import jpabook.jpashop.archive.OrderBuckets;
+import jpabook.jpashop.domain.ArchivedOrder;
+import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.domain.QOrderItem;
+import jpabook.jpashop.repository.MemberNameIndex;
+import jpabook.jpashop.repository.OrderSearch;
 import org.springframework.stereotype.Repository;
+import org.springframework.util.StringUtils;
 
-import java.util.List;
-import java.util.Map;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.*;
 import java.util.stream.Collectors;
 
+import static jpabook.jpashop.domain.QArchivedOrder.archivedOrder;
+import static jpabook.jpashop.domain.QArchivedOrderItem.archivedOrderItem;
+import static jpabook.jpashop.domain.QDelivery.delivery;
+import static jpabook.jpashop.domain.QMember.member;
+import static jpabook.jpashop.domain.QOrder.order;
+import static jpabook.jpashop.domain.QOrderItem.orderItem;
+import static jpabook.jpashop.domain.item.QItem.item;
+import static jpabook.jpashop.repository.OrderRepository.memberNameIn;
+import static jpabook.jpashop.repository.OrderRepository.statusEq;
+
 @Repository
-@RequiredArgsConstructor
 public class OrderQueryRepository {
 
+    // 보관 주문을 한 번에 읽는 최대 건수
+    static final int ARCHIVED_LIMIT = 1000;
+
     private final EntityManager em;
+    private final JPAQueryFactory query;
+    private final MemberNameIndex memberNameIndex;
+    private final OrderBuckets orderBuckets;
+
+    public OrderQueryRepository(EntityManager em, MemberNameIndex memberNameIndex, OrderBuckets orderBuckets) {
+        this.em = em;
+        this.query = new JPAQueryFactory(em);
+        this.memberNameIndex = memberNameIndex;
+        this.orderBuckets = orderBuckets;
+    }
 
 
     public List<OrderQueryDto> findOrderQueryDtos() {
@@ -53,6 +91,141 @@ public class OrderQueryRepository {
         return result;
     }
 
+    /**
+     * includeArchived 면 최근에 주문된 보관 주문을 최대 1000 건 같은 방식(주문 1번 + 주문상품 in 1번)으로 읽어 뒤에 붙인다.
+     * 최근 달 버킷부터 하나씩 읽고 1000 건이 모이면 멈춘다.
+     */
+    public List<OrderQueryDto> findAllByDto_optimization(boolean includeArchived) {
+        List<OrderQueryDto> result = findAllByDto_optimization();
+        if (includeArchived) {
+            result.addAll(findRecentArchivedOrders());
+        }
+        return result;
+    }
+
+    private List<OrderQueryDto> findRecentArchivedOrders() {
+        List<YearMonth> buckets = orderBuckets.all();
+        Collections.reverse(buckets);
+        List<OrderQueryDto> result = new ArrayList<>();
+        ArchivedOrderFilter filter = ArchivedOrderFilter.of(new OrderSearch(), null, null);
+        for (YearMonth bucket : buckets) {
+            int remaining = ARCHIVED_LIMIT - result.size();
+            if (remaining <= 0) {
+                break;
+            }
+            result.addAll(orderBuckets.fanOut(List.of(bucket), () -> findArchivedOrdersInBucket(filter,
+                    "a.orderDate desc, a.id desc", remaining)));
+        }
+        return result;
+    }
+
+    /**
+     * 보관된 주문 검색 - 주문 id 순서로 offset 부터 limit 건 (offset + limit 은 최대 1000)
+     * 주문일 범위와 겹치는 버킷만 읽고, 버킷마다 offset + limit 건까지만 읽어 id 순서로 합친다.
+     */
+    public List<OrderQueryDto> findArchivedOrders(OrderSearch orderSearch, int offset, int limit) {
+        return findArchivedOrders(orderSearch, null, offset, limit);
+    }
+
+    private List<OrderQueryDto> findArchivedOrders(OrderSearch orderSearch, Long afterId, int offset, int limit) {
+        int start = Math.max(0, offset);
+        int end = (int) Math.min((long) start + Math.max(0, limit), ARCHIVED_LIMIT);
+        if (start >= end) {
+            return new ArrayList<>();
+        }
+        Set<Long> memberIds = null;
+        if (StringUtils.hasText(orderSearch.getMemberName())) {
+            memberIds = memberNameIndex.findMemberIds(orderSearch.getMemberName());
+            if (memberIds.isEmpty()) {
+                return new ArrayList<>();
+            }
+        }
+        ArchivedOrderFilter filter = ArchivedOrderFilter.of(orderSearch, memberIds, afterId);
+        List<YearMonth> buckets = orderBuckets.between(orderSearch.getOrderDateFrom(), orderSearch.getOrderDateTo());
+        List<OrderQueryDto> result = orderBuckets.fanOut(buckets, () -> findArchivedOrdersInBucket(filter, "a.id asc", end));
+        result.sort(Comparator.comparing(OrderQueryDto::getOrderId));
+        return start >= result.size() ? new ArrayList<>() : new ArrayList<>(result.subList(start, Math.min(end, result.size())));
+    }
+
+    /**
+     * 현재 버킷에서 limit 건과 그 주문상품을 읽는다. 주문상품 in 목록도 limit 건 이하다.
+     */
+    private List<OrderQueryDto> findArchivedOrdersInBucket(ArchivedOrderFilter filter, String orderBy, int limit) {
+        TypedQuery<OrderQueryDto> orders = em.createQuery(
+                        "select new jpabook.jpashop.repository.order.query.OrderQueryDto(a.id, m.name, a.orderDate, a.status, d.address)" +
+                                " from ArchivedOrder a" +
+                                " join Member m on m.id = a.memberId" +
+                                " join ArchivedDelivery d on d.id = a.deliveryId" + filter.where() +
+                                " order by " + orderBy, OrderQueryDto.class)
+                .setMaxResults(limit);
+        filter.bind(orders);
+        List<OrderQueryDto> result = orders.getResultList();
+        if (result.isEmpty()) {
+            return result;
+        }
+
+        Map<Long, List<OrderItemQueryDto>> orderItemMap = em.createQuery(
+                        "select new jpabook.jpashop.repository.order.query.OrderItemQueryDto(ai.orderId, i.name, ai.orderPrice, ai.count)" +
+                                " from ArchivedOrderItem ai" +
+                                " join Item i on i.id = ai.itemId" +
+                                " where ai.orderId in :orderIds", OrderItemQueryDto.class)
+                .setParameter("orderIds", toOrderIds(result))
+                .getResultList().stream()
+                .collect(Collectors.groupingBy(OrderItemQueryDto::getOrderId));
+        result.forEach(o -> o.setOrderItems(orderItemMap.getOrDefault(o.getOrderId(), new ArrayList<>())));
+        return result;
+    }
+
+    /**
+     * 보관 주문 조회 조건 - null 이 아닌 값만 조건이 된다.
+     */
+    private record ArchivedOrderFilter(OrderStatus status, Set<Long> memberIds, LocalDateTime from, LocalDateTime to,
+                                       Long afterId) {
+
+        static ArchivedOrderFilter of(OrderSearch orderSearch, Set<Long> memberIds, Long afterId) {
+            return new ArchivedOrderFilter(orderSearch.getOrderStatus(), memberIds,
+                    orderSearch.orderDateLowerBound(), orderSearch.orderDateUpperBound(), afterId);
+        }
+
+        String where() {
+            StringJoiner where = new StringJoiner(" and ", " where ", "").setEmptyValue("");
+            if (status != null) {
+                where.add("a.status = :status");
+            }
+            if (memberIds != null) {
+                where.add("a.memberId in :memberIds");
+            }
+            if (from != null) {
+                where.add("a.orderDate >= :from");
+            }
+            if (to != null) {
+                where.add("a.orderDate < :to");
+            }
+            if (afterId != null) {
+                where.add("a.id > :afterId");
+            }
+            return where.toString();
+        }
+
+        void bind(TypedQuery<?> query) {
+            if (status != null) {
+                query.setParameter("status", status);
+            }
+            if (memberIds != null) {
+                query.setParameter("memberIds", memberIds);
+            }
+            if (from != null) {
+                query.setParameter("from", from);
+            }
+            if (to != null) {
+                query.setParameter("to", to);
+            }
+            if (afterId != null) {
+                query.setParameter("afterId", afterId);
+            }
+        }
+    }
+
     private Map<Long, List<OrderItemQueryDto>> findOrderItemMap(List<Long> orderIds) {
         List<OrderItemQueryDto> orderItems = em.createQuery(
                         "select new jpabook.jpashop.repository.order.query.OrderItemQueryDto(oi.order.id, i.name, oi.orderPrice, oi.count)" +
@@ -85,5 +258,259 @@ public class OrderQueryRepository {
                                 " join oi.item i", OrderFlatDto.class)
                 .getResultList();
     }
-}
 
+    /**
+     * 주문 목록 화면용 조회 - 회원명과 대표상품(주문상품 id가 가장 작은 것)을 한 번의 쿼리로 가져온다.
+     */
+    public List<OrderListRowDto> findOrderListRows(OrderSearch orderSearch) {
+        QOrderItem firstItem = new QOrderItem("firstItem");
+        return query
+                .select(Projections.constructor(OrderListRowDto.class,
+                        order.id, order.version, member.name, item.name,
+                        orderItem.orderPrice, orderItem.count, order.status, order.orderDate))
+                .from(order)
+                .join(order.member, member)
+                .join(order.orderItems, orderItem)
+                .join(orderItem.item, item)
+                .where(orderItem.id.eq(
+                                JPAExpressions.select(firstItem.id.min())
+                                        .from(firstItem)
+                                        .where(firstItem.order.eq(order))),
+                        statusEq(orderSearch.getOrderStatus()),
+                        memberNameIn(orderSearch.getMemberName(), memberNameIndex))
+                .limit(1000)
+                .fetch();
+    }
+
+    /**
+     * 보관된 주문(OrderRepository#findArchived)을 주문 목록 화면 줄로 바꾼다. 순서는 그대로 둔다.
+     * 대표상품은 주문 월 버킷마다 한 번, 회원 이름은 한 번에 읽는다.
+     */
+    public List<OrderListRowDto> findArchivedOrderListRows(List<ArchivedOrder> orders) {
+        if (orders.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<YearMonth, List<Long>> idsByBucket = orders.stream()
+                .collect(Collectors.groupingBy(o -> YearMonth.from(o.getOrderDate()), TreeMap::new,
+                        Collectors.mapping(ArchivedOrder::getId, Collectors.toList())));
+        Map<Long, OrderItemQueryDto> firstItems = new HashMap<>();
+        idsByBucket.forEach((bucket, ids) -> orderBuckets.fanOut(List.of(bucket), () -> findFirstArchivedItems(ids))
+                .forEach(oi -> firstItems.put(oi.getOrderId(), oi)));
+        Map<Long, String> memberNames = query
+                .select(member.id, member.name)
+                .from(member)
+                .where(member.id.in(orders.stream().map(ArchivedOrder::getMemberId).collect(Collectors.toSet())))
+                .fetch().stream()
+                .collect(Collectors.toMap(t -> t.get(member.id), t -> t.get(member.name)));
+
+        List<OrderListRowDto> rows = new ArrayList<>(orders.size());
+        for (ArchivedOrder archived : orders) {
+            OrderItemQueryDto first = firstItems.get(archived.getId());
+            rows.add(new OrderListRowDto(archived.getId(), archived.getVersion(), memberNames.get(archived.getMemberId()),
+                    first == null ? null : first.getItemName(), first == null ? 0 : first.getOrderPrice(),
+                    first == null ? 0 : first.getCount(), archived.getStatus(), archived.getOrderDate(), true));
+        }
+        return rows;
+    }
+
+    private List<OrderItemQueryDto> findFirstArchivedItems(List<Long> orderIds) {
+        return em.createQuery(
+                        "select new jpabook.jpashop.repository.order.query.OrderItemQueryDto(ai.orderId, i.name, ai.orderPrice, ai.count)" +
+                                " from ArchivedOrderItem ai" +
+                                " join Item i on i.id = ai.itemId" +
+                                " where ai.id in (select min(f.id) from ArchivedOrderItem f" +
+                                " where f.orderId in :orderIds group by f.orderId)", OrderItemQueryDto.class)
+                .setParameter("orderIds", orderIds)
+                .getResultList();
+    }
+
+    /**
+     * 회원 주문 이력 - (orderDate desc, id desc) keyset 페이지
+     * idx_orders_member_date (member_id, order_date desc, order_id desc) 범위를 size + 1 건만 읽고,
+     * 상품 수와 합계는 orderItems 를 로딩하지 않고 group by 로 계산한다.
+     */
+    public MemberOrderHistoryPage findMemberOrderHistory(Long memberId, MemberOrderCursor after, int size) {
+        return findMemberOrderHistory(memberId, after, size, false);
+    }
+
+    /**
+     * includeArchived 면 보관 버킷에서도 같은 범위를 size + 1 건씩 읽어 같은 순서로 합친다.
+     * cursor 가 있으면 cursor 의 달 이후 버킷은 읽지 않는다.
+     * 주문 id 는 보관해도 그대로라 cursor 를 양쪽에 그대로 쓸 수 있다.
+     */
+    public MemberOrderHistoryPage findMemberOrderHistory(Long memberId, MemberOrderCursor after, int size, boolean includeArchived) {
+        List<MemberOrderHistoryDto> rows = findMemberOrderRows(memberId, after, size + 1);
+        if (includeArchived) {
+            List<YearMonth> buckets = orderBuckets.between(null, after == null ? null : after.orderDate().toLocalDate());
+            rows.addAll(orderBuckets.fanOut(buckets, () -> findArchivedMemberOrderRows(memberId, after, size + 1)));
+            rows.sort(Comparator.comparing(MemberOrderHistoryDto::getOrderDate)
+                    .thenComparing(MemberOrderHistoryDto::getOrderId).reversed());
+        }
+
+        List<MemberOrderHistoryDto> orders = new ArrayList<>(rows.subList(0, Math.min(rows.size(), size)));
+        String next = null;
+        if (rows.size() > size) {
+            MemberOrderHistoryDto last = orders.get(orders.size() - 1);
+            next = new MemberOrderCursor(last.getOrderDate(), last.getOrderId()).encode();
+        }
+        return new MemberOrderHistoryPage(orders, next);
+    }
+
+    private List<MemberOrderHistoryDto> findMemberOrderRows(Long memberId, MemberOrderCursor after, int limit) {
+        NumberExpression<Long> itemCount = orderItem.id.count();
+        NumberExpression<Integer> totalPrice = orderItem.orderPrice.multiply(orderItem.count).sum();
+        List<Tuple> tuples = query
+                .select(order.id, order.orderDate, order.status, itemCount, totalPrice)
+                .from(order)
+                .leftJoin(order.orderItems, orderItem)
+                .where(order.member.id.eq(memberId), before(after))
+                .groupBy(order.id, order.orderDate, order.status)
+                .orderBy(order.orderDate.desc(), order.id.desc())
+                .limit(limit)
+                .fetch();
+
+        List<MemberOrderHistoryDto> rows = new ArrayList<>(tuples.size());
+        for (Tuple tuple : tuples) {
+            // sum(int) 는 Long 으로 돌아온다
+            Number total = tuple.get(4, Number.class);
+            rows.add(new MemberOrderHistoryDto(tuple.get(order.id), tuple.get(order.orderDate), tuple.get(order.status),
+                    tuple.get(itemCount), total == null ? 0 : total.longValue()));
+        }
+        return rows;
+    }
+
+    private List<MemberOrderHistoryDto> findArchivedMemberOrderRows(Long memberId, MemberOrderCursor after, int limit) {
+        NumberExpression<Long> itemCount = archivedOrderItem.id.count();
+        NumberExpression<Integer> totalPrice = archivedOrderItem.orderPrice.multiply(archivedOrderItem.count).sum();
+        List<Tuple> tuples = query
+                .select(archivedOrder.id, archivedOrder.orderDate, archivedOrder.status, itemCount, totalPrice)
+                .from(archivedOrder)
+                .leftJoin(archivedOrderItem).on(archivedOrderItem.orderId.eq(archivedOrder.id))
+                .where(archivedOrder.memberId.eq(memberId), archivedBefore(after))
+                .groupBy(archivedOrder.id, archivedOrder.orderDate, archivedOrder.status)
+                .orderBy(archivedOrder.orderDate.desc(), archivedOrder.id.desc())
+                .limit(limit)
+                .fetch();
+
+        List<MemberOrderHistoryDto> rows = new ArrayList<>(tuples.size());
+        for (Tuple tuple : tuples) {
+            Number total = tuple.get(4, Number.class);
+            rows.add(new MemberOrderHistoryDto(tuple.get(archivedOrder.id), tuple.get(archivedOrder.orderDate),
+                    tuple.get(archivedOrder.status), tuple.get(itemCount), total == null ? 0 : total.longValue()));
+        }
+        return rows;
+    }
+
+    private static BooleanExpression before(MemberOrderCursor cursor) {
+        if (cursor == null) {
+            return null;
+        }
+        return order.orderDate.lt(cursor.orderDate())
+                .or(order.orderDate.eq(cursor.orderDate()).and(order.id.lt(cursor.orderId())));
+    }
+
+    private static BooleanExpression archivedBefore(MemberOrderCursor cursor) {
+        if (cursor == null) {
+            return null;
+        }
+        return archivedOrder.orderDate.lt(cursor.orderDate())
+                .or(archivedOrder.orderDate.eq(cursor.orderDate()).and(archivedOrder.id.lt(cursor.orderId())));
+    }
+
+    /**
+     * 요청한 필드만 select, 필요한 연관관계만 join 한다.
+     * orderItems 는 주문 id 로 한 번 더 조회한다 (findAllByDto_optimization 과 같은 방식)
+     * 주문 id 순서의 keyset 페이징 - afterId 다음 주문부터 limit 건 (최대 1000 건)
+     */
+    public List<Map<String, Object>> findOrderFields(Set<OrderField> fields, Long afterId, int limit) {
+        return findOrderFields(fields, afterId, limit, false);
+    }
+
+    /**
+     * includeArchived 면 보관 버킷에서도 afterId 다음 주문을 limit 건씩 읽어 주문 id 순서로 합친다.
+     * 보관 주문은 주문상품을 함께 읽어 totalPrice 를 계산한다.
+     */
+    public List<Map<String, Object>> findOrderFields(Set<OrderField> fields, Long afterId, int limit, boolean includeArchived) {
+        int size = Math.max(1, Math.min(limit, 1000));
+        Map<OrderField, Expression<?>> columns = new EnumMap<>(OrderField.class);
+        if (fields.contains(OrderField.name)) {
+            columns.put(OrderField.name, member.name);
+        }
+        if (fields.contains(OrderField.orderDate)) {
+            columns.put(OrderField.orderDate, order.orderDate);
+        }
+        if (fields.contains(OrderField.orderStatus)) {
+            columns.put(OrderField.orderStatus, order.status);
+        }
+        if (fields.contains(OrderField.address)) {
+            columns.put(OrderField.address, delivery.address);
+        }
+        if (fields.contains(OrderField.totalPrice)) {
+            QOrderItem oi = new QOrderItem("oi");
+            columns.put(OrderField.totalPrice, JPAExpressions
+                    .select(oi.orderPrice.multiply(oi.count).sum())
+                    .from(oi)
+                    .where(oi.order.eq(order)));
+        }
+
+        List<Expression<?>> select = new ArrayList<>();
+        select.add(order.id);
+        select.addAll(columns.values());
+
+        JPAQuery<Tuple> tupleQuery = query.select(select.toArray(Expression[]::new)).from(order);
+        if (columns.containsKey(OrderField.name)) {
+            tupleQuery.join(order.member, member);
+        }
+        if (columns.containsKey(OrderField.address)) {
+            tupleQuery.join(order.delivery, delivery);
+        }
+        List<Tuple> tuples = tupleQuery
+                .where(afterId == null ? null : order.id.gt(afterId))
+                .orderBy(order.id.asc())
+                .limit(size)
+                .fetch();
+
+        Map<Long, List<OrderItemQueryDto>> orderItemMap = fields.contains(OrderField.orderItems)
+                ? findOrderItemMap(tuples.stream().map(t -> t.get(order.id)).collect(Collectors.toList()))
+                : Map.of();
+
+        // 주문 id -> row (id 순서)
+        SortedMap<Long, Map<String, Object>> rows = new TreeMap<>();
+        for (Tuple tuple : tuples) {
+            Long orderId = tuple.get(order.id);
+            Map<String, Object> row = new LinkedHashMap<>();
+            if (fields.contains(OrderField.orderId)) {
+                row.put(OrderField.orderId.name(), orderId);
+            }
+            columns.forEach((field, expression) -> row.put(field.name(), tuple.get(expression)));
+            if (fields.contains(OrderField.orderItems)) {
+                row.put(OrderField.orderItems.name(), orderItemMap.getOrDefault(orderId, List.of()));
+            }
+            rows.put(orderId, row);
+        }
+        if (includeArchived) {
+            for (OrderQueryDto archived : findArchivedOrders(new OrderSearch(), afterId, 0, size)) {
+                rows.put(archived.getOrderId(), toFieldRow(fields, archived));
+            }
+        }
+        return rows.values().stream().limit(size).collect(Collectors.toList());
+    }
+
+    private static Map<String, Object> toFieldRow(Set<OrderField> fields, OrderQueryDto dto) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        for (OrderField field : fields) {
+            switch (field) {
+                case orderId -> row.put(field.name(), dto.getOrderId());
+                case name -> row.put(field.name(), dto.getName());
+                case orderDate -> row.put(field.name(), dto.getOrderDate());
+                case orderStatus -> row.put(field.name(), dto.getOrderStatus());
+                case address -> row.put(field.name(), dto.getAddress());
+                // 주문상품이 없으면 진행 중 주문의 sum 서브쿼리처럼 null
+                case totalPrice -> row.put(field.name(), dto.getOrderItems().isEmpty() ? null
+                        : dto.getOrderItems().stream().mapToInt(oi -> oi.getOrderPrice() * oi.getCount()).sum());
+                case orderItems -> row.put(field.name(), dto.getOrderItems());
+            }
+        }
+        return row;
+    }
+}
@@ -0,0 +1,70 @@
+package jpabook.jpashop.repository.order.query;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+import org.springframework.stereotype.Repository;
+
+import java.util.function.Consumer;
+
+/**
+ * 대량 리포트 조회 - StatelessSession + forward-only 커서
+ * 영속성 컨텍스트, 스냅샷, dirty checking 이 없고 한 줄씩 consumer 로 넘기므로 행 수와 상관없이 메모리가 일정하다.
+ * 스프링 트랜잭션과 별개로 커넥션을 하나 잡으므로 트랜잭션 밖에서 호출한다.
+ * 커서는 읽기 전용 트랜잭션 안에서 연다. (autocommit 이면 fetch size 를 무시하고 전부 읽어 오는 드라이버가 있다)
+ */
+@Repository
+public class OrderReportRepository {
+
+    private static final int FETCH_SIZE = 1000;
+
+    private static final String FLAT_QUERY =
+            "select new jpabook.jpashop.repository.order.query.OrderFlatDto" +
+                    "(o.id, m.name, o.orderDate, o.status, d.address, i.name, oi.orderPrice, oi.count)" +
+                    " from Order o" +
+                    " join o.member m" +
+                    " join o.delivery d" +
+                    " join o.orderItems oi" +
+                    " join oi.item i" +
+                    " order by o.id, oi.id";
+
+    private final SessionFactory sessionFactory;
+
+    public OrderReportRepository(EntityManagerFactory emf) {
+        this.sessionFactory = emf.unwrap(SessionFactory.class);
+    }
+
+    /**
+     * 주문상품 한 줄씩 (findAllByDto_flat 과 같은 행)
+     * @return 넘긴 행 수
+     */
+    public long forEachFlat(Consumer<OrderFlatDto> consumer) {
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            // 커넥션은 풀에 돌아갈 때 Hikari 가 readOnly 를 원래대로 돌린다.
+            session.doWork(connection -> connection.setReadOnly(true));
+            Transaction tx = session.beginTransaction();
+            try {
+                long rows = 0;
+                try (ScrollableResults<OrderFlatDto> cursor = session.createQuery(FLAT_QUERY, OrderFlatDto.class)
+                        .setFetchSize(FETCH_SIZE)
+                        .setReadOnly(true)
+                        .scroll(ScrollMode.FORWARD_ONLY)) {
+                    while (cursor.next()) {
+                        consumer.accept(cursor.get());
+                        rows++;
+                    }
+                }
+                tx.commit();
+                return rows;
+            } catch (RuntimeException e) {
+                if (tx.isActive()) {
+                    tx.rollback();
+                }
+                throw e;
+            }
+        }
+    }
+}
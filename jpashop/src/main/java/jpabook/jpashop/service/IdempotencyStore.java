@@ -0,0 +1,143 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.exception.DuplicateRequestException;
+import jpabook.jpashop.exception.IdempotencyKeyReusedException;
+import jpabook.jpashop.repository.IdempotencyKeyRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.StringJoiner;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+/**
+ * Idempotency-Key -> 주문 결과
+ * 메모리(ConcurrentHashMap)에서 먼저 찾고, 없으면 테이블(idempotency_key)에서 찾는다.
+ * 같은 키로 동시에 들어온 요청은 먼저 실행 중인 요청의 결과를 기다린다.
+ * 테이블 저장은 주문과 같은 트랜잭션에서 한다 (OrderService.order(key, ...)).
+ * 키마다 요청 파라미터의 fingerprint 를 같이 저장하고, 같은 키로 다른 요청이 오면 422 로 거절한다.
+ */
+@Slf4j
+@Component
+public class IdempotencyStore {
+
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+    private final Duration ttl;
+    private final Duration waitTimeout;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    public IdempotencyStore(IdempotencyKeyRepository idempotencyKeyRepository,
+                            @Value("${jpashop.idempotency.ttl:24h}") Duration ttl,
+                            @Value("${jpashop.idempotency.wait-timeout:10s}") Duration waitTimeout) {
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.ttl = ttl;
+        this.waitTimeout = waitTimeout;
+    }
+
+    /**
+     * @param fingerprint 요청 파라미터 해시 (fingerprint(...))
+     */
+    public Long execute(String key, String fingerprint, Supplier<Long> action) {
+        Entry mine = new Entry(fingerprint, new CompletableFuture<>(), System.currentTimeMillis());
+        Entry existing = entries.putIfAbsent(key, mine);
+        if (existing != null) {
+            checkFingerprint(key, existing.fingerprint(), fingerprint);
+            return await(key, existing.result());
+        }
+
+        try {
+            Long result = stored(key, fingerprint)
+                    .orElseGet(() -> run(key, fingerprint, action));
+            mine.result().complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            // 실패한 요청은 다시 시도할 수 있어야 한다.
+            entries.remove(key, mine);
+            mine.result().completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * 요청 파라미터 해시 (SHA-256, hex)
+     */
+    public static String fingerprint(Object... params) {
+        StringJoiner joined = new StringJoiner("\n");
+        for (Object param : params) {
+            joined.add(String.valueOf(param));
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(joined.toString().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Optional<Long> stored(String key, String fingerprint) {
+        return idempotencyKeyRepository.findById(key)
+                .map(stored -> {
+                    checkFingerprint(key, stored.getFingerprint(), fingerprint);
+                    return stored.getOrderId();
+                });
+    }
+
+    private Long run(String key, String fingerprint, Supplier<Long> action) {
+        try {
+            return action.get();
+        } catch (DataIntegrityViolationException e) {
+            // 다른 인스턴스(또는 메모리에서 만료된 뒤의 요청)가 같은 키를 먼저 저장했다 - 그 결과를 돌려준다.
+            return stored(key, fingerprint).orElseThrow(() -> e);
+        }
+    }
+
+    private static void checkFingerprint(String key, String expected, String actual) {
+        if (!Objects.equals(expected, actual)) {
+            throw new IdempotencyKeyReusedException("다른 요청에 사용된 Idempotency-Key 입니다. key=" + key);
+        }
+    }
+
+    private Long await(String key, CompletableFuture<Long> result) {
+        try {
+            return result.get(waitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new DuplicateRequestException("처리 중인 요청입니다. key=" + key);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${jpashop.idempotency.evict-interval:PT1M}")
+    @Transactional
+    public void evictExpired() {
+        long before = System.currentTimeMillis() - ttl.toMillis();
+        entries.entrySet().removeIf(e -> e.getValue().result().isDone() && e.getValue().createdAt() < before);
+        int deleted = idempotencyKeyRepository.deleteCreatedBefore(LocalDateTime.now().minus(ttl));
+        if (deleted > 0) {
+            log.info("idempotency keys evicted: {}", deleted);
+        }
+    }
+
+    private record Entry(String fingerprint, CompletableFuture<Long> result, long createdAt) {
+    }
+}
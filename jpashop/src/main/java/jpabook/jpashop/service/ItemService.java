@@ -1,12 +1,16 @@
 package jpabook.jpashop.service;
 
+import jpabook.jpashop.domain.OutboxEventType;
 import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.inventory.InventoryLedger;
+import jpabook.jpashop.outbox.Outbox;
 import jpabook.jpashop.repository.ItemRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
@@ -14,10 +18,14 @@ import java.util.List;
 public class ItemService {
 
     private final ItemRepository itemRepository;
+    private final InventoryLedger inventoryLedger;
+    private final Outbox outbox;
 
     @Transactional
     public void saveItem(Item item) {
         itemRepository.save(item);
+        // 스냅샷/검색 인덱스는 커밋 이후 OutboxDispatcher 가 전달한다.
+        outbox.publish(OutboxEventType.ITEM_CREATED, item.getId(), Map.of("name", item.getName(), "price", item.getPrice()));
     }
 
     @Transactional
@@ -25,7 +33,12 @@ public class ItemService {
         Item item = itemRepository.findOne(id);
         item.setName(name);
         item.setPrice(price);
+        if (inventoryLedger.isEnabled()) {
+            // 원장 모드에서 stockQuantity 는 화면용 사본 - 실제 재고는 원장에 차이만큼 남긴다.
+            inventoryLedger.adjustTo(id, stockQuantity);
+        }
         item.setStockQuantity(stockQuantity);
+        outbox.publish(OutboxEventType.ITEM_UPDATED, id, Map.of("name", name, "price", price, "stockQuantity", stockQuantity));
     }
 
     public List<Item> findItems() {
@@ -0,0 +1,69 @@
+package jpabook.jpashop.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * 교착 상태(deadlock), 잠금 대기 시간 초과로 실패한 트랜잭션을 다시 실행한다.
+ * 롤백된 트랜잭션을 새로 시작해야 하므로 트랜잭션 밖에서 호출한다.
+ * 대기 시간은 base * 2^(시도-1) (max 상한) 안에서 무작위 (full jitter) - 부딪힌 요청들이 같은 시점에 다시 부딪히지 않게 한다.
+ */
+@Slf4j
+@Component
+public class LockRetry {
+
+    private final int maxAttempts;
+    private final Duration baseBackoff;
+    private final Duration maxBackoff;
+    private final Counter retries;
+    private final Counter exhausted;
+
+    public LockRetry(MeterRegistry meterRegistry,
+                     @Value("${jpashop.lock-retry.max-attempts:5}") int maxAttempts,
+                     @Value("${jpashop.lock-retry.base-backoff:20ms}") Duration baseBackoff,
+                     @Value("${jpashop.lock-retry.max-backoff:500ms}") Duration maxBackoff) {
+        this.maxAttempts = maxAttempts;
+        this.baseBackoff = baseBackoff;
+        this.maxBackoff = maxBackoff;
+        this.retries = Counter.builder("lock.retry").tag("result", "retried").register(meterRegistry);
+        this.exhausted = Counter.builder("lock.retry").tag("result", "exhausted").register(meterRegistry);
+    }
+
+    public <T> T run(Supplier<T> action) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return action.get();
+            } catch (PessimisticLockingFailureException e) {
+                if (attempt >= maxAttempts) {
+                    exhausted.increment();
+                    throw e;
+                }
+                retries.increment();
+                log.debug("lock failure, retry {}/{}: {}", attempt, maxAttempts, e.getMessage());
+                sleep(backoff(attempt));
+            }
+        }
+    }
+
+    private long backoff(int attempt) {
+        long ceiling = Math.min(maxBackoff.toMillis(), baseBackoff.toMillis() << Math.min(attempt - 1, 20));
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("재시도 대기 중 인터럽트", e);
+        }
+    }
+}
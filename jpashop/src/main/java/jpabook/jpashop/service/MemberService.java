@@ -1,7 +1,10 @@
 package jpabook.jpashop.service;
 
 import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.repository.MemberNameIndex;
 import jpabook.jpashop.repository.MemberRepository;
+import jpabook.jpashop.snapshot.ResponseSnapshots;
+import jpabook.jpashop.snapshot.SnapshotGroup;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -14,6 +17,8 @@ import java.util.List;
 public class MemberService {
 
     private final MemberRepository memberRepository;
+    private final MemberNameIndex memberNameIndex;
+    private final ResponseSnapshots responseSnapshots;
 
     /**
      * 회원 가입
@@ -22,6 +27,8 @@ public class MemberService {
     public Long join(Member member) {
         validateDuplicateMember(member); // 중복 회원 검증
         memberRepository.save(member);
+        memberNameIndex.put(member.getId(), member.getName());
+        responseSnapshots.invalidate(SnapshotGroup.MEMBER);
         return member.getId();
     }
 
@@ -51,5 +58,7 @@ public class MemberService {
     public void update(Long id, String name) {
         Member member = memberRepository.findById(id).orElseThrow();
         member.setName(name);
+        memberNameIndex.put(id, name);
+        responseSnapshots.invalidate(SnapshotGroup.MEMBER);
     }
 }
@@ -0,0 +1,190 @@
+package jpabook.jpashop.service;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jpabook.jpashop.exception.TooManyRequestsException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.Supplier;
+
+/**
+ * 주문 동시 실행 제한
+ * - 상품별: 상품 id 로 나눈 stripe 세마포어 (같은 Item row 에 몰리는 주문 수 제한)
+ * - 전체: 커넥션 풀 크기 - 여유분 (다른 API 가 쓸 커넥션을 남겨둔다)
+ *   세마포어는 주문끼리만 센다. 실제 풀(HikariPoolMXBean)의 사용 중 커넥션도 여유분을 넘지 않을 때만 들어간다.
+ * 허용되지 않으면 max-wait 까지 기다린 뒤 429 로 실패한다.
+ * 트랜잭션(커넥션)을 잡기 전에 호출해야 한다.
+ */
+@Component
+public class OrderAdmissionControl implements MeterBinder {
+
+    private static final int STRIPES = 64;
+    private static final long HEADROOM_POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+
+    private final Semaphore[] itemStripes = new Semaphore[STRIPES];
+    private final Semaphore global;
+    private final int globalPermits;
+    private final HikariDataSource hikari;
+    private final int poolSize;
+    private final int reservedConnections;
+    private final Duration maxWait;
+
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final AtomicIntegerArray stripeWaiting = new AtomicIntegerArray(STRIPES);
+    private final Counter itemRejected;
+    private final Counter poolRejected;
+    private final Counter interrupted;
+
+    public OrderAdmissionControl(MeterRegistry meterRegistry,
+                                 DataSource dataSource,
+                                 @Value("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize,
+                                 @Value("${jpashop.admission.per-item:4}") int perItem,
+                                 @Value("${jpashop.admission.reserved-connections:2}") int reservedConnections,
+                                 @Value("${jpashop.admission.max-wait:200ms}") Duration maxWait) {
+        for (int i = 0; i < STRIPES; i++) {
+            itemStripes[i] = new Semaphore(perItem);
+        }
+        this.hikari = unwrap(dataSource);
+        this.poolSize = hikari != null ? hikari.getMaximumPoolSize() : poolSize;
+        this.reservedConnections = reservedConnections;
+        this.globalPermits = Math.max(1, this.poolSize - reservedConnections);
+        this.global = new Semaphore(globalPermits);
+        this.maxWait = maxWait;
+
+        itemRejected = Counter.builder("order.admission.rejected").tag("reason", "item").register(meterRegistry);
+        poolRejected = Counter.builder("order.admission.rejected").tag("reason", "pool").register(meterRegistry);
+        interrupted = Counter.builder("order.admission.interrupted").register(meterRegistry);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("order.admission.waiting", waiting, AtomicInteger::get)
+                .register(registry);
+        for (int i = 0; i < STRIPES; i++) {
+            int stripe = i;
+            Gauge.builder("order.admission.stripe.waiting", stripeWaiting, w -> w.get(stripe))
+                    .tag("stripe", String.valueOf(stripe))
+                    .register(registry);
+        }
+        Gauge.builder("order.admission.in.flight", global, s -> globalPermits - s.availablePermits())
+                .register(registry);
+        Gauge.builder("order.admission.pool.headroom", this, OrderAdmissionControl::headroom)
+                .register(registry);
+    }
+
+    public <T> T run(Long itemId, Supplier<T> action) {
+        return run(List.of(itemId), action);
+    }
+
+    /**
+     * 여러 상품 주문 - 담긴 상품의 stripe 를 모두 얻는다.
+     * stripe 번호 순서로 얻으므로 상품이 겹치는 주문끼리 서로를 기다리며 막히지 않는다.
+     */
+    public <T> T run(Collection<Long> itemIds, Supplier<T> action) {
+        int[] stripes = itemIds.stream().mapToInt(OrderAdmissionControl::stripe).distinct().sorted().toArray();
+        long deadline = System.nanoTime() + maxWait.toNanos();
+        int acquired = 0;
+
+        waiting.incrementAndGet();
+        for (int stripe : stripes) {
+            stripeWaiting.incrementAndGet(stripe);
+        }
+        try {
+            for (; acquired < stripes.length; acquired++) {
+                if (!acquire(itemStripes[stripes[acquired]], deadline)) {
+                    itemRejected.increment();
+                    throw new TooManyRequestsException("주문이 몰린 상품입니다. itemIds=" + itemIds);
+                }
+            }
+            if (!acquireGlobal(deadline)) {
+                poolRejected.increment();
+                throw new TooManyRequestsException("주문 요청이 많습니다.");
+            }
+        } catch (InterruptedException e) {
+            release(stripes, acquired);
+            // 거절(429)이 아니라 요청 스레드가 중단된 것 - 따로 세고 예외로 올린다.
+            interrupted.increment();
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("주문 대기 중 인터럽트되었습니다.", e);
+        } catch (RuntimeException e) {
+            release(stripes, acquired);
+            throw e;
+        } finally {
+            for (int stripe : stripes) {
+                stripeWaiting.decrementAndGet(stripe);
+            }
+            waiting.decrementAndGet();
+        }
+
+        try {
+            return action.get();
+        } finally {
+            global.release();
+            release(stripes, stripes.length);
+        }
+    }
+
+    private void release(int[] stripes, int acquired) {
+        for (int i = 0; i < acquired; i++) {
+            itemStripes[stripes[i]].release();
+        }
+    }
+
+    /**
+     * 주문 세마포어를 얻은 뒤 실제 풀에도 여유분이 남아 있는지 본다.
+     * 다른 API 가 커넥션을 쓰고 있으면 세마포어를 돌려주고 deadline 까지 다시 시도한다.
+     */
+    private boolean acquireGlobal(long deadline) throws InterruptedException {
+        while (acquire(global, deadline)) {
+            if (headroom() > reservedConnections) {
+                return true;
+            }
+            global.release();
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return false;
+            }
+            TimeUnit.NANOSECONDS.sleep(Math.min(remaining, HEADROOM_POLL_NANOS));
+        }
+        return false;
+    }
+
+    /**
+     * 풀 크기 - 사용 중 커넥션 (Hikari 가 아니거나 풀이 아직 시작되지 않았으면 풀 크기)
+     */
+    private int headroom() {
+        HikariPoolMXBean pool = hikari == null ? null : hikari.getHikariPoolMXBean();
+        return pool == null ? poolSize : poolSize - pool.getActiveConnections();
+    }
+
+    private static boolean acquire(Semaphore semaphore, long deadline) throws InterruptedException {
+        return semaphore.tryAcquire(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+    }
+
+    private static HikariDataSource unwrap(DataSource dataSource) {
+        try {
+            return dataSource.isWrapperFor(HikariDataSource.class) ? dataSource.unwrap(HikariDataSource.class) : null;
+        } catch (SQLException e) {
+            return null;
+        }
+    }
+
+    private static int stripe(Long itemId) {
+        int h = itemId.hashCode();
+        return (h ^ (h >>> 16)) & (STRIPES - 1);
+    }
+}
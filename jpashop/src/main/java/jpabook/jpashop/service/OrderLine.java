@@ -0,0 +1,7 @@
+package jpabook.jpashop.service;
+
+/**
+ * 주문 한 줄 - 상품과 수량
+ */
+public record OrderLine(Long itemId, int count) {
+}
@@ -1,19 +1,31 @@
 package jpabook.jpashop.service;
 
 import jpabook.jpashop.domain.Delivery;
+import jpabook.jpashop.domain.IdempotencyKey;
 import jpabook.jpashop.domain.Member;
 import jpabook.jpashop.domain.Order;
 import jpabook.jpashop.domain.OrderItem;
+import jpabook.jpashop.domain.OutboxEventType;
 import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.exception.NotFoundException;
+import jpabook.jpashop.inventory.InventoryLedger;
+import jpabook.jpashop.outbox.Outbox;
+import jpabook.jpashop.repository.IdempotencyKeyRepository;
 import jpabook.jpashop.repository.ItemRepository;
 import jpabook.jpashop.repository.MemberRepository;
 import jpabook.jpashop.repository.OrderRepository;
 import jpabook.jpashop.repository.OrderSearch;
+import jpabook.jpashop.repository.order.query.OrderListRowDto;
+import jpabook.jpashop.repository.order.query.OrderQueryRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
 
 @Service
 @Transactional(readOnly = true)
@@ -23,43 +35,130 @@ public class OrderService {
     private final OrderRepository orderRepository;
     private final MemberRepository memberRepository;
     private final ItemRepository itemRepository;
+    private final OrderQueryRepository orderQueryRepository;
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+    private final InventoryLedger inventoryLedger;
+    private final Outbox outbox;
 
     //주문
     @Transactional
     public Long order(Long memberId, Long itemId, int count) {
+        return order(memberId, List.of(new OrderLine(itemId, count)));
+    }
+
+    //주문 - 여러 상품
+    // 재고를 고칠 상품은 id 오름차순으로 잠근다. 겹치는 상품을 다른 순서로 담은 주문끼리 교착 상태가 생기지 않는다.
+    // 그래도 잠금 대기 시간 초과는 날 수 있으므로 호출하는 쪽에서 LockRetry 로 감싼다.
+    @Transactional
+    public Long order(Long memberId, List<OrderLine> lines) {
+        //같은 상품이 여러 줄이면 합친다.
+        SortedMap<Long, Integer> counts = new TreeMap<>();
+        for (OrderLine line : lines) {
+            counts.merge(line.itemId(), line.count(), Integer::sum);
+        }
+        if (counts.isEmpty()) {
+            throw new IllegalArgumentException("주문할 상품이 없습니다.");
+        }
+
         //엔티티 조회
-        Member member = memberRepository.findById(memberId).get();
-        Item item = itemRepository.findOne(itemId);
+        Member member = memberRepository.findById(memberId)
+                .orElseThrow(() -> new NotFoundException("회원이 없습니다: " + memberId));
 
         //배송정보 생성
         Delivery delivery = new Delivery();
         delivery.setAddress(member.getAddress());
 
-        //주문상품 생성
-        OrderItem orderItem = OrderItem.createOrderItem(item, item.getPrice(), count);
+        //주문상품 생성 - 원장 모드면 Item row 를 잠그거나 고치지 않고 아래에서 원장에 예약한다.
+        List<OrderItem> orderItems = new ArrayList<>(counts.size());
+        counts.forEach((itemId, count) -> {
+            if (inventoryLedger.isEnabled()) {
+                Item item = found(itemRepository.findOne(itemId), itemId);
+                orderItems.add(OrderItem.createOrderItemWithoutStock(item, item.getPrice(), count));
+            } else {
+                Item item = found(itemRepository.findOneForUpdate(itemId), itemId);
+                orderItems.add(OrderItem.createOrderItem(item, item.getPrice(), count));
+            }
+        });
 
         //주문 생성
-        Order order = Order.createOrder(member, delivery, orderItem);
+        Order order = Order.createOrder(member, delivery, orderItems.toArray(OrderItem[]::new));
 
         //주문 저장 - CascadeType.ALL이기 때문에 orderItem, Delivery 같이 저장
         // Cascade 범위 : 라이프 사이클이 하나의 관계에서 결정될 때 사용하는 것이 좋음
         // Delivery가 다른 곳에서 또 참조된다면 되도록 Cascade를 안쓰는 것이 좋음
         orderRepository.save(order);
+        if (inventoryLedger.isEnabled()) {
+            counts.forEach((itemId, count) -> inventoryLedger.reserve(itemId, order.getId(), count));
+        }
+        // 주문 목록/재고 스냅샷과 읽기 모델은 커밋 이후 OutboxDispatcher 가 전달한다.
+        outbox.publish(OutboxEventType.ORDER_PLACED, order.getId(), Map.of("memberId", memberId, "lines", lines(counts)));
 
         return order.getId();
     }
 
+    //주문 - Idempotency-Key 를 주문과 같은 트랜잭션에 저장
+    @Transactional
+    public Long order(String idempotencyKey, String fingerprint, Long memberId, Long itemId, int count) {
+        return order(idempotencyKey, fingerprint, memberId, List.of(new OrderLine(itemId, count)));
+    }
+
+    @Transactional
+    public Long order(String idempotencyKey, String fingerprint, Long memberId, List<OrderLine> lines) {
+        Long orderId = order(memberId, lines);
+        idempotencyKeyRepository.save(new IdempotencyKey(idempotencyKey, fingerprint, orderId));
+        return orderId;
+    }
+
+    private static Item found(Item item, Long itemId) {
+        if (item == null) {
+            throw new NotFoundException("상품이 없습니다: " + itemId);
+        }
+        return item;
+    }
+
     //취소
     @Transactional
     public void cancelOrder(Long orderId) {
         //주문 엔티티 조회
         Order order = orderRepository.findOne(orderId);
         //주문 취소
-        order.cancel();
+        if (inventoryLedger.isEnabled()) {
+            order.cancelWithoutStock();
+            for (OrderItem orderItem : order.getOrderItems()) {
+                inventoryLedger.release(orderItem.getItem().getId(), orderId, orderItem.getCount());
+            }
+        } else {
+            order.cancel();
+        }
+        SortedMap<Long, Integer> counts = new TreeMap<>();
+        for (OrderItem orderItem : order.getOrderItems()) {
+            counts.merge(orderItem.getItem().getId(), orderItem.getCount(), Integer::sum);
+        }
+        outbox.publish(OutboxEventType.ORDER_CANCELED, orderId, Map.of("lines", lines(counts)));
+    }
+
+    private static List<OrderLine> lines(SortedMap<Long, Integer> counts) {
+        List<OrderLine> lines = new ArrayList<>(counts.size());
+        counts.forEach((itemId, count) -> lines.add(new OrderLine(itemId, count)));
+        return lines;
     }
 
     //검색
     public List<Order> findOrders(OrderSearch orderSearch) {
         return orderRepository.findAll(orderSearch);
     }
+
+    //주문 목록 화면
+    public List<OrderListRowDto> findOrderListRows(OrderSearch orderSearch) {
+        return findOrderListRows(orderSearch, false);
+    }
+
+    //주문 목록 화면 - includeArchived 면 보관된 주문(최근 1000 건)을 뒤에 붙인다.
+    public List<OrderListRowDto> findOrderListRows(OrderSearch orderSearch, boolean includeArchived) {
+        List<OrderListRowDto> rows = orderQueryRepository.findOrderListRows(orderSearch);
+        if (includeArchived) {
+            rows.addAll(orderQueryRepository.findArchivedOrderListRows(orderRepository.findArchived(orderSearch)));
+        }
+        return rows;
+    }
 }
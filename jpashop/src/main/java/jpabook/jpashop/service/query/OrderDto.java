@@ -3,6 +3,8 @@ package jpabook.jpashop.service.query;
 import jpabook.jpashop.domain.Address;
 import jpabook.jpashop.domain.Order;
 import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.intern.Canonical;
+import jpabook.jpashop.repository.order.query.OrderQueryDto;
 import lombok.Getter;
 
 import java.time.LocalDateTime;
@@ -24,7 +26,19 @@ public class OrderDto {
         this.name = order.getMember().getName();
         this.orderDate = order.getOrderDate();
         this.orderStatus = order.getStatus();
-        this.address = order.getDelivery().getAddress();
+        this.address = Canonical.address(order.getDelivery().getAddress());
+        orderItems = order.getOrderItems().stream()
+                .map(OrderItemDto::new)
+                .collect(toList());
+    }
+
+    // 보관된 주문 (OrderQueryRepository#findArchivedOrders)
+    public OrderDto(OrderQueryDto order) {
+        this.orderId = order.getOrderId();
+        this.name = order.getName();
+        this.orderDate = order.getOrderDate();
+        this.orderStatus = order.getOrderStatus();
+        this.address = order.getAddress();
         orderItems = order.getOrderItems().stream()
                 .map(OrderItemDto::new)
                 .collect(toList());
@@ -2,6 +2,7 @@ package jpabook.jpashop.service.query;
 
 
 import jpabook.jpashop.domain.OrderItem;
+import jpabook.jpashop.repository.order.query.OrderItemQueryDto;
 import lombok.Getter;
 
 @Getter
@@ -15,5 +16,11 @@ public class OrderItemDto {
         this.orderPrice = orderItem.getOrderPrice();
         this.count = orderItem.getCount();
     }
+
+    public OrderItemDto(OrderItemQueryDto orderItem) {
+        this.itemName = orderItem.getItemName();
+        this.orderPrice = orderItem.getOrderPrice();
+        this.count = orderItem.getCount();
+    }
 }
 
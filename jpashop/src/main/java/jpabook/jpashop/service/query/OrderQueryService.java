@@ -1,30 +1,88 @@
 package jpabook.jpashop.service.query;
 
 import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderItem;
+import jpabook.jpashop.fetchplan.FetchPlan;
 import jpabook.jpashop.repository.OrderRepository;
+import jpabook.jpashop.repository.OrderSearch;
+import jpabook.jpashop.repository.order.query.OrderQueryRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.bind.annotation.GetMapping;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import static java.util.stream.Collectors.toList;
 
+/**
+ * OSIV 를 끈 상태에서 엔티티 -> DTO 변환을 트랜잭션 안에서 한다.
+ * 메서드마다 @FetchPlan 으로 조회할 연관관계와 쿼리 수를 선언한다.
+ */
 @Service
 @RequiredArgsConstructor
 @Transactional(readOnly = true)
 public class OrderQueryService {
 
     private final OrderRepository orderRepository;
+    private final OrderQueryRepository orderQueryRepository;
 
-    @GetMapping("/api/v3/orders")
-    public List<OrderDto> ordersV3() {
-        List<Order> orders = orderRepository.findAllWithItem();
-        List<OrderDto> collect = orders.stream()
-                .map(o -> new OrderDto(o))
+    /**
+     * 엔티티를 그대로 반환하므로 응답에 필요한 연관관계를 여기서 모두 초기화한다.
+     * 쿼리 : 주문(+회원, 배송) 1 + 주문상품 1 + 상품 1
+     */
+    @FetchPlan(root = Order.class, graph = {"member", "delivery"}, batch = {"orderItems", "orderItems.item"}, maxQueries = 3)
+    public List<Order> ordersV1() {
+        List<Order> all = orderRepository.findAllByCriteria(new OrderSearch());
+        for (Order order : all) {
+            for (OrderItem orderItem : order.getOrderItems()) {
+                orderItem.getItem().getName();
+            }
+        }
+        return all;
+    }
+
+    @FetchPlan(root = Order.class, graph = {"member", "delivery"}, batch = {"orderItems", "orderItems.item"}, maxQueries = 3)
+    public List<OrderDto> ordersV2() {
+        return toDtos(orderRepository.findAllByCriteria(new OrderSearch()));
+    }
+
+    /**
+     * 주문 id 를 먼저 페이징한 뒤 그 주문들만 전체 fetch join (IdPagination)
+     */
+    @FetchPlan(root = Order.class, graph = {"member", "delivery", "orderItems.item"}, maxQueries = 2)
+    public List<OrderDto> ordersV3(OrderSearch orderSearch, int offset, int limit) {
+        return toDtos(orderRepository.findAllWithItem(orderSearch, offset, limit));
+    }
+
+    /**
+     * v3 의 보관 주문 쪽 - 진행 중 주문(id 순) 뒤에 보관된 주문(id 순)이 이어진다고 보고 페이징한다.
+     * 보관 주문은 버킷 테이블을 읽으므로 fetch plan 밖에서 조회한다.
+     *
+     * @param liveCount 같은 페이지에 담긴 진행 중 주문 수 (0 이면 offset 이 진행 중 주문을 모두 지나갔는지 센다)
+     */
+    public List<OrderDto> archivedOrdersV3(OrderSearch orderSearch, int offset, int limit, int liveCount) {
+        int size = Math.max(1, Math.min(limit, 1000));
+        if (liveCount >= size) {
+            return new ArrayList<>();
+        }
+        long archivedOffset = liveCount > 0 ? 0 : Math.max(0, offset - orderRepository.count(orderSearch));
+        if (archivedOffset >= Integer.MAX_VALUE) {
+            return new ArrayList<>();
+        }
+        return orderQueryRepository.findArchivedOrders(orderSearch, (int) archivedOffset, size - liveCount).stream()
+                .map(OrderDto::new)
                 .collect(toList());
-        return collect;
     }
 
+    @FetchPlan(root = Order.class, graph = {"member", "delivery"}, batch = {"orderItems", "orderItems.item"}, maxQueries = 3)
+    public List<OrderDto> ordersV3_page(int offset, int limit) {
+        return toDtos(orderRepository.findAllWithMemberDelivery(offset, limit));
+    }
+
+    private static List<OrderDto> toDtos(List<Order> orders) {
+        return orders.stream()
+                .map(o -> new OrderDto(o))
+                .collect(toList());
+    }
 }
@@ -0,0 +1,151 @@
+package jpabook.jpashop.snapshot;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jpabook.jpashop.snapshot.ResponseSnapshots.Snapshot;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * GET 응답을 스냅샷으로 서빙한다 (stale-while-revalidate)
+ * - key: 경로 + 경로별로 허용된 파라미터(이름순) + Accept 로 정한 응답 타입. 그 밖의 파라미터나 해석할 수 없는 Accept 면 스냅샷을 쓰지 않는다.
+ * - 없으면: 같은 key 의 동시 요청 중 하나만 계산하고 나머지는 그 결과를 await-timeout 까지 기다린다 (single-flight)
+ *   기다리다 시간이 지나거나 계산이 실패하면 직접 렌더링한다.
+ * - 오래됐으면: 기존 스냅샷을 응답하고, 한 번만 SnapshotRefresher 로 요청 스레드 밖에서 다시 계산해 교체한다
+ *   경로에 SnapshotRenderer 가 없으면(HTML 화면) 지우고 다음 요청이 다시 렌더링한다.
+ * 응답 타입이 Accept 에 따라 달라지므로 Vary: Accept 를 붙인다.
+ */
+@Slf4j
+public class ResponseSnapshotFilter extends OncePerRequestFilter {
+
+    private final ResponseSnapshots snapshots;
+    private final SnapshotRefresher refresher;
+    private final Map<String, SnapshotRoute> routes;
+    private final Duration awaitTimeout;
+
+    public ResponseSnapshotFilter(ResponseSnapshots snapshots, SnapshotRefresher refresher,
+                                  Map<String, SnapshotRoute> routes, Duration awaitTimeout) {
+        this.snapshots = snapshots;
+        this.refresher = refresher;
+        this.routes = routes;
+        this.awaitTimeout = awaitTimeout;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"GET".equals(request.getMethod()) || !routes.containsKey(request.getRequestURI());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain chain) throws ServletException, IOException {
+        SnapshotRoute route = routes.get(request.getRequestURI());
+        MediaType mediaType = route.negotiate(request.getHeader(HttpHeaders.ACCEPT));
+        SortedMap<String, List<String>> params = route.params(request);
+        if (mediaType == null || params == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        String key = request.getRequestURI() + (params.isEmpty() ? "" : params.toString()) + " " + mediaType;
+
+        Snapshot snapshot = snapshots.get(key);
+        if (snapshot == null) {
+            renderOnce(request, response, chain, route, key);
+            return;
+        }
+
+        write(response, snapshot);
+        if (snapshots.isStale(snapshot) && snapshot.refreshing().compareAndSet(false, true)) {
+            refresh(route, params, mediaType, key, snapshot);
+        }
+    }
+
+    private void refresh(SnapshotRoute route, SortedMap<String, List<String>> params, MediaType mediaType,
+                         String key, Snapshot stale) {
+        if (route.renderer() == null) {
+            snapshots.evict(key, stale);
+            return;
+        }
+        long generation = snapshots.generation();
+        refresher.refresh(route, params, mediaType)
+                .whenComplete((fresh, e) -> {
+                    stale.refreshing().set(false);
+                    if (e != null) {
+                        log.warn("snapshot refresh failed. key={}: {}", key, e.toString());
+                        snapshots.evict(key, stale);
+                    } else if (fresh != null) {
+                        snapshots.put(key, fresh, generation);
+                    }
+                });
+    }
+
+    private void renderOnce(HttpServletRequest request, HttpServletResponse response, FilterChain chain,
+                            SnapshotRoute route, String key) throws ServletException, IOException {
+        CompletableFuture<Snapshot> mine = new CompletableFuture<>();
+        CompletableFuture<Snapshot> running = snapshots.joinInFlight(key, mine);
+        if (running == null) {
+            renderAndStore(request, response, chain, route, key, mine);
+            return;
+        }
+        Snapshot result = await(running);
+        if (result != null) {
+            write(response, result);
+            return;
+        }
+        chain.doFilter(request, response);
+    }
+
+    private void renderAndStore(HttpServletRequest request, HttpServletResponse response, FilterChain chain,
+                                SnapshotRoute route, String key, CompletableFuture<Snapshot> mine) throws ServletException, IOException {
+        long generation = snapshots.generation();
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        try {
+            chain.doFilter(request, wrapper);
+            Snapshot result = null;
+            if (wrapper.getStatus() == HttpServletResponse.SC_OK) {
+                result = new Snapshot(route.groups(), wrapper.getContentType(), wrapper.getContentAsByteArray());
+                snapshots.put(key, result, generation);
+            }
+            mine.complete(result);
+            wrapper.copyBodyToResponse();
+        } catch (ServletException | IOException | RuntimeException e) {
+            mine.complete(null);
+            throw e;
+        } finally {
+            snapshots.completeInFlight(key, mine);
+        }
+    }
+
+    private Snapshot await(CompletableFuture<Snapshot> running) {
+        try {
+            return running.get(awaitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException | ExecutionException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    private static void write(HttpServletResponse response, Snapshot snapshot) throws IOException {
+        response.setContentType(snapshot.contentType());
+        response.setContentLength(snapshot.body().length);
+        response.getOutputStream().write(snapshot.body());
+    }
+}
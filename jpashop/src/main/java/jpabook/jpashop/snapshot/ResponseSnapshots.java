@@ -0,0 +1,107 @@
+package jpabook.jpashop.snapshot;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 조회 API 응답(직렬화된 바이트) 스냅샷 저장소
+ * key 는 요청 경로 + 허용된 파라미터 + 정해진 응답 타입 (ResponseSnapshotFilter), 쓰기 작업은 invalidate 로 관련 스냅샷을 지운다.
+ * 최대 jpashop.snapshot.max-entries 건까지만 보관한다.
+ */
+@Component
+public class ResponseSnapshots {
+
+    private final Duration staleAfter;
+
+    private final Cache<String, Snapshot> snapshots;
+    private final Map<String, CompletableFuture<Snapshot>> inFlight = new ConcurrentHashMap<>();
+    // invalidate 이전에 시작한 계산 결과가 저장되지 않도록 세대를 비교한다.
+    private final AtomicLong generation = new AtomicLong();
+
+    public ResponseSnapshots(@Value("${jpashop.snapshot.stale-after:5s}") Duration staleAfter,
+                             @Value("${jpashop.snapshot.max-entries:1000}") long maxEntries) {
+        this.staleAfter = staleAfter;
+        this.snapshots = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .build();
+    }
+
+    public Snapshot get(String key) {
+        return snapshots.getIfPresent(key);
+    }
+
+    public boolean isStale(Snapshot snapshot) {
+        return System.currentTimeMillis() - snapshot.createdAt() > staleAfter.toMillis();
+    }
+
+    /**
+     * 같은 key 를 이미 계산 중이면 그 future 를, 아니면 null 을 돌려주고 호출자가 계산을 맡는다.
+     */
+    public CompletableFuture<Snapshot> joinInFlight(String key, CompletableFuture<Snapshot> mine) {
+        return inFlight.putIfAbsent(key, mine);
+    }
+
+    public void completeInFlight(String key, CompletableFuture<Snapshot> mine) {
+        inFlight.remove(key, mine);
+    }
+
+    public long generation() {
+        return generation.get();
+    }
+
+    public void put(String key, Snapshot snapshot, long startedGeneration) {
+        if (generation.get() == startedGeneration) {
+            snapshots.put(key, snapshot);
+        }
+    }
+
+    /**
+     * 갱신에 실패한 스냅샷을 지운다 - 다음 요청이 직접 다시 계산한다.
+     */
+    public void evict(String key, Snapshot snapshot) {
+        snapshots.asMap().remove(key, snapshot);
+    }
+
+    /**
+     * 트랜잭션 안이면 커밋 이후에 지운다.
+     */
+    public void invalidate(SnapshotGroup... groups) {
+        Set<SnapshotGroup> targets = EnumSet.of(groups[0], groups);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    remove(targets);
+                }
+            });
+            return;
+        }
+        remove(targets);
+    }
+
+    private void remove(Set<SnapshotGroup> targets) {
+        generation.incrementAndGet();
+        snapshots.asMap().values().removeIf(s -> s.groups().stream().anyMatch(targets::contains));
+    }
+
+    public record Snapshot(Set<SnapshotGroup> groups, String contentType, byte[] body,
+                           long createdAt, AtomicBoolean refreshing) {
+
+        public Snapshot(Set<SnapshotGroup> groups, String contentType, byte[] body) {
+            this(groups, contentType, body, System.currentTimeMillis(), new AtomicBoolean());
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package jpabook.jpashop.snapshot;
+
+/**
+ * 스냅샷이 의존하는 데이터 묶음 - 쓰기가 일어나면 해당 묶음에 의존하는 스냅샷을 지운다.
+ */
+public enum SnapshotGroup {
+    MEMBER, ORDER, ITEM
+}
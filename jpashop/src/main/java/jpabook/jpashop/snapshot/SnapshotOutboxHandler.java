@@ -0,0 +1,30 @@
+package jpabook.jpashop.snapshot;
+
+import jpabook.jpashop.domain.OutboxEvent;
+import jpabook.jpashop.outbox.OutboxHandler;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * 주문/상품 이벤트가 전달되면 그 데이터에 의존하는 스냅샷을 지운다.
+ * 주문/취소는 주문 목록과 재고를, 상품 등록/수정은 상품 목록을 바꾼다.
+ */
+@Component
+@RequiredArgsConstructor
+public class SnapshotOutboxHandler implements OutboxHandler {
+
+    private final ResponseSnapshots responseSnapshots;
+
+    @Override
+    public boolean supports(OutboxEvent event) {
+        return true;
+    }
+
+    @Override
+    public void handle(OutboxEvent event) {
+        switch (event.getEventType()) {
+            case ORDER_PLACED, ORDER_CANCELED -> responseSnapshots.invalidate(SnapshotGroup.ORDER, SnapshotGroup.ITEM);
+            case ITEM_CREATED, ITEM_UPDATED -> responseSnapshots.invalidate(SnapshotGroup.ITEM);
+        }
+    }
+}
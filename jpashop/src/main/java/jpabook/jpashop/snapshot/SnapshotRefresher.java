@@ -0,0 +1,106 @@
+package jpabook.jpashop.snapshot;
+
+import jakarta.annotation.PreDestroy;
+import jpabook.jpashop.snapshot.ResponseSnapshots.Snapshot;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 오래된 스냅샷을 응답이 나간 뒤에 다시 계산한다.
+ * 응답한 요청 스레드를 잡고 있지 않도록 refresh-threads 개 스레드에서 경로의 SnapshotRenderer 를 호출하고,
+ * 결과를 Accept 로 정한 타입의 HttpMessageConverter 로 직렬화한다. (서버로 요청을 다시 보내지 않는다)
+ */
+@Component
+public class SnapshotRefresher {
+
+    private final List<HttpMessageConverter<?>> converters;
+    private final ExecutorService executor;
+    private final Semaphore permits;
+    private final Duration timeout;
+
+    @Autowired
+    public SnapshotRefresher(HttpMessageConverters messageConverters,
+                             @Value("${jpashop.snapshot.refresh-threads:2}") int threads,
+                             @Value("${jpashop.snapshot.refresh-timeout:10s}") Duration timeout) {
+        this(messageConverters.getConverters(), threads, timeout);
+    }
+
+    public SnapshotRefresher(List<HttpMessageConverter<?>> converters, int threads, Duration timeout) {
+        this.converters = converters;
+        this.executor = Executors.newFixedThreadPool(threads, new CustomizableThreadFactory("snapshot-refresh-"));
+        this.permits = new Semaphore(threads);
+        this.timeout = timeout;
+    }
+
+    /**
+     * @return 새 스냅샷, null: 동시 갱신 수가 찼음 (다음 요청이 다시 시도), 예외: 갱신 실패
+     */
+    public CompletableFuture<Snapshot> refresh(SnapshotRoute route, SortedMap<String, List<String>> params, MediaType mediaType) {
+        if (!permits.tryAcquire()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return CompletableFuture.supplyAsync(() -> write(route, route.renderer().render(params), mediaType), executor)
+                .orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS)
+                .whenComplete((snapshot, e) -> permits.release());
+    }
+
+    @SuppressWarnings("unchecked")
+    private Snapshot write(SnapshotRoute route, Object body, MediaType mediaType) {
+        for (HttpMessageConverter<?> converter : converters) {
+            if (converter.canWrite(body.getClass(), mediaType)) {
+                BodyMessage message = new BodyMessage();
+                try {
+                    ((HttpMessageConverter<Object>) converter).write(body, mediaType, message);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                MediaType contentType = message.getHeaders().getContentType();
+                return new Snapshot(route.groups(), contentType == null ? mediaType.toString() : contentType.toString(),
+                        message.body.toByteArray());
+            }
+        }
+        throw new HttpMessageNotWritableException("No converter for " + body.getClass().getName() + " as " + mediaType);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    private static class BodyMessage implements HttpOutputMessage {
+
+        private final HttpHeaders headers = new HttpHeaders();
+        private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+        @Override
+        public OutputStream getBody() {
+            return body;
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+    }
+}
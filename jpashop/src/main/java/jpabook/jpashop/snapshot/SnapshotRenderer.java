@@ -0,0 +1,17 @@
+package jpabook.jpashop.snapshot;
+
+import java.util.List;
+import java.util.SortedMap;
+
+/**
+ * 스냅샷 경로의 응답 본문을 요청 없이 다시 만든다. (보통 그 경로의 컨트롤러 메서드 호출)
+ * 반환값은 SnapshotRefresher 가 요청 때와 같은 HttpMessageConverter 로 직렬화한다.
+ */
+@FunctionalInterface
+public interface SnapshotRenderer {
+
+    /**
+     * @param params 스냅샷 key 에 들어간 쿼리 파라미터 (SnapshotRoute#params)
+     */
+    Object render(SortedMap<String, List<String>> params);
+}
@@ -0,0 +1,65 @@
+package jpabook.jpashop.snapshot;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+
+import java.util.*;
+
+/**
+ * 스냅샷으로 서빙하는 경로
+ *
+ * @param groups   응답이 의존하는 데이터 (쓰기 작업이 invalidate 하는 단위)
+ * @param params   key 에 넣는 쿼리 파라미터 - 그 밖의 파라미터가 오면 스냅샷을 쓰지 않는다
+ * @param produces 경로가 만드는 응답 타입 (앞에 있을수록 우선, Accept 가 없거나 * / * 이면 첫 번째)
+ * @param renderer 오래된 스냅샷을 응답 이후에 다시 만드는 방법, null 이면 지우고 다음 요청이 렌더링한다
+ */
+public record SnapshotRoute(Set<SnapshotGroup> groups, Set<String> params, List<MediaType> produces,
+                            SnapshotRenderer renderer) {
+
+    public SnapshotRoute(Set<SnapshotGroup> groups, Set<String> params, List<MediaType> produces) {
+        this(groups, params, produces, null);
+    }
+
+    /**
+     * Accept 를 produces 중 하나로 정한다. 해석할 수 없거나 맞는 타입이 없으면 null
+     */
+    public MediaType negotiate(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return produces.get(0);
+        }
+        List<MediaType> accepted;
+        try {
+            accepted = new ArrayList<>(MediaType.parseMediaTypes(accept));
+        } catch (InvalidMediaTypeException e) {
+            return null;
+        }
+        // q 가 높은 순서, 같으면 Accept 에 적힌 순서
+        accepted.sort(Comparator.comparingDouble(MediaType::getQualityValue).reversed());
+        for (MediaType type : accepted) {
+            if (type.getQualityValue() == 0) {
+                continue;
+            }
+            for (MediaType candidate : produces) {
+                if (type.isCompatibleWith(candidate)) {
+                    return candidate;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * key 에 넣을 파라미터 (이름순, 값은 요청 순서). params 밖의 파라미터가 있으면 null
+     */
+    public SortedMap<String, List<String>> params(HttpServletRequest request) {
+        SortedMap<String, List<String>> result = new TreeMap<>();
+        for (Map.Entry<String, String[]> param : request.getParameterMap().entrySet()) {
+            if (!params.contains(param.getKey())) {
+                return null;
+            }
+            result.put(param.getKey(), List.of(param.getValue()));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,39 @@
+package jpabook.jpashop;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.servlet.resource.ResourceUrlProvider;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class StaticAssetCacheTest {
+
+    @Autowired
+    MockMvc mockMvc;
+    @Autowired
+    ResourceUrlProvider resourceUrlProvider;
+
+    @Test
+    @DisplayName("해시가 붙은 경로는 1년 immutable, 해시 없는 경로는 no-cache")
+    void 캐시_헤더() throws Exception {
+        String versioned = resourceUrlProvider.getForLookupPath("/css/bootstrap.min.css");
+        assertThat(versioned).matches("/css/bootstrap\\.min-[0-9a-f]{32}\\.css");
+
+        mockMvc.perform(get(versioned))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=31536000, public, immutable"));
+        mockMvc.perform(get("/css/bootstrap.min.css"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache"));
+    }
+}
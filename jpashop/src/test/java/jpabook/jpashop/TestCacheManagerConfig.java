@@ -0,0 +1,32 @@
+package jpabook.jpashop;
+
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.util.UUID;
+
+/**
+ * 테스트 컨텍스트마다 H2 DB 가 따로 생기므로 2차 캐시 CacheManager 도 컨텍스트마다 따로 만든다.
+ * JVM 에 하나인 기본 CacheManager 를 같이 쓰면 같은 id 의 엔티티가 다른 컨텍스트의 캐시 값으로 읽힌다.
+ * (caffeine.conf 설정을 그대로 쓰고, uri 의 fragment 로만 구분한다)
+ */
+@Configuration
+public class TestCacheManagerConfig {
+
+    @Bean(destroyMethod = "close")
+    public CacheManager testCacheManager() {
+        URI uri = URI.create("caffeine.conf#" + UUID.randomUUID());
+        return Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(uri, getClass().getClassLoader());
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer testCacheManagerCustomizer(CacheManager testCacheManager) {
+        return properties -> properties.put("hibernate.javax.cache.cache_manager", testCacheManager);
+    }
+}
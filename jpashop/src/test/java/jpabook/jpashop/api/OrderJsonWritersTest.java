@@ -0,0 +1,109 @@
+package jpabook.jpashop.api;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.fasterxml.jackson.module.paramnames.ParameterNamesModule;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Delivery;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.repository.order.query.OrderItemQueryDto;
+import jpabook.jpashop.repository.order.query.OrderQueryDto;
+import jpabook.jpashop.service.query.OrderDto;
+import jpabook.jpashop.service.query.OrderItemDto;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class OrderJsonWritersTest {
+
+    @Autowired
+    ObjectProvider<Jackson2ObjectMapperBuilder> builders;
+
+    @Test
+    @DisplayName("전용 writer 는 JSON / Smile / CBOR 모두 빈 직렬화와 같은 바이트를 쓴다")
+    void 출력_동일() throws Exception {
+        List<Object> values = values();
+        for (Supplier<JsonFactory> factory : List.<Supplier<JsonFactory>>of(JsonFactory::new, SmileFactory::new, CBORFactory::new)) {
+            ObjectMapper writers = builders.getObject().factory(factory.get()).build();
+            ObjectMapper beans = builders.getObject().factory(factory.get())
+                    .modules(new JavaTimeModule(), new Jdk8Module(), new ParameterNamesModule())
+                    .build();
+            assertThat(writers.getSerializerProviderInstance().findValueSerializer(OrderDto.class))
+                    .isInstanceOf(OrderJsonWriters.OrderDtoWriter.class);
+            assertThat(beans.getSerializerProviderInstance().findValueSerializer(OrderDto.class))
+                    .isNotInstanceOf(OrderJsonWriters.OrderDtoWriter.class);
+
+            for (Object value : values) {
+                assertThat(writers.writeValueAsBytes(value))
+                        .as("%s %s", factory.get().getFormatName(), value)
+                        .isEqualTo(beans.writeValueAsBytes(value));
+            }
+            // 목록 (v4~v6 응답 모양)
+            assertThat(writers.writeValueAsBytes(values)).isEqualTo(beans.writeValueAsBytes(values));
+        }
+    }
+
+    private static List<Object> values() {
+        List<LocalDateTime> dates = new ArrayList<>();
+        dates.add(LocalDateTime.of(2024, 1, 2, 3, 4, 5));
+        dates.add(LocalDateTime.of(2024, 1, 2, 3, 4, 0));
+        dates.add(LocalDateTime.of(2024, 12, 31, 23, 59, 59, 100_000_000));
+        dates.add(LocalDateTime.of(2024, 12, 31, 23, 59, 59, 123_456_789));
+        dates.add(LocalDateTime.of(2024, 12, 31, 23, 59, 59, 1_000));
+        dates.add(LocalDateTime.of(2024, 12, 31, 23, 59, 59, 1));
+        dates.add(LocalDateTime.of(12345, 6, 7, 8, 9, 10));
+        dates.add(null);
+
+        Address address = new Address("서울", "강가 \"1\"", "123-123");
+        List<OrderItemQueryDto> items = List.of(new OrderItemQueryDto(1L, "JPA1 BOOK", 10000, 1),
+                new OrderItemQueryDto(1L, null, 0, 0));
+
+        List<Object> values = new ArrayList<>();
+        for (LocalDateTime date : dates) {
+            values.add(new OrderQueryDto(1L, "userA", date, OrderStatus.ORDER, address, items));
+            values.add(simpleOrder(date));
+        }
+        values.add(new OrderQueryDto(null, null, null, null, null, null));
+        values.add(new OrderQueryDto(2L, "userB", dates.get(3), OrderStatus.CANCEL, new Address(null, null, null), List.of()));
+        values.add(new OrderDto(new OrderQueryDto(1L, "userA", dates.get(3), OrderStatus.ORDER, address, items)));
+        values.add(new OrderDto(new OrderQueryDto(null, null, null, null, null, List.of())));
+        values.add(new OrderItemDto(items.get(0)));
+        values.add(new OrderItemDto(items.get(1)));
+        values.addAll(items);
+        values.add(simpleOrderWithoutAddress());
+        return values;
+    }
+
+    private static OrderSimpleApiController.SimpleOrderDto simpleOrder(LocalDateTime orderDate) {
+        Member member = new Member();
+        member.setName("userA");
+        Delivery delivery = new Delivery();
+        delivery.setAddress(new Address("부산", "바다", "456-456"));
+        Order order = Order.createOrder(member, delivery);
+        order.setOrderDate(orderDate);
+        return new OrderSimpleApiController.SimpleOrderDto(order);
+    }
+
+    private static OrderSimpleApiController.SimpleOrderDto simpleOrderWithoutAddress() {
+        Order order = Order.createOrder(new Member(), new Delivery());
+        order.setStatus(null);
+        return new OrderSimpleApiController.SimpleOrderDto(order);
+    }
+}
@@ -0,0 +1,128 @@
+package jpabook.jpashop.batchfetch;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.service.ItemService;
+import jpabook.jpashop.service.MemberService;
+import jpabook.jpashop.service.OrderService;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "jpashop.batch-fetch.sizes[Order.orderItems]=7",
+        "jpashop.batch-fetch.sizes.Member=3",
+        "jpashop.batch-fetch.sizes.Item=50",
+        "jpashop.batch-fetch.adaptive=true"})
+class BatchFetchTest {
+
+    static final int ORDERS = 10;
+    static Path adaptiveFile;
+
+    // 지난 실행이 저장해 둔 권장값 - sizes 위에 덮어쓴다.
+    @DynamicPropertySource
+    static void adaptiveFile(DynamicPropertyRegistry registry) throws IOException {
+        adaptiveFile = Files.createTempFile("batch-fetch-sizes", ".properties");
+        adaptiveFile.toFile().deleteOnExit();
+        Files.writeString(adaptiveFile, "Item=5\n");
+        registry.add("jpashop.batch-fetch.adaptive-file", () -> adaptiveFile.toString());
+    }
+
+    @Autowired
+    BatchFetchMetrics metrics;
+    @Autowired
+    EntityManagerFactory emf;
+    @Autowired
+    EntityManager em;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+    @Autowired
+    MeterRegistry registry;
+    @Autowired
+    MemberService memberService;
+    @Autowired
+    ItemService itemService;
+    @Autowired
+    OrderService orderService;
+
+    @Test
+    @DisplayName("연관관계별 size 가 persister 에 반영되고, 배치 로딩마다 키 수/채움률을 연관관계별로 기록해 권장값을 저장한다")
+    void 연관관계별_batch_size() throws IOException {
+        SessionFactoryImplementor sessionFactory = emf.unwrap(SessionFactoryImplementor.class);
+        assertThat(sessionFactory.getMappingMetamodel()
+                .getCollectionDescriptor(Order.class.getName() + ".orderItems").getBatchSize()).isEqualTo(7);
+
+        List<Long> orderIds = orders();
+        for (int i = 0; i < 20; i++) {
+            sessionFactory.getCache().evictAll();
+            transactionTemplate.executeWithoutResult(status -> {
+                Order first = em.createQuery("select o from Order o where o.id in :ids order by o.id", Order.class)
+                        .setParameter("ids", orderIds)
+                        .getResultList().get(0);
+                first.getOrderItems().get(0).getItem().getName();
+                first.getMember().getName();
+            });
+        }
+
+        assertThat(summary("hibernate.batch.fetch.keys", "Order.orderItems").max()).isEqualTo(7);
+        assertThat(summary("hibernate.batch.fetch.fill", "Order.orderItems").max()).isEqualTo(1.0);
+        assertThat(summary("hibernate.batch.fetch.keys", "Member").max()).isEqualTo(3);
+        assertThat(summary("hibernate.batch.fetch.keys", "Member").count()).isEqualTo(20);
+        // adaptive 파일이 sizes(Item=50) 를 덮어쓴다. 대기 중인 Item 은 앞서 읽은 주문상품 7 개
+        assertThat(summary("hibernate.batch.fetch.keys", "Item").max()).isEqualTo(5);
+        assertThat(summary("hibernate.batch.fetch.demand", "Item").max()).isEqualTo(7);
+        assertThat(summary("hibernate.batch.fetch.demand", "Order.orderItems").max()).isEqualTo(ORDERS);
+
+        metrics.saveRecommendations();
+        Properties saved = new Properties();
+        try (Reader reader = Files.newBufferedReader(adaptiveFile)) {
+            saved.load(reader);
+        }
+        // 모든 배치 로딩에서 대기 중인 키가 ORDERS 개였다
+        assertThat(Integer.parseInt(saved.getProperty("Order.orderItems"))).isBetween(ORDERS, ORDERS + 1);
+        assertThat(Integer.parseInt(saved.getProperty("Member"))).isBetween(ORDERS, ORDERS + 1);
+    }
+
+    // 주문마다 회원과 상품이 다르다
+    private List<Long> orders() {
+        List<Long> orderIds = new ArrayList<>();
+        for (int i = 0; i < ORDERS; i++) {
+            Book book = new Book();
+            book.setName("배치 JPA" + i);
+            book.setPrice(10000);
+            book.setStockQuantity(100);
+            itemService.saveItem(book);
+
+            Member member = new Member();
+            member.setName("배치회원" + i);
+            member.setAddress(new Address("서울", "강가", "123-123"));
+            orderIds.add(orderService.order(memberService.join(member), book.getId(), 1));
+        }
+        return orderIds;
+    }
+
+    private DistributionSummary summary(String name, String association) {
+        return registry.get(name).tag("association", association).summary();
+    }
+}
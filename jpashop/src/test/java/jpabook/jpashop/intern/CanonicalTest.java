@@ -0,0 +1,74 @@
+package jpabook.jpashop.intern;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.repository.order.query.OrderFlatDto;
+import jpabook.jpashop.repository.order.query.OrderReportRepository;
+import jpabook.jpashop.service.ItemService;
+import jpabook.jpashop.service.MemberService;
+import jpabook.jpashop.service.OrderService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class CanonicalTest {
+
+    @Autowired
+    OrderReportRepository orderReportRepository;
+    @Autowired
+    OrderService orderService;
+    @Autowired
+    MemberService memberService;
+    @Autowired
+    ItemService itemService;
+
+    @Test
+    @DisplayName("대량 조회 행들은 같은 주소, 같은 상품명을 한 인스턴스로 공유한다")
+    void 값_공유() {
+        String prefix = "공유회원" + System.nanoTime();
+        Long first = join(prefix + "-1", new Address("부산", "해운대로 1", "48000"));
+        Long second = join(prefix + "-2", new Address("부산", "해운대로 1", "48000"));
+        Long third = join(prefix + "-3", new Address("부산", "광안로 2", "48000"));
+        Book book = new Book();
+        book.setName("공유 JPA");
+        book.setPrice(10000);
+        book.setStockQuantity(100);
+        itemService.saveItem(book);
+        for (Long memberId : List.of(first, first, second, third)) {
+            orderService.order(memberId, book.getId(), 1);
+        }
+
+        List<OrderFlatDto> rows = new ArrayList<>();
+        orderReportRepository.forEachFlat(row -> {
+            if (row.getName().startsWith(prefix)) {
+                rows.add(row);
+            }
+        });
+
+        assertThat(rows).hasSize(4);
+        OrderFlatDto row = rows.get(0);
+        // 같은 값의 주소는 회원이 달라도 같은 인스턴스
+        assertThat(rows.subList(0, 3)).allSatisfy(r -> assertThat(r.getAddress()).isSameAs(row.getAddress()));
+        // 다른 주소도 도시/우편번호/상품명 문자열은 공유한다.
+        Address other = rows.get(3).getAddress();
+        assertThat(other).isNotSameAs(row.getAddress());
+        assertThat(other.getCity()).isSameAs(row.getAddress().getCity());
+        assertThat(other.getZipcode()).isSameAs(row.getAddress().getZipcode());
+        assertThat(rows).allSatisfy(r -> assertThat(r.getItemName()).isSameAs(row.getItemName()));
+    }
+
+    private Long join(String name, Address address) {
+        Member member = new Member();
+        member.setName(name);
+        member.setAddress(address);
+        return memberService.join(member);
+    }
+}
@@ -0,0 +1,125 @@
+package jpabook.jpashop.repository;
+
+import jpabook.jpashop.domain.item.Album;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.domain.item.Movie;
+import jpabook.jpashop.outbox.OutboxDispatcher;
+import jpabook.jpashop.service.ItemService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest
+class ItemSearchTest {
+
+    @Autowired
+    ItemService itemService;
+    @Autowired
+    ItemSearchIndex itemSearchIndex;
+    @Autowired
+    OutboxDispatcher outboxDispatcher;
+
+    @Test
+    @DisplayName("상품명/저자/ISBN/아티스트/감독/배우로 찾고, 상품명에 맞은 상품이 먼저 나온다")
+    void 검색_순위() {
+        Long byName = saveBook("Tolkien Letters", "Carpenter", "isbn-100");
+        Long byAuthor = saveBook("The Hobbit", "Tolkien", "isbn-101");
+        Long album = saveAlbum("Misty Mountains", "Tolkien Ensemble");
+        Long movie = saveMovie("Fellowship", "Jackson", "McKellen");
+        outboxDispatcher.dispatch();
+
+        ItemSearchPage page = itemSearchIndex.search("tolkien", 0, 10);
+        assertThat(page.getHits()).extracting(ItemSearchHit::getItemId).contains(byName, byAuthor, album).doesNotContain(movie);
+        assertThat(page.getHits().get(0).getItemId()).isEqualTo(byName);
+
+        assertThat(itemSearchIndex.search("isbn-101", 0, 10).getHits()).extracting(ItemSearchHit::getItemId).containsExactly(byAuthor);
+        assertThat(itemSearchIndex.search("mckellen", 0, 10).getHits()).extracting(ItemSearchHit::getItemId).containsExactly(movie);
+        // 모든 토큰이 맞아야 하고, 마지막 토큰은 앞부분만 맞아도 된다.
+        assertThat(itemSearchIndex.search("hobbit tolk", 0, 10).getHits()).extracting(ItemSearchHit::getItemId).containsExactly(byAuthor);
+        assertThat(itemSearchIndex.search("hobbit jackson", 0, 10).getTotal()).isZero();
+    }
+
+    @Test
+    @DisplayName("상품 수정 이벤트가 전달되면 커밋된 상품이 인덱스에 반영된다")
+    void 수정_반영() {
+        Long id = saveBook("Refactoring", "Fowler", "isbn-200");
+        outboxDispatcher.dispatch();
+
+        itemService.updateItem(id, "Patterns of Enterprise", 30000, 10);
+        outboxDispatcher.dispatch();
+
+        assertThat(itemSearchIndex.search("refactoring", 0, 10).getHits()).extracting(ItemSearchHit::getItemId).doesNotContain(id);
+        ItemSearchHit hit = itemSearchIndex.search("enterprise", 0, 10).getHits().get(0);
+        assertThat(hit.getItemId()).isEqualTo(id);
+        assertThat(hit.getPrice()).isEqualTo(30000);
+    }
+
+    @Test
+    @DisplayName("page, size 로 나눠 가져온다")
+    void 페이지() {
+        for (int i = 0; i < 5; i++) {
+            saveBook("Paging Book " + i, "Pager", "isbn-3" + i);
+        }
+        outboxDispatcher.dispatch();
+
+        ItemSearchPage first = itemSearchIndex.search("pager", 0, 2);
+        ItemSearchPage last = itemSearchIndex.search("pager", 2, 2);
+
+        assertThat(first.getTotal()).isEqualTo(5);
+        assertThat(first.getHits()).hasSize(2);
+        assertThat(last.getHits()).hasSize(1);
+        assertThat(first.getHits()).doesNotContainAnyElementsOf(last.getHits());
+        // page * size 가 int 를 넘어도 빈 페이지
+        assertThat(itemSearchIndex.search("pager", Integer.MAX_VALUE, 100).getHits()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("InitDb 없이도 기동 시 이미 있는 상품으로 인덱스를 채운다")
+    void 기동_시_재구성() {
+        Book book = new Book();
+        book.setId(1L);
+        book.setName("Ready Book");
+        ItemRepository itemRepository = mock(ItemRepository.class);
+        when(itemRepository.findAll()).thenReturn(List.of(book));
+        ItemSearchIndex index = new ItemSearchIndex(itemRepository);
+
+        index.onReady();
+
+        assertThat(index.search("ready", 0, 10).getHits()).extracting(ItemSearchHit::getItemId).containsExactly(1L);
+    }
+
+    private Long saveBook(String name, String author, String isbn) {
+        Book book = new Book();
+        book.setName(name);
+        book.setPrice(10000);
+        book.setStockQuantity(10);
+        book.setAuthor(author);
+        book.setIsbn(isbn);
+        itemService.saveItem(book);
+        return book.getId();
+    }
+
+    private Long saveAlbum(String name, String artist) {
+        Album album = new Album();
+        album.setName(name);
+        album.setArtist(artist);
+        itemService.saveItem(album);
+        return album.getId();
+    }
+
+    private Long saveMovie(String name, String director, String actor) {
+        Movie movie = new Movie();
+        movie.setName(name);
+        movie.setDirector(director);
+        movie.setActor(actor);
+        itemService.saveItem(movie);
+        return movie.getId();
+    }
+}
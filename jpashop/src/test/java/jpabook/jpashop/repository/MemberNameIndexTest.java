@@ -0,0 +1,101 @@
+package jpabook.jpashop.repository;
+
+import jpabook.jpashop.domain.Member;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class MemberNameIndexTest {
+
+    MemberRepository memberRepository = mock(MemberRepository.class);
+    MemberNameIndex index = new MemberNameIndex(memberRepository);
+
+    @BeforeEach
+    void setUp() {
+        when(memberRepository.findAll()).thenReturn(List.of(
+                member(1L, "Kim Younghan"),
+                member(2L, "Kim Minsu"),
+                member(3L, "Lee Younghee")));
+        index.rebuild();
+    }
+
+    @Test
+    @DisplayName("모든 trigram 이 들어 있는 회원 중 연속된 부분 문자열인 회원만 찾는다")
+    void 교집합() {
+        assertThat(index.findMemberIds("Young")).containsExactlyInAnyOrder(1L, 3L);
+        assertThat(index.findMemberIds("Kim Y")).containsExactly(1L);
+        // "Min", "ins", "nsu" 는 모두 있지만 "Minsu Kim" 은 없다
+        assertThat(index.findMemberIds("Minsu Kim")).isEmpty();
+        assertThat(index.findMemberIds("Park")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("like 와 같이 대소문자를 구분한다")
+    void 대소문자() {
+        assertThat(index.findMemberIds("kim")).isEmpty();
+        assertThat(index.findMemberIds("Kim")).containsExactlyInAnyOrder(1L, 2L);
+    }
+
+    @Test
+    @DisplayName("이름 변경/추가는 이전 trigram 에서 빠지고 새 trigram 에 들어간다")
+    void 변경_반영() {
+        index.put(2L, "Park Minsu");
+        index.put(4L, "Kim Jisu");
+
+        assertThat(index.findMemberIds("Kim")).containsExactlyInAnyOrder(1L, 4L);
+        assertThat(index.findMemberIds("Park")).containsExactly(2L);
+        assertThat(index.findMemberIds("insu")).containsExactly(2L);
+
+        index.put(3L, "Lee Jisu");
+        assertThat(index.findMemberIds("Younghee")).isEmpty();
+        assertThat(index.findMemberIds("Jisu")).containsExactlyInAnyOrder(3L, 4L);
+    }
+
+    @Test
+    @DisplayName("3글자 미만 검색어는 전체 이름을 훑는다")
+    void 짧은_검색어() {
+        assertThat(index.findMemberIds("Le")).containsExactly(3L);
+    }
+
+    @Test
+    @DisplayName("짧은 검색어, trigram 검색어 모두 id 가 작은 1000 명까지만 돌려준다")
+    void 결과_제한() {
+        List<Member> many = new ArrayList<>();
+        for (long id = 2000; id >= 1; id--) {
+            many.add(member(id, "abc" + id));
+        }
+        when(memberRepository.findAll()).thenReturn(many);
+        index.rebuild();
+
+        List<Long> lowest = LongStream.rangeClosed(1, 1000).boxed().toList();
+        assertThat(index.findMemberIds("ab")).containsExactlyElementsOf(lowest);
+        assertThat(index.findMemberIds("abc")).containsExactlyElementsOf(lowest);
+    }
+
+    @Test
+    @DisplayName("재구성 전에는 DB 에서 찾는다")
+    void 재구성_전() {
+        MemberNameIndex empty = new MemberNameIndex(memberRepository);
+        when(memberRepository.findIdsByNameContaining(eq("Kim"), any(Pageable.class))).thenReturn(List.of(1L, 2L));
+
+        assertThat(empty.findMemberIds("Kim")).containsExactlyInAnyOrder(1L, 2L);
+        verify(memberRepository).findIdsByNameContaining(eq("Kim"), any(Pageable.class));
+    }
+
+    private static Member member(Long id, String name) {
+        Member member = new Member();
+        member.setId(id);
+        member.setName(name);
+        return member;
+    }
+}
@@ -0,0 +1,68 @@
+package jpabook.jpashop.repository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderStatus;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class OrderSearchTemplatesTest {
+
+    @Autowired
+    OrderRepository orderRepository;
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Test
+    @DisplayName("Criteria 템플릿 검색은 매번 JPQL 을 만드는 검색과 같은 주문을 찾는다")
+    void 검색_결과() {
+        OrderSearch byStatus = new OrderSearch();
+        byStatus.setOrderStatus(OrderStatus.ORDER);
+        OrderSearch byMember = new OrderSearch();
+        byMember.setMemberName("userA");
+        OrderSearch byDate = new OrderSearch();
+        byDate.setOrderDateFrom(LocalDate.now().minusDays(1));
+        byDate.setOrderDateTo(LocalDate.now());
+
+        for (OrderSearch search : List.of(new OrderSearch(), byStatus, byMember, byDate)) {
+            assertThat(ids(orderRepository.findAllByCriteria(search)))
+                    .containsExactlyInAnyOrderElementsOf(ids(orderRepository.findAllString(search)));
+        }
+        assertThat(orderRepository.findAllByCriteria(byMember)).isNotEmpty();
+    }
+
+    @Test
+    @DisplayName("같은 shape 의 검색은 값이 달라도 캐시된 템플릿을 다시 쓴다")
+    void 템플릿_재사용() {
+        OrderSearch first = new OrderSearch();
+        first.setOrderStatus(OrderStatus.ORDER);
+        orderRepository.findAllByCriteria(first);
+        double hits = count("hit");
+        double misses = count("miss");
+
+        OrderSearch second = new OrderSearch();
+        second.setOrderStatus(OrderStatus.CANCEL);
+        orderRepository.findAllByCriteria(second);
+
+        assertThat(count("hit")).isEqualTo(hits + 1);
+        assertThat(count("miss")).isEqualTo(misses);
+    }
+
+    private double count(String result) {
+        return meterRegistry.get("order.search.template").tag("result", result).functionCounter().count();
+    }
+
+    private static List<Long> ids(List<Order> orders) {
+        return orders.stream().map(Order::getId).toList();
+    }
+}
@@ -0,0 +1,84 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.item.Book;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class CreateOrderApiTest {
+
+    @Autowired
+    MockMvc mockMvc;
+    @Autowired
+    MemberService memberService;
+    @Autowired
+    ItemService itemService;
+
+    Long memberId;
+    Long itemId;
+
+    @BeforeEach
+    void setUp() {
+        Member member = new Member();
+        member.setName("API회원" + System.nanoTime());
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        memberId = memberService.join(member);
+
+        Book book = new Book();
+        book.setName("API JPA");
+        book.setPrice(10000);
+        book.setStockQuantity(10);
+        itemService.saveItem(book);
+        itemId = book.getId();
+    }
+
+    @Test
+    @DisplayName("없는 회원이나 상품으로 주문하면 404")
+    void 없는_회원_상품() throws Exception {
+        mockMvc.perform(order(-1L, itemId)).andExpect(status().isNotFound());
+        mockMvc.perform(order(memberId, -1L)).andExpect(status().isNotFound());
+        assertThat(itemService.findOne(itemId).getStockQuantity()).isEqualTo(10);
+    }
+
+    @Test
+    @DisplayName("같은 Idempotency-Key 로 다시 보내면 주문은 한 번만 되고, 다른 요청에 쓰면 422")
+    void 멱등_주문() throws Exception {
+        String key = "api-" + System.nanoTime();
+        String first = mockMvc.perform(order(memberId, itemId).header("Idempotency-Key", key))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        String retried = mockMvc.perform(order(memberId, itemId).header("Idempotency-Key", key))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertThat(retried).isEqualTo(first);
+        assertThat(itemService.findOne(itemId).getStockQuantity()).isEqualTo(8);
+
+        mockMvc.perform(order(memberId, itemId, 3).header("Idempotency-Key", key))
+                .andExpect(status().isUnprocessableEntity());
+    }
+
+    private MockHttpServletRequestBuilder order(Long memberId, Long itemId) {
+        return order(memberId, itemId, 2);
+    }
+
+    private MockHttpServletRequestBuilder order(Long memberId, Long itemId, int count) {
+        return post("/api/v2/orders")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"memberId\":" + memberId + ",\"lines\":[{\"itemId\":" + itemId + ",\"count\":" + count + "}]}");
+    }
+}
@@ -0,0 +1,132 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.exception.IdempotencyKeyReusedException;
+import jpabook.jpashop.repository.OrderRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+class IdempotencyStoreTest {
+
+    @Autowired
+    IdempotencyStore idempotencyStore;
+    @Autowired
+    OrderService orderService;
+    @Autowired
+    OrderRepository orderRepository;
+    @Autowired
+    MemberService memberService;
+    @Autowired
+    ItemService itemService;
+
+    @Test
+    @DisplayName("같은 키로 동시에 주문하면 한 번만 실행된다")
+    void 동시_중복_주문() throws Exception {
+        //given
+        Member member = new Member();
+        member.setName("멱등회원");
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        Long memberId = memberService.join(member);
+
+        Book book = new Book();
+        book.setName("멱등 JPA");
+        book.setPrice(10000);
+        book.setStockQuantity(10);
+        itemService.saveItem(book);
+
+        String key = "order-key-1";
+        String fingerprint = IdempotencyStore.fingerprint("order", memberId, book.getId(), 2);
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+
+        //when
+        List<Future<Long>> results = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                return idempotencyStore.execute(key, fingerprint, () -> orderService.order(key, fingerprint, memberId, book.getId(), 2));
+            }));
+        }
+        start.countDown();
+        Set<Long> orderIds = new HashSet<>();
+        for (Future<Long> result : results) {
+            orderIds.add(result.get(10, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+
+        //then
+        assertThat(orderIds).hasSize(1);
+        assertThat(itemService.findOne(book.getId()).getStockQuantity()).isEqualTo(8);
+        assertThat(idempotencyStore.execute(key, fingerprint, () -> orderService.order(key, fingerprint, memberId, book.getId(), 2)))
+                .isEqualTo(orderIds.iterator().next());
+    }
+
+    @Test
+    @DisplayName("같은 키를 다른 요청에 쓰면 주문하지 않고 거절한다")
+    void 다른_요청_재사용() {
+        Long memberId = join("재사용회원");
+        Book book = saveBook("재사용 JPA", 10);
+        String key = "order-key-2";
+        String first = IdempotencyStore.fingerprint("order", memberId, book.getId(), 1);
+        String second = IdempotencyStore.fingerprint("order", memberId, book.getId(), 3);
+
+        idempotencyStore.execute(key, first, () -> orderService.order(key, first, memberId, book.getId(), 1));
+
+        assertThatThrownBy(() -> idempotencyStore.execute(key, second, () -> orderService.order(key, second, memberId, book.getId(), 3)))
+                .isInstanceOf(IdempotencyKeyReusedException.class);
+        assertThat(itemService.findOne(book.getId()).getStockQuantity()).isEqualTo(9);
+    }
+
+    @Test
+    @DisplayName("다른 인스턴스가 같은 키를 먼저 저장했으면 그 결과를 돌려준다")
+    void 동시_저장_충돌() {
+        Long memberId = join("충돌회원");
+        Book book = saveBook("충돌 JPA", 10);
+        String key = "order-key-3";
+        String fingerprint = IdempotencyStore.fingerprint("order", memberId, book.getId(), 1);
+        AtomicLong otherOrderId = new AtomicLong();
+
+        Long result = idempotencyStore.execute(key, fingerprint, () -> {
+            // 조회 이후, 주문이 커밋되기 전에 다른 인스턴스가 같은 키로 주문을 마쳤다
+            Long other = orderService.order(key, fingerprint, memberId, book.getId(), 1);
+            otherOrderId.set(other);
+            return orderService.order(key, fingerprint, memberId, book.getId(), 1);
+        });
+
+        assertThat(result).isEqualTo(otherOrderId.get());
+        // 나중 주문은 키 저장이 PK 위반으로 실패해 함께 롤백된다
+        assertThat(itemService.findOne(book.getId()).getStockQuantity()).isEqualTo(9);
+    }
+
+    private Long join(String name) {
+        Member member = new Member();
+        member.setName(name);
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        return memberService.join(member);
+    }
+
+    private Book saveBook(String name, int stock) {
+        Book book = new Book();
+        book.setName(name);
+        book.setPrice(10000);
+        book.setStockQuantity(stock);
+        itemService.saveItem(book);
+        return book;
+    }
+}
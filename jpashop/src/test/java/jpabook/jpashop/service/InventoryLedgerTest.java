@@ -0,0 +1,167 @@
+package jpabook.jpashop.service;
+
+import jakarta.persistence.EntityManager;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.InventoryMovement;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.exception.NotEnoughStockException;
+import jpabook.jpashop.inventory.InventoryCompactor;
+import jpabook.jpashop.inventory.InventoryLedger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = {"jpashop.inventory.ledger=true", "jpashop.inventory.compact-interval=PT1H"})
+class InventoryLedgerTest {
+
+    @Autowired
+    OrderService orderService;
+    @Autowired
+    MemberService memberService;
+    @Autowired
+    ItemService itemService;
+    @Autowired
+    InventoryLedger inventoryLedger;
+    @Autowired
+    InventoryCompactor inventoryCompactor;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+    @Autowired
+    EntityManager em;
+
+    Long memberId;
+    Long itemId;
+
+    @BeforeEach
+    void setUp() {
+        Member member = new Member();
+        member.setName("원장회원" + System.nanoTime());
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        memberId = memberService.join(member);
+
+        Book book = new Book();
+        book.setName("원장 JPA");
+        book.setPrice(10000);
+        book.setStockQuantity(10);
+        itemService.saveItem(book);
+        itemId = book.getId();
+    }
+
+    @Test
+    @DisplayName("주문/취소는 원장에만 쓰고, compact 하면 스냅샷과 Item 재고에 반영된다")
+    void 주문_취소_압축() {
+        Long orderId = orderService.order(memberId, itemId, 3);
+        orderService.order(memberId, itemId, 2);
+        assertThat(available()).isEqualTo(5);
+        assertThat(itemService.findOne(itemId).getStockQuantity()).isEqualTo(10);
+
+        orderService.cancelOrder(orderId);
+        assertThat(available()).isEqualTo(8);
+
+        inventoryCompactor.compact();
+        assertThat(itemService.findOne(itemId).getStockQuantity()).isEqualTo(8);
+        assertThat(available()).isEqualTo(8);
+    }
+
+    @Test
+    @DisplayName("재고 수정은 바뀌기 전 재고로 스냅샷을 만들고 차이만 원장에 남긴다")
+    void 재고_수정() {
+        orderService.order(memberId, itemId, 2);
+
+        itemService.updateItem(itemId, "원장 JPA", 10000, 20);
+        assertThat(available()).isEqualTo(20);
+        assertThat(itemService.findOne(itemId).getStockQuantity()).isEqualTo(20);
+
+        orderService.order(memberId, itemId, 5);
+        inventoryCompactor.compact();
+        assertThat(available()).isEqualTo(15);
+        assertThat(itemService.findOne(itemId).getStockQuantity()).isEqualTo(15);
+    }
+
+    @Test
+    @DisplayName("재고보다 많이 주문하면 예약에서 막히고 재고는 그대로다")
+    void 재고_초과() {
+        orderService.order(memberId, itemId, 8);
+
+        assertThatThrownBy(() -> orderService.order(memberId, itemId, 3))
+                .isInstanceOf(NotEnoughStockException.class);
+        assertThat(available()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("동시에 주문해도 재고 이상 팔리지 않는다")
+    void 동시_주문() throws Exception {
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < threads * 3; i++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                try {
+                    orderService.order(memberId, itemId, 1);
+                    return true;
+                } catch (NotEnoughStockException e) {
+                    return false;
+                }
+            }));
+        }
+        start.countDown();
+        int ordered = 0;
+        for (Future<Boolean> result : results) {
+            if (result.get(10, TimeUnit.SECONDS)) {
+                ordered++;
+            }
+        }
+        executor.shutdown();
+
+        assertThat(ordered).isEqualTo(10);
+        assertThat(available()).isZero();
+        inventoryCompactor.compact();
+        assertThat(itemService.findOne(itemId).getStockQuantity()).isZero();
+    }
+
+    @Test
+    @DisplayName("카운터가 DB 보다 많아도(다른 인스턴스의 주문) 원장 합산에서 초과 판매를 막고 카운터를 다시 읽는다")
+    void 원장_합산_검사() {
+        assertThat(available()).isEqualTo(10);
+        appendElsewhere(-9);
+
+        assertThatThrownBy(() -> orderService.order(memberId, itemId, 3))
+                .isInstanceOf(NotEnoughStockException.class);
+        assertThat(available()).isEqualTo(1);
+        orderService.order(memberId, itemId, 1);
+        assertThat(available()).isZero();
+    }
+
+    @Test
+    @DisplayName("재고 수정은 카운터가 아니라 커밋된 원장과의 차이를 남긴다")
+    void 재고_수정_커밋_기준() {
+        assertThat(available()).isEqualTo(10);
+        appendElsewhere(-4);
+
+        itemService.updateItem(itemId, "원장 JPA", 10000, 20);
+        inventoryCompactor.compact();
+        assertThat(itemService.findOne(itemId).getStockQuantity()).isEqualTo(20);
+    }
+
+    // 이 JVM 의 카운터를 거치지 않고 원장에 쓴다
+    private void appendElsewhere(int quantity) {
+        transactionTemplate.executeWithoutResult(status -> em.persist(new InventoryMovement(itemId, null, quantity)));
+    }
+
+    private int available() {
+        return transactionTemplate.execute(status -> inventoryLedger.available(itemId));
+    }
+}
@@ -0,0 +1,165 @@
+package jpabook.jpashop.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Delivery;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.item.Book;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class MemberOrderHistoryTest {
+
+    @Autowired
+    MockMvc mockMvc;
+    @Autowired
+    ObjectMapper objectMapper;
+    @Autowired
+    OrderService orderService;
+    @Autowired
+    MemberService memberService;
+    @Autowired
+    ItemService itemService;
+    @Autowired
+    EntityManager em;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    Long memberId;
+    Long itemId;
+
+    @BeforeEach
+    void setUp() {
+        Member member = new Member();
+        member.setName("이력회원" + System.nanoTime());
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        memberId = memberService.join(member);
+
+        Book book = new Book();
+        book.setName("이력 JPA");
+        book.setPrice(10000);
+        book.setStockQuantity(100);
+        itemService.saveItem(book);
+        itemId = book.getId();
+    }
+
+    @Test
+    @DisplayName("orderDate 가 같은 주문은 id 내림차순으로 이어지고, 페이지 경계에서 빠지거나 겹치지 않는다")
+    void 같은_주문일시() throws Exception {
+        LocalDateTime tie = LocalDateTime.of(2024, 5, 1, 12, 0, 0, 123_456_000);
+        Long older = orderService.order(memberId, itemId, 1);
+        setOrderDate(older, tie.minusDays(1));
+        List<Long> tied = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Long orderId = orderService.order(memberId, itemId, 1);
+            setOrderDate(orderId, tie);
+            tied.add(orderId);
+        }
+
+        List<Long> seen = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            JsonNode page = history(cursor, 2);
+            page.get("orders").forEach(o -> seen.add(o.get("orderId").asLong()));
+            cursor = page.get("next").isNull() ? null : page.get("next").asText();
+            pages++;
+        } while (cursor != null);
+
+        assertThat(pages).isEqualTo(3);
+        assertThat(seen).containsExactly(tied.get(3), tied.get(2), tied.get(1), tied.get(0), older);
+    }
+
+    @Test
+    @DisplayName("남은 주문이 size 와 딱 맞으면 마지막 페이지의 next 는 null 이다")
+    void 마지막_페이지() throws Exception {
+        for (int i = 0; i < 4; i++) {
+            orderService.order(memberId, itemId, 1);
+        }
+
+        JsonNode first = history(null, 2);
+        assertThat(first.get("orders")).hasSize(2);
+        assertThat(first.get("next").isNull()).isFalse();
+
+        JsonNode last = history(first.get("next").asText(), 2);
+        assertThat(last.get("orders")).hasSize(2);
+        assertThat(last.get("next").isNull()).isTrue();
+
+        assertThat(history(null, 4).get("next").isNull()).isTrue();
+    }
+
+    @Test
+    @DisplayName("주문상품이 없는 주문은 상품 수 0, 합계 0 이다")
+    void 주문상품_없는_주문() throws Exception {
+        Long ordered = orderService.order(memberId, itemId, 3);
+        Long empty = transactionTemplate.execute(status -> {
+            Delivery delivery = new Delivery();
+            delivery.setAddress(new Address("서울", "강가", "123-123"));
+            Order order = Order.createOrder(em.find(Member.class, memberId), delivery);
+            em.persist(order);
+            return order.getId();
+        });
+
+        JsonNode orders = history(null, 10).get("orders");
+        assertThat(orders).hasSize(2);
+        assertThat(orders.get(0).get("orderId").asLong()).isEqualTo(empty);
+        assertThat(orders.get(0).get("itemCount").asLong()).isZero();
+        assertThat(orders.get(0).get("totalPrice").asLong()).isZero();
+        assertThat(orders.get(1).get("orderId").asLong()).isEqualTo(ordered);
+        assertThat(orders.get(1).get("itemCount").asLong()).isEqualTo(1);
+        assertThat(orders.get(1).get("totalPrice").asLong()).isEqualTo(30000);
+    }
+
+    @Test
+    @DisplayName("해석할 수 없는 cursor 는 400 이다")
+    void 잘못된_cursor() throws Exception {
+        for (String cursor : List.of("!!not-base64!!", encode("garbage"), encode("2024-05-01T12:00_abc"),
+                encode("2024-13-01T12:00_1"))) {
+            mockMvc.perform(get("/api/v2/members/{id}/orders", memberId).param("cursor", cursor))
+                    .andExpect(status().isBadRequest());
+        }
+    }
+
+    private JsonNode history(String cursor, int size) throws Exception {
+        var request = get("/api/v2/members/{id}/orders", memberId).param("size", String.valueOf(size));
+        if (cursor != null) {
+            request.param("cursor", cursor);
+        }
+        String body = mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+        return objectMapper.readTree(body);
+    }
+
+    private void setOrderDate(Long orderId, LocalDateTime orderDate) {
+        transactionTemplate.executeWithoutResult(status -> em.createQuery("update Order o set o.orderDate = :date where o.id = :id")
+                .setParameter("date", orderDate)
+                .setParameter("id", orderId)
+                .executeUpdate());
+    }
+
+    private static String encode(String value) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
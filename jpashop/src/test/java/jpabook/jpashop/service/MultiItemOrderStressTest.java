@@ -0,0 +1,95 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.item.Book;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class MultiItemOrderStressTest {
+
+    @Autowired
+    OrderService orderService;
+    @Autowired
+    MemberService memberService;
+    @Autowired
+    ItemService itemService;
+    @Autowired
+    LockRetry lockRetry;
+
+    @Test
+    @DisplayName("겹치는 상품을 서로 다른 순서로 담은 주문이 동시에 들어와도 모두 성공하고 재고가 맞는다")
+    void 겹치는_장바구니_동시_주문() throws Exception {
+        //given
+        Member member = new Member();
+        member.setName("장바구니회원" + System.nanoTime());
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        Long memberId = memberService.join(member);
+
+        int itemCount = 6;
+        int stock = 10000;
+        List<Long> itemIds = new ArrayList<>();
+        for (int i = 0; i < itemCount; i++) {
+            Book book = new Book();
+            book.setName("장바구니 책 " + i);
+            book.setPrice(1000 * (i + 1));
+            book.setStockQuantity(stock);
+            itemService.saveItem(book);
+            itemIds.add(book.getId());
+        }
+
+        int threads = 16;
+        int ordersPerThread = 15;
+        AtomicIntegerArray ordered = new AtomicIntegerArray(itemCount);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> results = new ArrayList<>();
+
+        //when - 상품 3~6개를 무작위 순서로 담는다.
+        for (int t = 0; t < threads; t++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                int done = 0;
+                for (int n = 0; n < ordersPerThread; n++) {
+                    List<Integer> basket = new ArrayList<>(List.of(0, 1, 2, 3, 4, 5));
+                    Collections.shuffle(basket, random);
+                    basket = basket.subList(0, 3 + random.nextInt(itemCount - 2));
+                    List<OrderLine> lines = new ArrayList<>();
+                    for (int index : basket) {
+                        lines.add(new OrderLine(itemIds.get(index), 1 + random.nextInt(3)));
+                    }
+                    lockRetry.run(() -> orderService.order(memberId, lines));
+                    for (OrderLine line : lines) {
+                        ordered.addAndGet(itemIds.indexOf(line.itemId()), line.count());
+                    }
+                    done++;
+                }
+                return done;
+            }));
+        }
+        start.countDown();
+        int orders = 0;
+        for (Future<Integer> result : results) {
+            orders += result.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        //then
+        assertThat(orders).isEqualTo(threads * ordersPerThread);
+        for (int i = 0; i < itemCount; i++) {
+            assertThat(itemService.findOne(itemIds.get(i)).getStockQuantity())
+                    .as("상품 %d 재고", i)
+                    .isEqualTo(stock - ordered.get(i));
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package jpabook.jpashop.service;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jpabook.jpashop.exception.TooManyRequestsException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class OrderAdmissionControlTest {
+
+    // stripe(1) == stripe(65) == 1, stripe(2) == 2
+    static final Long ITEM = 1L;
+    static final Long SAME_STRIPE = 65L;
+    static final Long OTHER = 2L;
+
+    final MeterRegistry registry = new SimpleMeterRegistry();
+    final ExecutorService executor = Executors.newCachedThreadPool();
+    final CountDownLatch release = new CountDownLatch(1);
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("같은 stripe 의 주문은 per-item 까지만 들어가고, 다른 stripe 는 영향이 없다")
+    void 상품별_제한() throws Exception {
+        OrderAdmissionControl control = control(mock(DataSource.class), 10, 2, 0, Duration.ofMillis(50));
+        hold(control, List.of(ITEM));
+        hold(control, List.of(SAME_STRIPE));
+
+        assertThatThrownBy(() -> control.run(ITEM, () -> "x")).isInstanceOf(TooManyRequestsException.class);
+        assertThat(control.run(OTHER, () -> "ok")).isEqualTo("ok");
+        assertThat(rejected("item")).isEqualTo(1);
+        assertThat(rejected("pool")).isZero();
+    }
+
+    @Test
+    @DisplayName("전체 주문은 풀 크기 - 여유분 까지만 들어간다")
+    void 전체_제한() throws Exception {
+        OrderAdmissionControl control = control(mock(DataSource.class), 3, 10, 1, Duration.ofMillis(50));
+        hold(control, List.of(ITEM));
+        hold(control, List.of(OTHER));
+        assertThat(gauge("order.admission.in.flight")).isEqualTo(2);
+
+        assertThatThrownBy(() -> control.run(3L, () -> "x")).isInstanceOf(TooManyRequestsException.class);
+        assertThat(rejected("pool")).isEqualTo(1);
+        // 거절된 주문은 stripe 를 돌려준다
+        release.countDown();
+        assertThat(control.run(3L, () -> "ok")).isEqualTo("ok");
+    }
+
+    @Test
+    @DisplayName("다른 API 가 커넥션을 쓰고 있으면 주문 세마포어가 남아도 max-wait 까지 기다린 뒤 429")
+    void 풀_여유분_대기() {
+        HikariPoolMXBean pool = mock(HikariPoolMXBean.class);
+        when(pool.getActiveConnections()).thenReturn(8);
+        OrderAdmissionControl control = control(hikari(10, pool), 10, 4, 2, Duration.ofMillis(100));
+        assertThat(gauge("order.admission.pool.headroom")).isEqualTo(2);
+
+        long start = System.nanoTime();
+        assertThatThrownBy(() -> control.run(ITEM, () -> "x")).isInstanceOf(TooManyRequestsException.class);
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isGreaterThanOrEqualTo(Duration.ofMillis(100));
+        assertThat(rejected("pool")).isEqualTo(1);
+        assertThat(gauge("order.admission.in.flight")).isZero();
+        assertThat(gauge("order.admission.waiting")).isZero();
+
+        when(pool.getActiveConnections()).thenReturn(7);
+        assertThat(control.run(ITEM, () -> "ok")).isEqualTo("ok");
+    }
+
+    @Test
+    @DisplayName("deadline 안에 자리가 나면 기다렸다가 들어간다")
+    void 대기_후_입장() throws Exception {
+        OrderAdmissionControl control = control(mock(DataSource.class), 10, 1, 0, Duration.ofSeconds(5));
+        hold(control, List.of(ITEM));
+
+        Future<String> waiter = executor.submit(() -> control.run(ITEM, () -> "ok"));
+        awaitGauge("order.admission.stripe.waiting", 1);
+        release.countDown();
+        assertThat(waiter.get(5, TimeUnit.SECONDS)).isEqualTo("ok");
+    }
+
+    @Test
+    @DisplayName("주문이 예외로 끝나도 stripe 와 전체 permit 을 돌려준다")
+    void 예외_시_반환() {
+        OrderAdmissionControl control = control(mock(DataSource.class), 1, 1, 0, Duration.ofMillis(10));
+
+        for (int i = 0; i < 3; i++) {
+            assertThatThrownBy(() -> control.run(List.of(ITEM, OTHER), () -> {
+                throw new IllegalStateException("fail");
+            })).isInstanceOf(IllegalStateException.class);
+        }
+        assertThat(gauge("order.admission.in.flight")).isZero();
+        assertThat(control.run(List.of(ITEM, OTHER), () -> "ok")).isEqualTo("ok");
+    }
+
+    @Test
+    @DisplayName("여러 상품 주문은 stripe 순서로 얻어, 상품 순서가 반대인 주문끼리도 막히지 않는다")
+    void 여러_상품_순서() throws Exception {
+        OrderAdmissionControl control = control(mock(DataSource.class), 10, 1, 0, Duration.ofSeconds(10));
+        // 같은 stripe 의 상품이 함께 담겨도 stripe 는 한 번만 얻는다
+        assertThat(control.run(List.of(ITEM, SAME_STRIPE), () -> "ok")).isEqualTo("ok");
+
+        List<Future<Integer>> results = new ArrayList<>();
+        for (List<Long> itemIds : List.of(List.of(ITEM, OTHER), List.of(OTHER, ITEM), List.of(OTHER, SAME_STRIPE))) {
+            results.add(executor.submit(() -> {
+                int done = 0;
+                for (int i = 0; i < 500; i++) {
+                    done += control.run(itemIds, () -> 1);
+                }
+                return done;
+            }));
+        }
+        for (Future<Integer> result : results) {
+            assertThat(result.get(10, TimeUnit.SECONDS)).isEqualTo(500);
+        }
+        assertThat(rejected("item")).isZero();
+    }
+
+    private OrderAdmissionControl control(DataSource dataSource, int poolSize, int perItem, int reserved, Duration maxWait) {
+        OrderAdmissionControl control = new OrderAdmissionControl(registry, dataSource, poolSize, perItem, reserved, maxWait);
+        control.bindTo(registry);
+        return control;
+    }
+
+    private static DataSource hikari(int poolSize, HikariPoolMXBean pool) {
+        HikariDataSource hikari = mock(HikariDataSource.class);
+        when(hikari.getMaximumPoolSize()).thenReturn(poolSize);
+        when(hikari.getHikariPoolMXBean()).thenReturn(pool);
+        DataSource dataSource = mock(DataSource.class);
+        try {
+            when(dataSource.isWrapperFor(HikariDataSource.class)).thenReturn(true);
+            when(dataSource.unwrap(HikariDataSource.class)).thenReturn(hikari);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        return dataSource;
+    }
+
+    // release 가 열릴 때까지 permit 을 잡고 있는 주문
+    private void hold(OrderAdmissionControl control, List<Long> itemIds) throws InterruptedException {
+        CountDownLatch entered = new CountDownLatch(1);
+        executor.submit(() -> control.run(itemIds, () -> {
+            entered.countDown();
+            try {
+                return release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }));
+        assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    private void awaitGauge(String name, double value) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (registry.get(name).gauges().stream().mapToDouble(g -> g.value()).sum() != value) {
+            assertThat(System.nanoTime()).isLessThan(deadline);
+            Thread.sleep(1);
+        }
+    }
+
+    private double gauge(String name) {
+        return registry.get(name).gauge().value();
+    }
+
+    private double rejected(String reason) {
+        return registry.get("order.admission.rejected").tag("reason", reason).counter().count();
+    }
+}
@@ -0,0 +1,229 @@
+package jpabook.jpashop.service;
+
+import jakarta.persistence.EntityManager;
+import jpabook.jpashop.api.OrderApiController;
+import jpabook.jpashop.archive.OrderArchiver;
+import jpabook.jpashop.archive.OrderBucketContext;
+import jpabook.jpashop.archive.OrderBuckets;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.ArchivedOrder;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.repository.OrderRepository;
+import jpabook.jpashop.repository.OrderSearch;
+import jpabook.jpashop.repository.order.query.MemberOrderCursor;
+import jpabook.jpashop.repository.order.query.MemberOrderHistoryDto;
+import jpabook.jpashop.repository.order.query.MemberOrderHistoryPage;
+import jpabook.jpashop.repository.order.query.OrderListRowDto;
+import jpabook.jpashop.repository.order.query.OrderQueryDto;
+import jpabook.jpashop.repository.order.query.OrderQueryRepository;
+import jpabook.jpashop.service.query.OrderDto;
+import jpabook.jpashop.service.query.OrderItemDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {"jpashop.archive.cancelled-age=PT0S", "jpashop.archive.pause=0ms"})
+class OrderArchiverTest {
+
+    @Autowired
+    OrderService orderService;
+    @Autowired
+    MemberService memberService;
+    @Autowired
+    ItemService itemService;
+    @Autowired
+    OrderArchiver orderArchiver;
+    @Autowired
+    OrderQueryRepository orderQueryRepository;
+    @Autowired
+    OrderRepository orderRepository;
+    @Autowired
+    OrderBuckets orderBuckets;
+    @Autowired
+    EntityManager em;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    OrderApiController orderApiController;
+
+    String memberName;
+    Long memberId;
+    Long itemId;
+
+    @BeforeEach
+    void setUp() {
+        memberName = "보관회원" + System.nanoTime();
+        Member member = new Member();
+        member.setName(memberName);
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        memberId = memberService.join(member);
+
+        Book book = new Book();
+        book.setName("보관 JPA");
+        book.setPrice(10000);
+        book.setStockQuantity(100);
+        itemService.saveItem(book);
+        itemId = book.getId();
+    }
+
+    @Test
+    @DisplayName("취소된 주문과 오래된 주문은 주문상품, 배송과 함께 보관 테이블로 옮겨진다")
+    void 보관() {
+        Long live = orderService.order(memberId, itemId, 1);
+        Long cancelled = orderService.order(memberId, itemId, 2);
+        orderService.cancelOrder(cancelled);
+        Long old = orderService.order(memberId, itemId, 3);
+        setOrderDate(old, LocalDateTime.now().minusYears(2));
+
+        orderArchiver.archive();
+
+        assertThat(em.find(Order.class, live)).isNotNull();
+        assertThat(em.find(Order.class, cancelled)).isNull();
+        assertThat(em.find(Order.class, old)).isNull();
+        ArchivedOrder archived = OrderBucketContext.call(YearMonth.now(), () -> em.find(ArchivedOrder.class, cancelled));
+        assertThat(archived.getStatus()).isEqualTo(OrderStatus.CANCEL);
+        assertThat(archived.getMemberId()).isEqualTo(memberId);
+
+        // includeArchived 면 보관분도 주문상품/배송 주소와 함께
+        assertThat(orderQueryRepository.findAllByDto_optimization(false))
+                .extracting(OrderQueryDto::getOrderId).contains(live).doesNotContain(cancelled, old);
+        OrderQueryDto dto = orderQueryRepository.findAllByDto_optimization(true).stream()
+                .filter(o -> o.getOrderId().equals(old)).findFirst().orElseThrow();
+        assertThat(dto.getAddress().getCity()).isEqualTo("서울");
+        assertThat(dto.getOrderItems()).hasSize(1);
+        assertThat(dto.getOrderItems().get(0).getCount()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("회원 주문 이력 includeArchived 는 두 쪽을 (orderDate desc, id desc) 순서로 합쳐 keyset 으로 넘긴다")
+    void 회원_주문_이력() {
+        Long first = orderService.order(memberId, itemId, 1);
+        Long second = orderService.order(memberId, itemId, 1);
+        Long third = orderService.order(memberId, itemId, 1);
+        orderService.cancelOrder(second);
+        orderArchiver.archive();
+
+        assertThat(orderQueryRepository.findMemberOrderHistory(memberId, null, 10).getOrders())
+                .extracting(MemberOrderHistoryDto::getOrderId).containsExactly(third, first);
+
+        MemberOrderHistoryPage page1 = orderQueryRepository.findMemberOrderHistory(memberId, null, 2, true);
+        assertThat(page1.getOrders()).extracting(MemberOrderHistoryDto::getOrderId).containsExactly(third, second);
+        assertThat(page1.getNext()).isNotNull();
+
+        MemberOrderHistoryPage page2 = orderQueryRepository.findMemberOrderHistory(memberId,
+                MemberOrderCursor.decode(page1.getNext()), 2, true);
+        List<MemberOrderHistoryDto> orders = page2.getOrders();
+        assertThat(orders).extracting(MemberOrderHistoryDto::getOrderId).containsExactly(first);
+        assertThat(page2.getNext()).isNull();
+    }
+
+    @Test
+    @DisplayName("보관 주문은 주문 월 버킷에 나뉘고, 날짜 범위 검색은 겹치는 버킷만 읽으며 오래된 버킷은 drop 된다")
+    void 월_버킷() {
+        LocalDateTime base = LocalDateTime.of(2020, 3, 15, 12, 0);
+        Long march = orderService.order(memberId, itemId, 1);
+        Long april = orderService.order(memberId, itemId, 1);
+        Long june = orderService.order(memberId, itemId, 1);
+        setOrderDate(march, base);
+        setOrderDate(april, base.plusMonths(1));
+        setOrderDate(june, base.plusMonths(3));
+
+        orderArchiver.archive();
+
+        assertThat(orderBuckets.all()).contains(YearMonth.of(2020, 3), YearMonth.of(2020, 4), YearMonth.of(2020, 6));
+        ArchivedOrder inApril = OrderBucketContext.call(YearMonth.of(2020, 4), () -> em.find(ArchivedOrder.class, april));
+        assertThat(inApril).isNotNull();
+        assertThat(OrderBucketContext.call(YearMonth.of(2020, 3), () -> em.find(ArchivedOrder.class, april))).isNull();
+
+        // 4/1 ~ 6/30 - 4월, 6월 버킷만
+        OrderSearch range = new OrderSearch();
+        range.setOrderDateFrom(LocalDate.of(2020, 4, 1));
+        range.setOrderDateTo(LocalDate.of(2020, 6, 30));
+        assertThat(orderBuckets.between(range.getOrderDateFrom(), range.getOrderDateTo()))
+                .containsExactly(YearMonth.of(2020, 4), YearMonth.of(2020, 6));
+        assertThat(orderRepository.findArchived(range)).extracting(ArchivedOrder::getId).containsExactly(june, april);
+
+        // 범위 없이 - 모든 버킷을 동시에 읽어 최근 주문부터
+        assertThat(orderRepository.findArchived(new OrderSearch())).extracting(ArchivedOrder::getId)
+                .containsSubsequence(june, april, march);
+
+        orderBuckets.dropBefore(YearMonth.of(2020, 4));
+        assertThat(orderBuckets.all()).doesNotContain(YearMonth.of(2020, 3)).contains(YearMonth.of(2020, 4));
+        assertThat(orderRepository.findArchived(new OrderSearch())).extracting(ArchivedOrder::getId)
+                .contains(june, april).doesNotContain(march);
+    }
+
+    @Test
+    @DisplayName("v3, v7 의 includeArchived 는 진행 중 주문 뒤에 보관 주문을 id 순서로 이어서 페이징한다")
+    void 보관_주문_페이징() {
+        Long live = orderService.order(memberId, itemId, 1);
+        Long first = orderService.order(memberId, itemId, 2);
+        Long second = orderService.order(memberId, itemId, 3);
+        orderService.cancelOrder(first);
+        orderService.cancelOrder(second);
+        orderArchiver.archive();
+
+        OrderSearch mine = new OrderSearch();
+        mine.setMemberName(memberName);
+        assertThat(orderApiController.ordersV3(mine, 0, 10, false)).extracting(OrderDto::getOrderId).containsExactly(live);
+        assertThat(orderApiController.ordersV3(mine, 0, 2, true)).extracting(OrderDto::getOrderId).containsExactly(live, first);
+        // offset 이 진행 중 주문을 모두 지나가면 보관 주문 안에서의 offset 으로 옮긴다
+        List<OrderDto> page2 = orderApiController.ordersV3(mine, 2, 2, true);
+        assertThat(page2).extracting(OrderDto::getOrderId).containsExactly(second);
+        assertThat(page2.get(0).getOrderItems()).extracting(OrderItemDto::getCount).containsExactly(3);
+
+        List<Map<String, Object>> rows = orderApiController.orderV7("orderId,totalPrice", live - 1, 10, true);
+        assertThat(rows).extracting(row -> row.get("orderId")).containsExactly(live, first, second);
+        assertThat(rows.get(1).get("totalPrice")).isEqualTo(20000);
+        assertThat(orderApiController.orderV7("orderId", live - 1, 2, true)).extracting(row -> row.get("orderId"))
+                .containsExactly(live, first);
+        assertThat(orderApiController.orderV7("orderId", live - 1, 10, false)).extracting(row -> row.get("orderId"))
+                .containsExactly(live);
+    }
+
+    @Test
+    @DisplayName("주문 목록 화면의 includeArchived 는 보관 주문을 최근 순서로 뒤에 붙이고 취소할 수 없게 표시한다")
+    void 주문_목록_보관() {
+        Long live = orderService.order(memberId, itemId, 1);
+        Long cancelled = orderService.order(memberId, itemId, 2);
+        orderService.cancelOrder(cancelled);
+        Long old = orderService.order(memberId, itemId, 3);
+        setOrderDate(old, LocalDateTime.now().minusYears(2));
+        orderArchiver.archive();
+
+        OrderSearch mine = new OrderSearch();
+        mine.setMemberName(memberName);
+        assertThat(orderService.findOrderListRows(mine, false)).extracting(OrderListRowDto::getId).containsExactly(live);
+
+        List<OrderListRowDto> rows = orderService.findOrderListRows(mine, true);
+        assertThat(rows).extracting(OrderListRowDto::getId).containsExactly(live, cancelled, old);
+        assertThat(rows).extracting(OrderListRowDto::isArchived).containsExactly(false, true, true);
+        OrderListRowDto archived = rows.get(2);
+        assertThat(archived.getMemberName()).isEqualTo(memberName);
+        assertThat(archived.getItemName()).isEqualTo("보관 JPA");
+        assertThat(archived.getCount()).isEqualTo(3);
+        assertThat(archived.getStatus()).isEqualTo(OrderStatus.ORDER);
+    }
+
+    private void setOrderDate(Long orderId, LocalDateTime orderDate) {
+        transactionTemplate.executeWithoutResult(status -> em.createQuery("update Order o set o.orderDate = :date where o.id = :id")
+                .setParameter("date", orderDate)
+                .setParameter("id", orderId)
+                .executeUpdate());
+    }
+}
@@ -0,0 +1,169 @@
+package jpabook.jpashop.service;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jpabook.jpashop.api.OrderSimpleApiController;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.exception.FetchPlanViolationException;
+import jpabook.jpashop.fetchplan.FetchPlan;
+import jpabook.jpashop.repository.OrderRepository;
+import jpabook.jpashop.repository.OrderSearch;
+import jpabook.jpashop.repository.order.query.OrderField;
+import jpabook.jpashop.repository.order.query.OrderQueryRepository;
+import jpabook.jpashop.service.query.OrderDto;
+import jpabook.jpashop.service.query.OrderQueryService;
+import org.hibernate.Hibernate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = {"spring.jpa.open-in-view=false", "jpashop.fetch-plan.strict=true",
+        "spring.jpa.properties.hibernate.default_batch_fetch_size=100"})
+class OrderQueryServiceTest {
+
+    @Autowired
+    OrderQueryService orderQueryService;
+    @Autowired
+    NarrowPlanService narrowPlanService;
+    @Autowired
+    OrderSimpleApiController orderSimpleApiController;
+    @Autowired
+    OrderService orderService;
+    @Autowired
+    MemberService memberService;
+    @Autowired
+    ItemService itemService;
+    @Autowired
+    OrderQueryRepository orderQueryRepository;
+    @Autowired
+    MeterRegistry registry;
+
+    @BeforeEach
+    void 주문_생성() {
+        Member member = new Member();
+        member.setName("플랜회원" + System.nanoTime());
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        memberService.join(member);
+
+        Book book = new Book();
+        book.setName("플랜 JPA");
+        book.setPrice(10000);
+        book.setStockQuantity(10);
+        itemService.saveItem(book);
+
+        orderService.order(member.getId(), book.getId(), 1);
+    }
+
+    @Test
+    @DisplayName("선언한 fetch plan 안에서 조회하고 쿼리 수를 지킨다")
+    void 선언된_플랜으로_조회() {
+        //when
+        List<OrderDto> orders = orderQueryService.ordersV2();
+
+        //then
+        assertThat(orders).isNotEmpty();
+        assertThat(orders).allSatisfy(o -> assertThat(o.getOrderItems()).isNotEmpty());
+        DistributionSummary queries = registry.get("jpa.fetch.plan.queries")
+                .tag("plan", "OrderQueryService.ordersV2").summary();
+        assertThat(queries.max()).isLessThanOrEqualTo(3);
+        assertThat(registry.find("jpa.lazy.load").tags("plan", "OrderQueryService.ordersV2", "planned", "false").counters()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("simple-orders v1 은 회원, 배송만 한 번에 읽고 주문상품은 초기화하지 않는다")
+    void 단순_주문_xToOne() {
+        //when
+        List<Order> orders = orderSimpleApiController.orderV1();
+
+        //then
+        assertThat(orders).isNotEmpty();
+        assertThat(orders).allSatisfy(o -> {
+            assertThat(Hibernate.isInitialized(o.getMember())).isTrue();
+            assertThat(Hibernate.isInitialized(o.getDelivery())).isTrue();
+            assertThat(Hibernate.isInitialized(o.getOrderItems())).isFalse();
+        });
+        assertThat(registry.get("jpa.fetch.plan.queries")
+                .tag("plan", "OrderSimpleApiController.orderV1").summary().max()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("컬렉션 fetch join 도 id 페이지 -> fetch 2번의 쿼리로 페이징한다")
+    void 페이징_fetch_join() {
+        //when
+        List<OrderDto> first = orderQueryService.ordersV3(new OrderSearch(), 0, 1);
+        List<OrderDto> second = orderQueryService.ordersV3(new OrderSearch(), 1, 1);
+
+        //then
+        assertThat(first).hasSize(1);
+        assertThat(second).hasSize(1);
+        assertThat(first.get(0).getOrderId()).isLessThan(second.get(0).getOrderId());
+        assertThat(first.get(0).getOrderItems()).isNotEmpty();
+        DistributionSummary queries = registry.get("jpa.fetch.plan.queries")
+                .tag("plan", "OrderQueryService.ordersV3").summary();
+        assertThat(queries.max()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("fields 조회는 마지막 orderId 다음부터 limit 건씩 나눠 조회한다")
+    void 필드_조회_keyset_페이징() {
+        //when
+        List<Map<String, Object>> first = orderQueryRepository.findOrderFields(EnumSet.of(OrderField.orderId), null, 1);
+        Long after = (Long) first.get(0).get("orderId");
+        List<Map<String, Object>> second = orderQueryRepository.findOrderFields(EnumSet.of(OrderField.orderId), after, 1);
+
+        //then
+        assertThat(first).hasSize(1);
+        assertThat(second).hasSize(1);
+        assertThat((Long) second.get(0).get("orderId")).isGreaterThan(after);
+    }
+
+    @Test
+    @DisplayName("strict 모드에서 plan 밖의 지연 로딩은 예외")
+    void 플랜_밖의_지연로딩() {
+        assertThatThrownBy(() -> narrowPlanService.touchOrderItems())
+                .isInstanceOf(FetchPlanViolationException.class)
+                .hasMessageContaining("jpabook.jpashop.domain.Order.orderItems");
+    }
+
+    @TestConfiguration
+    static class Config {
+        @Bean
+        NarrowPlanService narrowPlanService(OrderRepository orderRepository) {
+            return new NarrowPlanService(orderRepository);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    static class NarrowPlanService {
+
+        private final OrderRepository orderRepository;
+
+        NarrowPlanService(OrderRepository orderRepository) {
+            this.orderRepository = orderRepository;
+        }
+
+        @FetchPlan(root = Order.class, graph = {"member", "delivery"}, maxQueries = 1)
+        public int touchOrderItems() {
+            int count = 0;
+            for (Order order : orderRepository.findAllByCriteria(new OrderSearch())) {
+                count += order.getOrderItems().size();
+            }
+            return count;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.item.Book;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class OrderReportTest {
+
+    @Autowired
+    MockMvc mockMvc;
+    @Autowired
+    OrderService orderService;
+    @Autowired
+    MemberService memberService;
+    @Autowired
+    ItemService itemService;
+
+    @Test
+    @DisplayName("주문 리포트 CSV 는 주문상품 한 줄씩 쓰고, 쉼표/따옴표/줄바꿈이 든 값은 따옴표로 감싼다")
+    void 주문_리포트_CSV() throws Exception {
+        String suffix = String.valueOf(System.nanoTime());
+        Member member = new Member();
+        member.setName("리포트,\"회원\"" + suffix);
+        member.setAddress(new Address("서울", "강가\r1길", "123-123"));
+        Long memberId = memberService.join(member);
+
+        Book book = new Book();
+        book.setName("리포트 책" + suffix);
+        book.setPrice(12000);
+        book.setStockQuantity(10);
+        itemService.saveItem(book);
+        Long orderId = orderService.order(memberId, book.getId(), 2);
+
+        MvcResult started = mockMvc.perform(get("/api/reports/orders.csv"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String body = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("text/csv"))
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"orders.csv\""))
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+
+        assertThat(body).startsWith("orderId,name,orderDate,orderStatus,city,street,zipcode,itemName,orderPrice,count\n");
+        assertThat(body).containsOnlyOnce("\"리포트,\"\"회원\"\"" + suffix + "\"");
+        String row = body.substring(body.indexOf("\n" + orderId + ",") + 1);
+        assertThat(row).startsWith(orderId + ",\"리포트,\"\"회원\"\"" + suffix + "\",");
+        assertThat(row).contains(",ORDER,서울,\"강가\r1길\",123-123,리포트 책" + suffix + ",12000,2\n");
+    }
+}
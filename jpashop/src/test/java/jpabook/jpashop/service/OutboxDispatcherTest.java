@@ -0,0 +1,221 @@
+package jpabook.jpashop.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OutboxEvent;
+import jpabook.jpashop.domain.OutboxEventType;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.outbox.OutboxDispatcher;
+import jpabook.jpashop.outbox.OutboxHandler;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {"jpashop.outbox.dispatch-enabled=false", "jpashop.outbox.base-backoff=0ms",
+        "jpashop.outbox.max-attempts=2"})
+class OutboxDispatcherTest {
+
+    @Autowired
+    OrderService orderService;
+    @Autowired
+    MemberService memberService;
+    @Autowired
+    ItemService itemService;
+    @Autowired
+    OutboxDispatcher outboxDispatcher;
+    @Autowired
+    RecordingHandler handler;
+    @Autowired
+    TransactionalHandler transactionalHandler;
+    @Autowired
+    EntityManager em;
+    @Autowired
+    MeterRegistry registry;
+
+    Long memberId;
+    Long itemId;
+
+    @BeforeEach
+    void setUp() {
+        Member member = new Member();
+        member.setName("outbox회원" + System.nanoTime());
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        memberId = memberService.join(member);
+
+        Book book = new Book();
+        book.setName("outbox JPA");
+        book.setPrice(10000);
+        book.setStockQuantity(10);
+        itemService.saveItem(book);
+        itemId = book.getId();
+        outboxDispatcher.dispatch();
+    }
+
+    @Test
+    @DisplayName("주문/등록/수정/취소 이벤트가 커밋된 뒤 aggregate 별 순서대로 전달되고 outbox 에서 지워진다")
+    void 전달() {
+        Long orderId = orderService.order(memberId, itemId, 2);
+        itemService.updateItem(itemId, "outbox JPA 2판", 12000, 20);
+        orderService.cancelOrder(orderId);
+
+        outboxDispatcher.dispatch();
+
+        assertThat(handler.received("Order", orderId))
+                .containsExactly(OutboxEventType.ORDER_PLACED, OutboxEventType.ORDER_CANCELED);
+        assertThat(handler.received("Item", itemId)).containsExactly(OutboxEventType.ITEM_CREATED, OutboxEventType.ITEM_UPDATED);
+        assertThat(pending()).isZero();
+    }
+
+    @Test
+    @DisplayName("전달에 실패하면 같은 aggregate 의 뒤 이벤트도 멈췄다가 다음 전달에서 순서대로 나간다")
+    void 실패_재시도() {
+        Long orderId = orderService.order(memberId, itemId, 2);
+        orderService.cancelOrder(orderId);
+        handler.failOnce.add(orderId);
+
+        outboxDispatcher.dispatch();
+
+        assertThat(handler.received("Order", orderId)).isEmpty();
+        assertThat(pending()).isEqualTo(2);
+
+        outboxDispatcher.dispatch();
+
+        assertThat(handler.received("Order", orderId))
+                .containsExactly(OutboxEventType.ORDER_PLACED, OutboxEventType.ORDER_CANCELED);
+        assertThat(pending()).isZero();
+    }
+
+    @Test
+    @DisplayName("max-attempts 번 실패한 이벤트는 park 되고, 같은 aggregate 의 뒤 이벤트는 계속 전달된다")
+    void 실패_park() {
+        Long orderId = orderService.order(memberId, itemId, 2);
+        orderService.cancelOrder(orderId);
+        handler.failAlways.add(orderId);
+        double parkedBefore = registry.get("outbox.events").tag("result", "parked").counter().count();
+
+        outboxDispatcher.dispatch();
+        outboxDispatcher.dispatch();
+
+        assertThat(handler.received("Order", orderId)).isEmpty();
+        assertThat(registry.get("outbox.events").tag("result", "parked").counter().count()).isEqualTo(parkedBefore + 1);
+
+        outboxDispatcher.dispatch();
+
+        assertThat(handler.received("Order", orderId)).containsExactly(OutboxEventType.ORDER_CANCELED);
+        assertThat(em.createQuery("select e.eventType from OutboxEvent e where e.parkedAt is not null and e.aggregateId = :id",
+                        OutboxEventType.class)
+                .setParameter("id", orderId)
+                .getResultList()).containsExactly(OutboxEventType.ORDER_PLACED);
+    }
+
+    @Test
+    @DisplayName("@Transactional handler 가 실패해도 배치 트랜잭션은 커밋되어 재시도가 기록되고 결국 park 된다")
+    void 트랜잭션_handler_실패() {
+        Long orderId = orderService.order(memberId, itemId, 2);
+        transactionalHandler.failAlways(orderId);
+
+        outboxDispatcher.dispatch();
+
+        assertThat(em.createQuery("select e.attempts from OutboxEvent e where e.aggregateId = :id", Integer.class)
+                .setParameter("id", orderId)
+                .getSingleResult()).isEqualTo(1);
+
+        outboxDispatcher.dispatch();
+
+        assertThat(em.createQuery("select e.eventType from OutboxEvent e where e.parkedAt is not null and e.aggregateId = :id",
+                        OutboxEventType.class)
+                .setParameter("id", orderId)
+                .getResultList()).containsExactly(OutboxEventType.ORDER_PLACED);
+    }
+
+    private long pending() {
+        return em.createQuery("select count(e) from OutboxEvent e where e.parkedAt is null", Long.class).getSingleResult();
+    }
+
+    record Received(String aggregateType, Long aggregateId, OutboxEventType eventType) {
+    }
+
+    static class RecordingHandler implements OutboxHandler {
+
+        final List<Received> received = new CopyOnWriteArrayList<>();
+        final Set<Long> failOnce = ConcurrentHashMap.newKeySet();
+        final Set<Long> failAlways = ConcurrentHashMap.newKeySet();
+
+        @Override
+        public boolean supports(OutboxEvent event) {
+            return true;
+        }
+
+        @Override
+        public void handle(OutboxEvent event) {
+            if (event.getEventType() == OutboxEventType.ORDER_PLACED && failOnce.remove(event.getAggregateId())) {
+                throw new IllegalStateException("일시적인 실패");
+            }
+            if (event.getEventType() == OutboxEventType.ORDER_PLACED && failAlways.contains(event.getAggregateId())) {
+                throw new IllegalStateException("계속 실패");
+            }
+            received.add(new Received(event.getAggregateType(), event.getAggregateId(), event.getEventType()));
+        }
+
+        List<OutboxEventType> received(String aggregateType, Long aggregateId) {
+            return received.stream()
+                    .filter(r -> r.aggregateType().equals(aggregateType) && r.aggregateId().equals(aggregateId))
+                    .map(Received::eventType)
+                    .toList();
+        }
+    }
+
+    // 자기 트랜잭션에 참여하는 handler - 실패하면 참여한 트랜잭션을 rollback-only 로 만든다.
+    static class TransactionalHandler implements OutboxHandler {
+
+        final Set<Long> failAlways = ConcurrentHashMap.newKeySet();
+
+        @Autowired
+        EntityManager em;
+
+        @Override
+        public boolean supports(OutboxEvent event) {
+            return event.getEventType() == OutboxEventType.ORDER_PLACED && failAlways.contains(event.getAggregateId());
+        }
+
+        // 트랜잭션 프록시라 필드 대신 메서드로 넘긴다.
+        public void failAlways(Long orderId) {
+            failAlways.add(orderId);
+        }
+
+        @Override
+        @Transactional
+        public void handle(OutboxEvent event) {
+            em.find(Order.class, event.getAggregateId());
+            throw new IllegalStateException("트랜잭션 안에서 실패");
+        }
+    }
+
+    @TestConfiguration
+    static class Config {
+        @Bean
+        RecordingHandler recordingHandler() {
+            return new RecordingHandler();
+        }
+
+        @Bean
+        TransactionalHandler transactionalHandler() {
+            return new TransactionalHandler();
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package jpabook.jpashop.service;
+
+import jakarta.servlet.FilterChain;
+import jpabook.jpashop.snapshot.ResponseSnapshotFilter;
+import jpabook.jpashop.snapshot.ResponseSnapshots;
+import jpabook.jpashop.snapshot.SnapshotRefresher;
+import jpabook.jpashop.snapshot.SnapshotRoute;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static jpabook.jpashop.snapshot.SnapshotGroup.MEMBER;
+import static jpabook.jpashop.snapshot.SnapshotGroup.ORDER;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ResponseSnapshotFilterTest {
+
+    static final String PATH = "/api/v2/members";
+
+    ResponseSnapshots snapshots = new ResponseSnapshots(Duration.ofMinutes(1), 100);
+    SnapshotRefresher refresher = new SnapshotRefresher(List.of(new MappingJackson2HttpMessageConverter()), 1, Duration.ofSeconds(1));
+    ResponseSnapshotFilter filter = new ResponseSnapshotFilter(snapshots, refresher,
+            Map.of(PATH, new SnapshotRoute(Set.of(MEMBER), Set.of("page"),
+                    List.of(MediaType.APPLICATION_JSON, MediaType.APPLICATION_CBOR))),
+            Duration.ofSeconds(5));
+
+    AtomicInteger renders = new AtomicInteger();
+
+    @Test
+    @DisplayName("같은 key 의 동시 요청은 한 번만 렌더링하고 결과를 나눠 쓴다")
+    void single_flight() throws Exception {
+        CountDownLatch rendering = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        FilterChain slow = (request, response) -> {
+            renders.incrementAndGet();
+            rendering.countDown();
+            await(release);
+            response.setContentType("application/json");
+            response.getOutputStream().write("[\"a\"]".getBytes(StandardCharsets.UTF_8));
+        };
+
+        int threads = 4;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<MockHttpServletResponse>> results = new ArrayList<>();
+        results.add(executor.submit(() -> get(null, slow)));
+        rendering.await(5, TimeUnit.SECONDS);
+        for (int i = 1; i < threads; i++) {
+            results.add(executor.submit(() -> get(null, slow)));
+        }
+        Thread.sleep(100);
+        release.countDown();
+
+        for (Future<MockHttpServletResponse> result : results) {
+            MockHttpServletResponse response = result.get(5, TimeUnit.SECONDS);
+            assertThat(response.getContentAsString()).isEqualTo("[\"a\"]");
+            assertThat(response.getHeader(HttpHeaders.VARY)).isEqualTo(HttpHeaders.ACCEPT);
+        }
+        executor.shutdown();
+        assertThat(renders.get()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("관련 그룹이 invalidate 되면 다음 요청은 다시 렌더링한다")
+    void invalidate() throws Exception {
+        FilterChain chain = counting();
+
+        assertThat(get(null, chain).getContentAsString()).isEqualTo("render-1");
+        assertThat(get(null, chain).getContentAsString()).isEqualTo("render-1");
+
+        snapshots.invalidate(ORDER);
+        assertThat(get(null, chain).getContentAsString()).isEqualTo("render-1");
+
+        snapshots.invalidate(MEMBER);
+        assertThat(get(null, chain).getContentAsString()).isEqualTo("render-2");
+    }
+
+    @Test
+    @DisplayName("Accept 는 응답 타입으로 정해서 key 에 넣고, 허용되지 않은 파라미터는 스냅샷을 쓰지 않는다")
+    void key() throws Exception {
+        FilterChain chain = counting();
+
+        get(null, chain);
+        // 모두 application/json 으로 정해진다
+        get("*/*", chain);
+        get("text/html,application/json;q=0.9,*/*;q=0.8", chain);
+        assertThat(renders.get()).isEqualTo(1);
+
+        get("application/cbor", chain);
+        assertThat(renders.get()).isEqualTo(2);
+
+        MockHttpServletRequest paged = new MockHttpServletRequest("GET", PATH);
+        paged.addParameter("page", "1");
+        filter.doFilter(paged, new MockHttpServletResponse(), chain);
+        filter.doFilter(paged, new MockHttpServletResponse(), chain);
+        assertThat(renders.get()).isEqualTo(3);
+
+        MockHttpServletRequest unknown = new MockHttpServletRequest("GET", PATH);
+        unknown.addParameter("debug", "1");
+        filter.doFilter(unknown, new MockHttpServletResponse(), chain);
+        filter.doFilter(unknown, new MockHttpServletResponse(), chain);
+        assertThat(renders.get()).isEqualTo(5);
+    }
+
+    @Test
+    @DisplayName("오래된 스냅샷은 그대로 응답하고, 경로의 renderer 를 요청 스레드 밖에서 불러 교체한다")
+    void refresh() throws Exception {
+        ResponseSnapshots stale = new ResponseSnapshots(Duration.ZERO, 100);
+        ResponseSnapshotFilter refreshing = new ResponseSnapshotFilter(stale, refresher,
+                Map.of(PATH, new SnapshotRoute(Set.of(MEMBER), Set.of(), List.of(MediaType.APPLICATION_JSON),
+                        params -> List.of("fresh-" + renders.incrementAndGet()))),
+                Duration.ofSeconds(5));
+        FilterChain chain = counting();
+
+        assertThat(getFrom(refreshing, chain).getContentAsString()).isEqualTo("render-1");
+        // stale-after=0 이어도 같은 ms 안에서는 오래된 것으로 보지 않는다
+        Thread.sleep(5);
+        assertThat(getFrom(refreshing, chain).getContentAsString()).isEqualTo("render-1");
+
+        String body = null;
+        long deadline = System.currentTimeMillis() + 5000;
+        while (System.currentTimeMillis() < deadline) {
+            body = getFrom(refreshing, chain).getContentAsString();
+            if (!body.equals("render-1")) {
+                break;
+            }
+            Thread.sleep(20);
+        }
+        assertThat(body).startsWith("[\"fresh-");
+    }
+
+    @Test
+    @DisplayName("renderer 가 없는 경로의 오래된 스냅샷은 지우고 다음 요청이 다시 렌더링한다")
+    void refresh_without_renderer() throws Exception {
+        ResponseSnapshotFilter evicting = new ResponseSnapshotFilter(new ResponseSnapshots(Duration.ZERO, 100), refresher,
+                Map.of(PATH, new SnapshotRoute(Set.of(MEMBER), Set.of(), List.of(MediaType.APPLICATION_JSON))),
+                Duration.ofSeconds(5));
+        FilterChain chain = counting();
+
+        assertThat(getFrom(evicting, chain).getContentAsString()).isEqualTo("render-1");
+        Thread.sleep(5);
+        assertThat(getFrom(evicting, chain).getContentAsString()).isEqualTo("render-1");
+        assertThat(getFrom(evicting, chain).getContentAsString()).isEqualTo("render-2");
+    }
+
+    private FilterChain counting() {
+        return (request, response) -> {
+            response.setContentType("application/json");
+            response.getOutputStream().write(("render-" + renders.incrementAndGet()).getBytes(StandardCharsets.UTF_8));
+        };
+    }
+
+    private static MockHttpServletResponse getFrom(ResponseSnapshotFilter filter, FilterChain chain) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", PATH), response, chain);
+        return response;
+    }
+
+    private MockHttpServletResponse get(String accept, FilterChain chain) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", PATH);
+        if (accept != null) {
+            request.addHeader(HttpHeaders.ACCEPT, accept);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
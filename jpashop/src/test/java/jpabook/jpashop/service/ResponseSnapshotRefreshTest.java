@@ -0,0 +1,50 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.repository.MemberRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "jpashop.snapshot.stale-after=0s")
+class ResponseSnapshotRefreshTest {
+
+    @Autowired
+    TestRestTemplate rest;
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Test
+    @DisplayName("오래된 스냅샷은 그대로 응답하고, 응답 이후 다른 스레드에서 다시 계산해 교체한다")
+    void stale_while_revalidate() throws Exception {
+        rest.getForEntity("/api/v2/members", String.class);
+
+        // invalidate 없이 바뀐 데이터 - 스냅샷은 다시 계산될 때까지 예전 응답을 준다
+        String name = "갱신회원" + System.nanoTime();
+        Member member = new Member();
+        member.setName(name);
+        memberRepository.save(member);
+
+        ResponseEntity<String> stale = rest.getForEntity("/api/v2/members", String.class);
+        assertThat(stale.getBody()).doesNotContain(name);
+        assertThat(stale.getHeaders().getFirst(HttpHeaders.VARY)).isEqualTo(HttpHeaders.ACCEPT);
+
+        String refreshed = null;
+        long deadline = System.currentTimeMillis() + 5000;
+        while (System.currentTimeMillis() < deadline) {
+            refreshed = rest.getForEntity("/api/v2/members", String.class).getBody();
+            if (refreshed.contains(name)) {
+                break;
+            }
+            Thread.sleep(50);
+        }
+        assertThat(refreshed).contains(name);
+    }
+}
@@ -0,0 +1,56 @@
+package jpabook.jpashop.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class SecondLevelCacheTest {
+
+    @Autowired
+    MemberService memberService;
+    @Autowired
+    EntityManagerFactory emf;
+
+    Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        statistics.setStatisticsEnabled(false);
+    }
+
+    @Test
+    @DisplayName("저장한 회원은 다음 트랜잭션부터 DB 대신 2차 캐시(member region)에서 읽는다")
+    void 회원_캐시_적중() {
+        Member member = new Member();
+        member.setName("캐시회원");
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        Long id = memberService.join(member);
+
+        memberService.findOne(id);
+        memberService.findOne(id);
+
+        CacheRegionStatistics region = statistics.getDomainDataRegionStatistics("member");
+        assertThat(region.getHitCount()).isEqualTo(2);
+        assertThat(region.getMissCount()).isZero();
+        assertThat(statistics.getEntityLoadCount()).isZero();
+    }
+}